@@ -0,0 +1,229 @@
+package packag;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * Bookkeeping shared by the journaled list and tree. Every node gets a long id when
+ * it is created; log records and checkpoints name nodes by these ids, because
+ * positions do not survive a restart. The two maps translate between ids and the
+ * positions of the wrapped structure, and double as the check that a position
+ * belongs to it.
+ */
+abstract class AbstractJournaled<E> implements AutoCloseable {
+
+	//----------------------------nested ReadOnlyIterator class-----------------------
+
+	/** This class passes an iterator of the wrapped structure through without its remove, which the log would miss. */
+	static final class ReadOnlyIterator<T> implements Iterator<T> {
+
+		private final Iterator<T> inner;												//iterator of the wrapped structure
+
+		ReadOnlyIterator(Iterator<T> inner) {
+			this.inner = inner;															//sets inner to the value of inner
+		}
+
+		/** Tests whether the iterator has a next object. */
+		@Override
+		public boolean hasNext() {
+			return inner.hasNext();
+		}
+
+		/** Returns the next object in the iterator. */
+		@Override
+		public T next() {
+			return inner.next();
+		}
+
+		/** Always throws, changes have to go through the journaled structure. */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Remove through the journaled structure");	//throw exception
+		}
+	}
+	//----------------------------end of nested ReadOnlyIterator class--------------------
+
+	final ElementCodec<E> codec;														//converts elements to and from bytes
+	Journal journal;																	//log and checkpoints of the structure
+	private final HashMap<Long, Position<E>> nodes = new HashMap<>();					//position of each id
+	private final IdentityHashMap<Position<E>, Long> ids = new IdentityHashMap<>();		//id of each position
+	private long nextId = 1;															//id of the next node, 0 means no node
+
+	/**
+	 * Constructor that sets the codec; the subclass opens the journal.
+	 *
+	 * @param codec the codec that converts elements to and from bytes
+	 */
+	AbstractJournaled(ElementCodec<E> codec) {
+		this.codec = codec;																//sets codec to the value of codec
+	}
+
+	/**
+	 * Returns the journal, to sync, take a checkpoint or tune the batching.
+	 *
+	 * @return the journal of the structure
+	 */
+	public Journal journal() {
+		return journal;																	//returns the journal
+	}
+
+	/**
+	 * Forces the pending records to the disk and closes the journal.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		journal.close();																//close the journal
+	}
+
+	/**
+	 * Gives a new node the next id.
+	 *
+	 * @param p the new node
+	 * @return  its id
+	 */
+	long register(Position<E> p) {
+		return register(p, nextId);														//take the next id
+	}
+
+	/**
+	 * Gives a node the given id, as read from a checkpoint or a log record.
+	 *
+	 * @param p  the node
+	 * @param id its id
+	 * @return   the id
+	 */
+	long register(Position<E> p, long id) {
+		nodes.put(id, p);
+		ids.put(p, id);
+		if(nextId <= id) {																//never hand out an id twice
+			nextId = id + 1;
+		}
+		return id;																		//return the id
+	}
+
+	/**
+	 * Forgets a removed node.
+	 *
+	 * @param p the node
+	 */
+	void unregister(Position<E> p) {
+		Long id = ids.remove(p);
+		if(id != null) {
+			nodes.remove(id);
+		}
+	}
+
+	/**
+	 * Returns the id of a node of the structure.
+	 *
+	 * @param p the position that is checked
+	 * @return  its id
+	 * @throws  InvalidPositionException if p is not a node of the structure
+	 */
+	long idOf(Position<E> p) throws InvalidPositionException {
+		Long id = ids.get(p);
+		if(id == null) {																//if p is not a node of the structure
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		return id;																		//return the id
+	}
+
+	/**
+	 * Returns the node with the given id, while reading a checkpoint or replaying.
+	 *
+	 * @param id the id
+	 * @return   the node
+	 * @throws   IOException if no node has that id, the journal is damaged
+	 */
+	Position<E> nodeOf(long id) throws IOException {
+		Position<E> p = nodes.get(id);
+		if(p == null) {																	//if the id is unknown
+			throw new IOException("The journal refers to unknown node " + id);			//throw exception
+		}
+		return p;																		//return the node
+	}
+
+	/**
+	 * Returns a view of an iterable of the wrapped structure whose iterators do not
+	 * remove, so nothing changes behind the log and the id maps.
+	 *
+	 * @param inner the iterable of the wrapped structure
+	 * @return      a read-only view of it
+	 */
+	static <T> Iterable<T> readOnly(Iterable<T> inner) {
+		return new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new ReadOnlyIterator<T>(inner.iterator());
+			}
+
+			@Override
+			public Iterable<T> positions() {
+				Iterable<T> positions = inner.positions();
+				return positions == null ? null : readOnly(positions);					//null as in PositionIterable
+			}
+		};
+	}
+
+	/** Writes the id counter of a checkpoint. */
+	void writeNextId(ChannelWriter out) throws IOException {
+		out.writeLong(nextId);
+	}
+
+	/** Reads the id counter of a checkpoint. */
+	void readNextId(ChannelReader in) throws IOException {
+		nextId = in.readLong();
+	}
+
+	/**
+	 * Decodes the element of a log record.
+	 *
+	 * @param element the encoded element
+	 * @param length  its length, -1 for null
+	 * @return        the element
+	 */
+	E decode(ByteBuffer element, int length) {
+		return length < 0 ? null : codec.decode(element, length);						//null has no bytes
+	}
+
+	/**
+	 * Encodes the element of a change before it is made, so a failing codec leaves
+	 * the structure as it was. PositionalList and Tree methods cannot throw
+	 * IOException, so a failing codec surfaces as UncheckedIOException.
+	 *
+	 * @param e the element, null if there is none
+	 * @return  the encoded element to pass to log, null if e is null
+	 */
+	ByteBuffer encode(E e) {
+		try {
+			return journal.encode(e, codec);											//encode the element
+		}
+		catch(IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+
+	/**
+	 * Appends a record for a change that has been made. A failing log surfaces as
+	 * UncheckedIOException, as in encode.
+	 *
+	 * @param op      the operation code
+	 * @param id      the id of the node the change concerns
+	 * @param ref     the id of the second node, 0 if there is none
+	 * @param element the element as returned by encode, null if there is none
+	 */
+	void log(int op, long id, long ref, ByteBuffer element) {
+		try {
+			journal.append(op, id, ref, element);										//append the record
+		}
+		catch(IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package packag;
+
+import java.util.Arrays;
+
+/**
+ * Link bookkeeping shared by the array-backed positional lists. Slot 0 is a sentinel
+ * that acts as both header and trailer, prev/next links of every other slot are kept in
+ * int arrays and removed slots are chained into a free list for reuse. Subclasses store
+ * their elements in arrays of their own, indexed by the same slots.
+ *
+ * The int handles the slot API hands out carry the slot in their low 24 bits and the
+ * generation of the slot in the seven bits above. A slot moves on to the next
+ * generation every time it is freed, so a handle kept after its element was removed
+ * is rejected even once the slot holds another element; only after 128 reuses of the
+ * same slot does an old handle match again. A list holds at most 2^24 - 1 elements.
+ */
+abstract class AbstractSlotList {
+
+	/** Slot handle returned when there is no position (end of list, empty list). */
+	public static final int NONE = -1;
+
+	static final int FREE = -2;															//marker stored in prev[] for slots on the free list
+	static final int SENTINEL = 0;														//slot 0 is both header and trailer
+	static final int DEFAULT_CAPACITY = 16;												//initial number of slots
+	static final int INDEX_BITS = 24;													//low bits of a handle that hold the slot
+	static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+	static final int GENERATION_MASK = 0x7F;											//generation bits above the slot, the sign bit stays clear
+	static final int MAX_SLOTS = 1 << INDEX_BITS;										//slots a handle can name, the sentinel included
+
+	int[] next;																			//next[s] is the slot after slot s
+	int[] prev;																			//prev[s] is the slot before slot s, FREE if unused
+	private byte[] generation;															//generation[s] is the generation of slot s
+	private int free = NONE;															//first slot of the free list, chained through next[]
+	private int used = 1;																//number of slots ever handed out, including the sentinel
+	private int size = 0;																//number of elements in the list
+
+	/**
+	 * Constructor that creates the link arrays with room for the given number of elements.
+	 *
+	 * @param capacity the number of elements the list can hold before growing
+	 */
+	AbstractSlotList(int capacity) {
+		if(capacity < 0) {																//if the capacity is negative
+			throw new IllegalArgumentException("Negative capacity: " + capacity);		//throw exception
+		}
+		if(capacity >= MAX_SLOTS) {														//if a handle could not name every slot
+			throw new IllegalArgumentException("Capacity too large: " + capacity);		//throw exception
+		}
+		next = new int[capacity + 1];													//one extra slot for the sentinel
+		prev = new int[capacity + 1];
+		generation = new byte[capacity + 1];
+		next[SENTINEL] = SENTINEL;														//an empty list links the sentinel to itself
+		prev[SENTINEL] = SENTINEL;
+	}
+
+	/**
+	 * Grows the element arrays of the subclass to the given number of slots.
+	 *
+	 * @param capacity the new number of slots
+	 */
+	abstract void grow(int capacity);
+
+	/** Returns the number of elements in the list.
+	 *
+	 * @return the number of elements in the list
+	 */
+	public int size() {
+		return size;																	//returns the size
+	}
+
+	/** Tests whether the list is empty.
+	 *
+	 * @return true if the list is empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;																//true if there are no elements
+	}
+
+	/**
+	 * Returns the slot of the first element (or NONE, if empty).
+	 *
+	 * @return the first slot, or NONE
+	 */
+	public int firstSlot() {
+		return slotOrNone(next[SENTINEL]);												//the slot after the sentinel
+	}
+
+	/**
+	 * Returns the slot of the last element (or NONE, if empty).
+	 *
+	 * @return the last slot, or NONE
+	 */
+	public int lastSlot() {
+		return slotOrNone(prev[SENTINEL]);												//the slot before the sentinel
+	}
+
+	/**
+	 * Returns the slot immediately after the given slot (or NONE, if it is last).
+	 *
+	 * @param slot the handle of a live slot of this list
+	 * @return     the next slot, or NONE
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public int nextSlot(int slot) throws InvalidPositionException {
+		return slotOrNone(next[checkSlot(slot)]);										//the slot after the given one
+	}
+
+	/**
+	 * Returns the slot immediately before the given slot (or NONE, if it is first).
+	 *
+	 * @param slot the handle of a live slot of this list
+	 * @return     the previous slot, or NONE
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public int prevSlot(int slot) throws InvalidPositionException {
+		return slotOrNone(prev[checkSlot(slot)]);										//the slot before the given one
+	}
+
+	/**
+	 * Links a fresh slot between pred and succ and returns it. The caller stores the element.
+	 *
+	 * @param pred the previous slot
+	 * @param succ the next slot
+	 * @return     the slot that has been linked between pred and succ
+	 */
+	int link(int pred, int succ) {
+		int slot = allocate();															//take a slot from the free list or the arrays
+		prev[slot] = pred;																//link the new slot to its neighbours
+		next[slot] = succ;
+		next[pred] = slot;																//link the neighbours to the new slot
+		prev[succ] = slot;
+		size++;																			//the size of the list is increased by 1
+		return slot;																	//return the new slot
+	}
+
+	/**
+	 * Unlinks a live slot and puts it on the free list. The caller clears the element.
+	 *
+	 * @param slot the slot to unlink
+	 */
+	void unlink(int slot) {
+		next[prev[slot]] = next[slot];													//the previous slot skips over this one
+		prev[next[slot]] = prev[slot];													//the next slot skips over this one
+		prev[slot] = FREE;																//mark the slot as free
+		generation[slot] = (byte) ((generation[slot] + 1) & GENERATION_MASK);			//handles of the removed element go stale
+		next[slot] = free;																//push the slot on the free list
+		free = slot;
+		size--;																			//decrease the size of the list by 1
+	}
+
+	/**
+	 * Returns an unused slot, growing the arrays if every slot is taken.
+	 *
+	 * @return an unused slot
+	 */
+	private int allocate() {
+		if(free != NONE) {																//if a removed slot is available
+			int slot = free;															//reuse it
+			free = next[slot];
+			return slot;
+		}
+		if(used == next.length) {														//if the arrays are full
+			if(used == MAX_SLOTS) {														//if no handle could name another slot
+				throw new IllegalStateException("The list is full: " + (MAX_SLOTS - 1) + " elements");	//throw exception
+			}
+			int capacity = Math.min(Math.max(2 * next.length, DEFAULT_CAPACITY), MAX_SLOTS);	//double their length
+			next = Arrays.copyOf(next, capacity);
+			prev = Arrays.copyOf(prev, capacity);
+			generation = Arrays.copyOf(generation, capacity);
+			grow(capacity);																//let the subclass grow its element arrays
+		}
+		return used++;																	//hand out the next untouched slot
+	}
+
+	/**
+	 * Checks whether the passed handle names a live slot of this list in its current
+	 * generation.
+	 *
+	 * @param handle the handle that is checked
+	 * @return       the slot it names
+	 * @throws       InvalidPositionException if the slot is out of range, the sentinel or free, or was reused since
+	 */
+	int checkSlot(int handle) throws InvalidPositionException {
+		int slot = handle & INDEX_MASK;
+		if(handle < 0 || slot == SENTINEL || slot >= used || prev[slot] == FREE) {		//if the slot is not in use
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		if(handle >>> INDEX_BITS != generation[slot]) {									//if the element of the handle was removed
+			throw new InvalidPositionException("The position is no longer valid");		//throw exception
+		}
+		return slot;																	//return the slot
+	}
+
+	/** Returns the handle of a slot for the slot API, mapping the sentinel to NONE so it never escapes. */
+	int slotOrNone(int slot) {
+		return slot == SENTINEL ? NONE : generation[slot] << INDEX_BITS | slot;			//the sentinel is not a position
+	}
+}
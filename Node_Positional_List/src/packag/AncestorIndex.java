@@ -0,0 +1,164 @@
+package packag;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * A query index over a LinkedTree that answers depth, ancestor and lowest common
+ * ancestor queries in O(1) after an O(n log n) build. Nodes are
+ * numbered in preorder, so the subtree of a node is the range from its number to
+ * the number of its last descendant. For the lowest common ancestor the index keeps
+ * a sparse table of range minimums of depth over the preorder, the Euler tour method
+ * with the preorder standing in for the tour. The index is rebuilt on the first
+ * query after the tree has changed.
+ */
+public final class AncestorIndex<E> {
+
+	private final LinkedTree<E> tree;													//tree that is indexed
+	private int builtFor = -1;															//modCount of the tree the index was built for, -1 if never built
+	private IdentityHashMap<Position<E>, Integer> order;								//preorder number of each node
+	private ArrayList<Position<E>> nodes;												//nodes by preorder number
+	private int[] parent;																//parent[i] is the preorder number of the parent of node i, -1 for the root
+	private int[] depth;																//depth[i] is the depth of node i
+	private int[] last;																	//last[i] is the preorder number of the last node in the subtree of node i
+	private int[][] shallowest;															//shallowest[k][i] is the shallowest node among i .. i + 2^k - 1
+
+	/**
+	 * Constructs an index for the given tree. It is built on the first query.
+	 *
+	 * @param tree the tree to index
+	 */
+	AncestorIndex(LinkedTree<E> tree) {
+		this.tree = tree;																//sets tree to the value of tree
+	}
+
+	/**
+	 * Returns the depth of Position p, the number of its ancestors.
+	 *
+	 * @param p a position of the tree
+	 * @return  the depth of p, 0 for the root
+	 * @throws  InvalidPositionException if p is not a position of the tree
+	 */
+	public int depth(Position<E> p) throws InvalidPositionException {
+		return depth[number(p)];														//look up the depth
+	}
+
+	/**
+	 * Tests whether Position p is an ancestor of Position q. As in the rest of the
+	 * tree API, every node counts as an ancestor of itself.
+	 *
+	 * @param p the possible ancestor
+	 * @param q the possible descendant
+	 * @return  true if p is q or an ancestor of q, false otherwise
+	 * @throws  InvalidPositionException if p or q is not a position of the tree
+	 */
+	public boolean isAncestor(Position<E> p, Position<E> q) throws InvalidPositionException {
+		int a = number(p);																//preorder number of p
+		int b = number(q);																//preorder number of q
+		return a <= b && b <= last[a];													//q lies in the preorder range of p's subtree
+	}
+
+	/**
+	 * Returns the lowest common ancestor of Position p and Position q, the deepest
+	 * node that is an ancestor of both.
+	 *
+	 * @param p a position of the tree
+	 * @param q a position of the tree
+	 * @return  the lowest common ancestor of p and q
+	 * @throws  InvalidPositionException if p or q is not a position of the tree
+	 */
+	public Position<E> lca(Position<E> p, Position<E> q) throws InvalidPositionException {
+		int a = number(p);																//preorder number of p
+		int b = number(q);																//preorder number of q
+		if(a == b) {																	//if both are the same node
+			return p;
+		}
+		if(a > b) {																		//order the two numbers
+			int t = a;
+			a = b;
+			b = t;
+		}
+		int child = shallowest(a + 1, b);												//shallowest node after a, up to b, is a child of the ancestor
+		return nodes.get(parent[child]);												//return its parent
+	}
+
+	/**
+	 * Returns the preorder number of Position p, rebuilding the index first if the
+	 * tree has changed.
+	 *
+	 * @param p a position of the tree
+	 * @return  the preorder number of p
+	 * @throws  InvalidPositionException if p is not a position of the tree
+	 */
+	private int number(Position<E> p) throws InvalidPositionException {
+		if(builtFor != tree.modCount) {													//if the index is stale
+			build();																	//rebuild it
+		}
+		Integer number = order.get(p);													//number of the position
+		if(number == null) {															//if p is not in the tree
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		return number;																	//return the number
+	}
+
+	/**
+	 * Numbers the nodes of the tree in preorder and fills the depth, subtree range and
+	 * sparse tables.
+	 */
+	private void build() {
+		order = new IdentityHashMap<>();
+		nodes = new ArrayList<>();
+		for(Position<E> p : tree.preorder()) {											//number the nodes in preorder
+			order.put(p, nodes.size());
+			nodes.add(p);
+		}
+		int n = nodes.size();
+		parent = new int[n];
+		depth = new int[n];
+		last = new int[n];
+		for(int i = 0; i < n; i++) {													//parents come before their children
+			TreePosition<E> up = ((TreePosition<E>) nodes.get(i)).getParent();
+			parent[i] = i == 0 || up == null ? -1 : order.get(up);
+			depth[i] = parent[i] < 0 ? 0 : depth[parent[i]] + 1;						//one below the parent
+			last[i] = i;
+		}
+		for(int i = n - 1; i > 0; i--) {												//children come after their parents
+			if(last[parent[i]] < last[i]) {												//a subtree ends with its last descendant
+				last[parent[i]] = last[i];
+			}
+		}
+		int levels = n == 0 ? 1 : 32 - Integer.numberOfLeadingZeros(n);					//table rows up to the largest power of two
+		shallowest = new int[levels][];
+		shallowest[0] = new int[n];
+		for(int i = 0; i < n; i++) {													//a range of one node
+			shallowest[0][i] = i;
+		}
+		for(int k = 1; k < levels; k++) {												//combine two ranges of half the length
+			int half = 1 << (k - 1);
+			int[] below = shallowest[k - 1];
+			int[] row = new int[n - (1 << k) + 1];
+			for(int i = 0; i < row.length; i++) {
+				row[i] = shallower(below[i], below[i + half]);
+			}
+			shallowest[k] = row;
+		}
+		builtFor = tree.modCount;														//the index is current
+	}
+
+	/**
+	 * Returns the shallowest node among preorder numbers from to to, inclusive.
+	 *
+	 * @param from the first number of the range
+	 * @param to   the last number of the range
+	 * @return     the number of the shallowest node in the range
+	 */
+	private int shallowest(int from, int to) {
+		int k = 31 - Integer.numberOfLeadingZeros(to - from + 1);						//largest power of two that fits
+		return shallower(shallowest[k][from], shallowest[k][to - (1 << k) + 1]);		//two overlapping ranges cover it
+	}
+
+	/** Returns whichever of the two nodes is shallower, the first on a tie. */
+	private int shallower(int a, int b) {
+		return depth[b] < depth[a] ? b : a;												//the smaller depth wins
+	}
+}
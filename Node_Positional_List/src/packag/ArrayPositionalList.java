@@ -0,0 +1,502 @@
+package packag;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A positional list that keeps its links and elements in parallel arrays instead of
+ * one node object per element. Removed slots are chained into a free list and reused.
+ * Besides the PositionalList methods, the list can be driven directly through int slot
+ * handles (firstSlot, nextSlot, elementAt, insertAfter, removeAt, ...); once the
+ * arrays have grown to the working size, inserting through these allocates nothing.
+ * The PositionalList add methods still create a Handle for every new element, since
+ * removing an element drops the handle of its slot.
+ */
+public class ArrayPositionalList<E> extends AbstractSlotList implements PositionalList<E>, Iterable<E> {
+
+	//----------------------------nested Handle class-----------------------
+
+	/** This class is the lightweight Position handed out for a slot of the list. */
+	public class Handle implements Position<E> {
+
+		private int slot;																//slot this handle refers to, NONE once removed
+
+		/**
+		 * Constructs a handle for the given slot.
+		 *
+		 * @param slot the slot in the arrays
+		 */
+		private Handle(int slot) {
+			this.slot = slot;															//sets slot to the value of slot
+		}
+
+		/**
+		 * Returns the slot handle of this position, for the slot API.
+		 *
+		 * @return the slot handle of this position, or NONE if it has been removed
+		 */
+		public int slot() {
+			return slot == NONE ? NONE : slotOrNone(slot);								//returns the slot with its generation
+		}
+
+		/**
+		 * Returns the element stored at this position.
+		 *
+		 * @return the stored element
+		 * @throws IllegalArgumentException if position no longer valid
+		 */
+		@Override
+		public E getElement() throws IllegalArgumentException {
+			if(slot == NONE) {															//if the slot has been removed
+				throw new IllegalArgumentException("Position no longer valid");			//throw exception
+			}
+			return element(slot);														//return the stored element
+		}
+
+		/** Returns the list that owns this handle. */
+		private ArrayPositionalList<E> owner() {
+			return ArrayPositionalList.this;											//returns the enclosing list
+		}
+	}
+	//----------------------------end of nested Handle class--------------------
+
+	//-----------------------nested PositionIterator class-----------------------
+
+	/** This class walks the slots and reports the handle of each one. */
+	private class PositionIterator implements Iterator<Position<E>> {
+
+		private int cursor = next[SENTINEL];											//slot of the next position to report
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if the iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return cursor != SENTINEL;													//true until the walk returns to the sentinel
+		}
+
+		/** Returns the next position in the iterator.
+		 *
+		 * @return the next position in the iterator
+		 */
+		@Override
+		public Position<E> next() {
+			if(cursor == SENTINEL) {													//if there is no next position
+				throw new java.util.NoSuchElementException("No next position");			//throw exception
+			}
+			Position<E> position = handle(cursor);										//handle of the current slot
+			cursor = next[cursor];														//move to the next slot
+			return position;															//return the position
+		}
+	}
+	//-----------------------end of nested PositionIterator class--------------------
+
+	//-----------------------nested PositionIterable class-----------------------
+
+	/** This class constructs and returns a new PositionIterator each time iterator() is called. */
+	private class PositionIterable implements Iterable<Position<E>> {
+
+		/** Returns an iterator for the positions in the list.
+		 *
+		 * @return an iterator for the positions in the list
+		 */
+		@Override
+		public Iterator<Position<E>> iterator() {
+			return new PositionIterator();												//return a new PositionIterator object
+		}
+
+		/** This class does not need the positions() method, therefore it returns null. */
+		@Override
+		public Iterable<Position<E>> positions() {
+			return null;																//returns null
+		}
+	}
+	//-----------------------end of nested PositionIterable class--------------------
+
+	//----------------------------nested ElementIterator class-----------------------
+
+	/** This class walks the slots and reports their elements without creating handles. */
+	private class ElementIterator implements Iterator<E> {
+
+		private int cursor = next[SENTINEL];											//slot of the next element to report
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return cursor != SENTINEL;													//true until the walk returns to the sentinel
+		}
+
+		/** Returns the next element in the iterator.
+		 *
+		 * @return the next element in the iterator
+		 */
+		@Override
+		public E next() {
+			if(cursor == SENTINEL) {													//if there is no next element
+				throw new java.util.NoSuchElementException("No next element");			//throw exception
+			}
+			E element = element(cursor);												//element of the current slot
+			cursor = next[cursor];														//move to the next slot
+			return element;																//return the element
+		}
+	}
+	//----------------------------end of nested ElementIterator class--------------------
+
+	private Object[] data;																//data[s] is the element stored in slot s
+	private Handle[] handles;															//handles[s] is the cached Position of slot s
+
+	/** Constructor that creates an empty list with the default capacity. */
+	public ArrayPositionalList() {
+		this(DEFAULT_CAPACITY);															//use the default capacity
+	}
+
+	/**
+	 * Constructor that creates an empty list with room for the given number of elements.
+	 *
+	 * @param capacity the number of elements the list can hold before growing
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public ArrayPositionalList(int capacity) {
+		super(capacity);																//create the link arrays
+		data = new Object[capacity + 1];												//one extra slot for the sentinel
+		handles = new ArrayPositionalList.Handle[capacity + 1];
+	}
+
+	/** Returns an iterator for the elements in the collection.
+	 *
+	 * @return an iterator of the elements in the list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new ElementIterator();													//returns an iterator of the elements in the list
+	}
+
+	/** Returns an iterable representation of the list's positions.
+	 *
+	 * @return an iterable representation of the list's positions
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterable<E> positions() {
+		return (Iterable<E>) new PositionIterable();									//returns an iterable of the list's positions
+	}
+
+	//----------------------------slot handle operations-----------------------
+
+	/**
+	 * Returns the element stored in the given slot.
+	 *
+	 * @param slot the handle of a live slot of this list
+	 * @return     the element in the slot
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public E elementAt(int slot) throws InvalidPositionException {
+		return element(checkSlot(slot));												//the element in the slot
+	}
+
+	/**
+	 * Replaces the element stored in the given slot and returns the replaced element.
+	 *
+	 * @param slot the handle of a live slot of this list
+	 * @param e    the new element
+	 * @return     the replaced element
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public E setAt(int slot, E e) throws InvalidPositionException {
+		int s = checkSlot(slot);														//the slot the handle names
+		E replaced = element(s);														//variable to store the replaced element
+		data[s] = e;																	//store the new element
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Inserts element e at the front of the list and returns its slot.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the slot of the new element
+	 */
+	public int insertFirst(E e) {
+		return slotOrNone(insert(e, SENTINEL, next[SENTINEL]));							//link right after the sentinel
+	}
+
+	/**
+	 * Inserts element e at the back of the list and returns its slot.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the slot of the new element
+	 */
+	public int insertLast(E e) {
+		return slotOrNone(insert(e, prev[SENTINEL], SENTINEL));							//link right before the sentinel
+	}
+
+	/**
+	 * Inserts element e immediately before the given slot and returns its slot.
+	 *
+	 * @param slot the handle of a live slot of this list
+	 * @param e    the element to be inserted
+	 * @return     the slot of the new element
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public int insertBefore(int slot, E e) throws InvalidPositionException {
+		int s = checkSlot(slot);														//make sure the slot is live
+		return slotOrNone(insert(e, prev[s], s));										//link between the previous slot and this one
+	}
+
+	/**
+	 * Inserts element e immediately after the given slot and returns its slot.
+	 *
+	 * @param slot the handle of a live slot of this list
+	 * @param e    the element to be inserted
+	 * @return     the slot of the new element
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public int insertAfter(int slot, E e) throws InvalidPositionException {
+		int s = checkSlot(slot);														//make sure the slot is live
+		return slotOrNone(insert(e, s, next[s]));										//link between this slot and the next one
+	}
+
+	/**
+	 * Removes the element stored in the given slot and returns it. The slot is put
+	 * on the free list, and any Handle or slot handle for it becomes invalid.
+	 *
+	 * @param slot the handle of a live slot of this list
+	 * @return     the removed element
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public E removeAt(int slot) throws InvalidPositionException {
+		return release(checkSlot(slot));													//unlink the slot
+	}
+
+	//----------------------------PositionalList operations-----------------------
+
+	/** Returns the first Position in the list (or null, if empty).
+	 *
+	 * @return the first position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> first() {
+		return position(next[SENTINEL]);												//return the first position
+	}
+
+	/** Returns the last Position in the list (or null, if empty).
+	 *
+	 * @return the last position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> last() {
+		return position(prev[SENTINEL]);												//return the last position
+	}
+
+	/**
+	 * Returns the Position immediately before Position p (or null, if p is first).
+	 *
+	 * @param p the position of the element
+	 * @return  the position immediately before position p, or null if p is first
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> before(Position<E> p) throws InvalidPositionException {
+		return position(prev[checkPosition(p)]);										//return the previous position
+	}
+
+	/**
+	 * Returns the Position immediately after Position p (or null, if p is last).
+	 *
+	 * @param p the position of the element
+	 * @return  the position immediately after position p, or null if p is last
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> after(Position<E> p) throws InvalidPositionException {
+		return position(next[checkPosition(p)]);										//return the next position
+	}
+
+	/**
+	 * Inserts element e at the front of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addFirst(E e) {
+		return handle(insert(e, SENTINEL, next[SENTINEL]));								//return the handle of the new slot
+	}
+
+	/**
+	 * Inserts element e at the back of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addLast(E e) {
+		return handle(insert(e, prev[SENTINEL], SENTINEL));								//return the handle of the new slot
+	}
+
+	/**
+	 * Inserts element e immediately before Position p and returns its new Position.
+	 *
+	 * @param p the position of the element
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addBefore(Position<E> p, E e) throws InvalidPositionException {
+		int slot = checkPosition(p);													//slot of position p
+		return handle(insert(e, prev[slot], slot));										//return the handle of the new slot
+	}
+
+	/**
+	 * Inserts element e immediately after Position p and returns its new Position.
+	 *
+	 * @param p the position of the element
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addAfter(Position<E> p, E e) throws InvalidPositionException {
+		int slot = checkPosition(p);													//slot of position p
+		return handle(insert(e, slot, next[slot]));										//return the handle of the new slot
+	}
+
+	/**
+	 * Replaces the element stored at Position p and returns the replaced element.
+	 *
+	 * @param p the position of the element
+	 * @param e the element that will replace the element stored at position p
+	 * @return  the replaced element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E set(Position<E> p, E e) throws InvalidPositionException {
+		int slot = checkPosition(p);													//slot of position p
+		E replaced = element(slot);														//variable to store the replaced element
+		data[slot] = e;																	//store the new element
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Removes the element stored at Position p and returns it (invalidating p).
+	 *
+	 * @param p the position of the element
+	 * @return  the removed element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E remove(Position<E> p) throws InvalidPositionException {
+		return release(checkPosition(p));												//unlink the slot of position p
+	}
+
+	/**
+	 * Returns a string representation of the list
+	 *
+	 * @return a string representation of the list
+	 */
+	public String toString() {
+		StringBuilder list = new StringBuilder();										//builder for the string
+		for(int s = next[SENTINEL]; s != SENTINEL; s = next[s]) {						//for every slot in order
+			list.append(data[s]).append(' ');											//add the element with a space right after
+		}
+		return list.toString();															//return the string
+	}
+
+	//----------------------------internal helpers-----------------------
+
+	/**
+	 * Links element e into a fresh slot between pred and succ.
+	 *
+	 * @param e    element to be added
+	 * @param pred the previous slot
+	 * @param succ the next slot
+	 * @return     the slot that has been linked between pred and succ
+	 */
+	private int insert(E e, int pred, int succ) {
+		int slot = link(pred, succ);													//link a fresh slot
+		data[slot] = e;																	//store the element
+		return slot;																	//return the new slot
+	}
+
+	/**
+	 * Unlinks a live slot, invalidates its handle and returns its element.
+	 *
+	 * @param slot the slot to unlink
+	 * @return     the removed element
+	 */
+	private E release(int slot) {
+		E removed = element(slot);														//variable that holds the element to be removed
+		Handle handle = handles[slot];
+		if(handle != null) {															//if a handle was handed out for the slot
+			handle.slot = NONE;															//invalidate it
+			handles[slot] = null;
+		}
+		data[slot] = null;																//let go of the element
+		unlink(slot);																	//put the slot on the free list
+		return removed;																	//return the removed element
+	}
+
+	/**
+	 * Grows the element and handle arrays to the given number of slots.
+	 *
+	 * @param capacity the new number of slots
+	 */
+	@Override
+	void grow(int capacity) {
+		data = Arrays.copyOf(data, capacity);											//grow the elements
+		handles = Arrays.copyOf(handles, capacity);										//grow the cached handles
+	}
+
+	/**
+	 * Checks whether the passed position is a live handle of this list.
+	 *
+	 * @param v the position that is checked
+	 * @return  the slot of the passed position
+	 * @throws  InvalidPositionException if v is null, not a handle of this list or removed
+	 */
+	protected int checkPosition(Position<E> v) throws InvalidPositionException {
+		if(!(v instanceof ArrayPositionalList.Handle)) {								//if v does not exist or v is not a handle
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		Handle handle = (Handle) v;
+		if(handle.owner() != this || handle.slot == NONE) {								//if v belongs to another list or was removed
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		return handle.slot;																//return the slot of the handle
+	}
+
+	/**
+	 * Returns the handle of a slot, or null if the slot is the sentinel.
+	 *
+	 * @param slot the slot
+	 * @return     the handle of the slot, or null
+	 */
+	private Position<E> position(int slot) {
+		return slot == SENTINEL ? null : handle(slot);									//the sentinel has no position
+	}
+
+	/**
+	 * Returns the cached handle of a live slot, creating it the first time it is asked for.
+	 *
+	 * @param slot a live slot
+	 * @return     the handle of the slot
+	 */
+	private Handle handle(int slot) {
+		Handle handle = handles[slot];													//the cached handle
+		if(handle == null) {															//if none has been handed out yet
+			handle = new Handle(slot);													//create it once
+			handles[slot] = handle;
+		}
+		return handle;																	//return the handle
+	}
+
+	/** Returns the element in a slot with the unchecked cast in one place. */
+	@SuppressWarnings("unchecked")
+	private E element(int slot) {
+		return (E) data[slot];															//return the element in the slot
+	}
+}
@@ -0,0 +1,280 @@
+package packag;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Saves and loads NodePositionalLists and LinkedTrees in a compact binary format.
+ * Both formats start with a magic number and the number of elements as a long.
+ * A list follows with one length-prefixed record per element, first to last. A tree
+ * follows with its nodes in preorder, each as its number of children and then its
+ * record; the child counts are all a reader needs to hang every node under the right
+ * parent. Saving and loading are a single sequential pass over the channel through a
+ * ChannelWriter or ChannelReader, and loading builds the list or tree node by node as
+ * the records arrive, so no copy of the structure is ever held in memory.
+ */
+public final class BinaryFormat {
+
+	static final int LIST_MAGIC = 0x4E504C31;											//"NPL1"
+	static final int TREE_MAGIC = 0x4E505431;											//"NPT1"
+
+	private BinaryFormat() {
+	}
+
+	/**
+	 * Writes list to the given channel and flushes the writer. The channel is left open.
+	 *
+	 * @param list  the list to write
+	 * @param codec the codec that encodes the elements
+	 * @param out   the writer to write to
+	 * @throws      IOException if the channel fails
+	 */
+	public static <E> void writeList(NodePositionalList<E> list, ElementCodec<? super E> codec, ChannelWriter out) throws IOException {
+		out.writeInt(LIST_MAGIC);														//header
+		out.writeLong(list.size());
+		for(E e : list) {																//one record per element
+			out.writeRecord(e, codec);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes list to the given channel. The channel is left open.
+	 *
+	 * @param list    the list to write
+	 * @param codec   the codec that encodes the elements
+	 * @param channel the channel to write to
+	 * @throws        IOException if the channel fails
+	 */
+	public static <E> void writeList(NodePositionalList<E> list, ElementCodec<? super E> codec, WritableByteChannel channel) throws IOException {
+		writeList(list, codec, new ChannelWriter(channel));								//buffer the channel
+	}
+
+	/**
+	 * Writes list to the file at path, replacing its contents.
+	 *
+	 * @param list  the list to write
+	 * @param codec the codec that encodes the elements
+	 * @param path  the file to write
+	 * @throws      IOException if the file cannot be written
+	 */
+	public static <E> void writeList(NodePositionalList<E> list, ElementCodec<? super E> codec, Path path) throws IOException {
+		try(FileChannel channel = openForWrite(path)) {
+			writeList(list, codec, channel);
+		}
+	}
+
+	/**
+	 * Reads a list written by writeList.
+	 *
+	 * @param codec the codec that decodes the elements
+	 * @param in    the reader to read from
+	 * @return      a new list holding the elements
+	 * @throws      IOException if the channel fails or does not hold a list
+	 */
+	public static <E> NodePositionalList<E> readList(ElementCodec<? extends E> codec, ChannelReader in) throws IOException {
+		long count = readHeader(in, LIST_MAGIC, "list");								//number of elements
+		NodePositionalList<E> list = new NodePositionalList<E>();
+		for(long i = 0; i < count; i++) {												//link the elements as they arrive
+			E e = in.readRecord(codec);
+			list.addLast(e);
+		}
+		return list;																	//return the list
+	}
+
+	/**
+	 * Reads a list written by writeList from the given channel. The channel is left open.
+	 *
+	 * @param codec   the codec that decodes the elements
+	 * @param channel the channel to read from
+	 * @return        a new list holding the elements
+	 * @throws        IOException if the channel fails or does not hold a list
+	 */
+	public static <E> NodePositionalList<E> readList(ElementCodec<? extends E> codec, ReadableByteChannel channel) throws IOException {
+		return readList(codec, new ChannelReader(channel));								//buffer the channel
+	}
+
+	/**
+	 * Reads a list written by writeList from the file at path.
+	 *
+	 * @param codec the codec that decodes the elements
+	 * @param path  the file to read
+	 * @return      a new list holding the elements
+	 * @throws      IOException if the file cannot be read or does not hold a list
+	 */
+	public static <E> NodePositionalList<E> readList(ElementCodec<? extends E> codec, Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return readList(codec, channel);
+		}
+	}
+
+	/**
+	 * Writes tree to the given writer in preorder and flushes the writer. The channel
+	 * is left open.
+	 *
+	 * @param tree  the tree to write
+	 * @param codec the codec that encodes the elements
+	 * @param out   the writer to write to
+	 * @throws      IOException if the channel fails
+	 */
+	public static <E> void writeTree(LinkedTree<E> tree, ElementCodec<? super E> codec, ChannelWriter out) throws IOException {
+		out.writeInt(TREE_MAGIC);														//header
+		out.writeLong(tree.size());
+		for(Position<E> p : tree.preorder()) {											//parents before their children
+			out.writeInt(tree.numChildren(p));											//how many of the next subtrees hang below p
+			out.writeRecord(p.getElement(), codec);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes tree to the given channel. The channel is left open.
+	 *
+	 * @param tree    the tree to write
+	 * @param codec   the codec that encodes the elements
+	 * @param channel the channel to write to
+	 * @throws        IOException if the channel fails
+	 */
+	public static <E> void writeTree(LinkedTree<E> tree, ElementCodec<? super E> codec, WritableByteChannel channel) throws IOException {
+		writeTree(tree, codec, new ChannelWriter(channel));								//buffer the channel
+	}
+
+	/**
+	 * Writes tree to the file at path, replacing its contents.
+	 *
+	 * @param tree  the tree to write
+	 * @param codec the codec that encodes the elements
+	 * @param path  the file to write
+	 * @throws      IOException if the file cannot be written
+	 */
+	public static <E> void writeTree(LinkedTree<E> tree, ElementCodec<? super E> codec, Path path) throws IOException {
+		try(FileChannel channel = openForWrite(path)) {
+			writeTree(tree, codec, channel);
+		}
+	}
+
+	/**
+	 * Reads a tree written by writeTree. The nodes arrive in preorder, so the reader
+	 * keeps the path from the root to the node that is still waiting for children,
+	 * together with how many children each node on it still expects, and appends every
+	 * new node to the deepest node on that path.
+	 *
+	 * @param codec the codec that decodes the elements
+	 * @param in    the reader to read from
+	 * @return      a new tree holding the elements
+	 * @throws      IOException if the channel fails or does not hold a tree
+	 */
+	public static <E> LinkedTree<E> readTree(ElementCodec<? extends E> codec, ChannelReader in) throws IOException {
+		long count = readHeader(in, TREE_MAGIC, "tree");								//number of nodes
+		LinkedTree<E> tree = new LinkedTree<E>();
+		if(count == 0) {																//if the tree is empty
+			return tree;
+		}
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Position<E>[] path = new Position[16];											//path[d] is the open node at depth d
+		int[] expected = new int[16];													//expected[d] is the number of children it still expects
+		int depth = 0;																	//number of open nodes
+		try {
+			int children = readChildCount(in);
+			path[0] = tree.addRoot(in.readRecord(codec));								//the first node is the root
+			expected[0] = children;
+			depth = children > 0 ? 1 : 0;
+			for(long i = 1; i < count; i++) {											//every other node hangs below an open node
+				if(depth == 0) {														//if no node expects a child
+					throw new IOException("Corrupt tree: node " + i + " has no parent");	//throw exception
+				}
+				children = readChildCount(in);
+				Position<E> node = tree.addChild(path[depth - 1], in.readRecord(codec));	//append to the deepest open node
+				if(--expected[depth - 1] == 0) {										//if that node has all of its children
+					depth--;															//close it
+				}
+				if(children > 0) {														//if the new node expects children itself
+					if(depth == path.length) {											//grow the path
+						path = Arrays.copyOf(path, depth * 2);
+						expected = Arrays.copyOf(expected, depth * 2);
+					}
+					path[depth] = node;													//open it
+					expected[depth++] = children;
+				}
+			}
+		}
+		catch(NonEmptyTreeException | InvalidPositionException e) {						//the tree is new and every parent is a node of it
+			throw new IllegalStateException(e);
+		}
+		if(depth != 0) {																//if some node is still missing children
+			throw new IOException("Corrupt tree: " + expected[depth - 1] + " children missing");	//throw exception
+		}
+		return tree;																	//return the tree
+	}
+
+	/**
+	 * Reads a tree written by writeTree from the given channel. The channel is left open.
+	 *
+	 * @param codec   the codec that decodes the elements
+	 * @param channel the channel to read from
+	 * @return        a new tree holding the elements
+	 * @throws        IOException if the channel fails or does not hold a tree
+	 */
+	public static <E> LinkedTree<E> readTree(ElementCodec<? extends E> codec, ReadableByteChannel channel) throws IOException {
+		return readTree(codec, new ChannelReader(channel));								//buffer the channel
+	}
+
+	/**
+	 * Reads a tree written by writeTree from the file at path.
+	 *
+	 * @param codec the codec that decodes the elements
+	 * @param path  the file to read
+	 * @return      a new tree holding the elements
+	 * @throws      IOException if the file cannot be read or does not hold a tree
+	 */
+	public static <E> LinkedTree<E> readTree(ElementCodec<? extends E> codec, Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return readTree(codec, channel);
+		}
+	}
+
+	/**
+	 * Reads the magic number and element count that start a list or tree.
+	 *
+	 * @param in    the reader to read from
+	 * @param magic the magic number that is expected
+	 * @param kind  "list" or "tree", for the error message
+	 * @return      the number of elements that follow
+	 * @throws      IOException if the channel fails or holds something else
+	 */
+	private static long readHeader(ChannelReader in, int magic, String kind) throws IOException {
+		if(in.readInt() != magic) {														//if the magic number is wrong
+			throw new IOException("The channel does not hold a " + kind);				//throw exception
+		}
+		long count = in.readLong();
+		if(count < 0 || count > Integer.MAX_VALUE) {									//if the count cannot be a size
+			throw new IOException("Corrupt " + kind + " size " + count);				//throw exception
+		}
+		return count;																	//return the count
+	}
+
+	/**
+	 * Reads the child count that comes before a tree node.
+	 *
+	 * @param in the reader to read from
+	 * @return   the number of children of the node
+	 * @throws   IOException if the channel fails or the count is negative
+	 */
+	private static int readChildCount(ChannelReader in) throws IOException {
+		int children = in.readInt();
+		if(children < 0) {																//if the count is garbage
+			throw new IOException("Corrupt child count " + children);					//throw exception
+		}
+		return children;																//return the count
+	}
+
+	/** Opens the file at path for writing, creating it or cutting it to nothing. */
+	private static FileChannel openForWrite(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);	//open the file
+	}
+}
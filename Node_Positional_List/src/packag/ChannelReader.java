@@ -0,0 +1,144 @@
+package packag;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads what a ChannelWriter wrote: ints, longs and length-prefixed element records,
+ * refilling its buffer from the channel in large sequential chunks.
+ */
+public class ChannelReader implements AutoCloseable {
+
+	private static final int DEFAULT_BUFFER = 1 << 16;									//bytes read from the channel at a time
+
+	private final ReadableByteChannel channel;											//channel the bytes come from
+	private final ByteBuffer buffer;													//bytes read but not consumed yet, ready to get
+
+	/**
+	 * Constructs a reader with the default buffer size.
+	 *
+	 * @param channel the channel to read from
+	 */
+	public ChannelReader(ReadableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER);													//use the default buffer size
+	}
+
+	/**
+	 * Constructs a reader with the given buffer size.
+	 *
+	 * @param channel  the channel to read from
+	 * @param capacity the number of bytes read at a time
+	 */
+	public ChannelReader(ReadableByteChannel channel, int capacity) {
+		this.channel = channel;															//sets channel to the value of channel
+		this.buffer = ByteBuffer.allocateDirect(Math.max(capacity, Long.BYTES));		//room for at least one long
+		this.buffer.flip();																//nothing to get yet
+	}
+
+	/**
+	 * Reads an int.
+	 *
+	 * @return the value
+	 * @throws IOException if the channel fails or ends first
+	 */
+	public int readInt() throws IOException {
+		require(Integer.BYTES);															//make sure the bytes are there
+		return buffer.getInt();
+	}
+
+	/**
+	 * Reads a long.
+	 *
+	 * @return the value
+	 * @throws IOException if the channel fails or ends first
+	 */
+	public long readLong() throws IOException {
+		require(Long.BYTES);															//make sure the bytes are there
+		return buffer.getLong();
+	}
+
+	/**
+	 * Reads one length-prefixed record and decodes its element.
+	 *
+	 * @param codec the codec that decodes the element
+	 * @return      the element, or null if a null element was written
+	 * @throws      IOException if the channel fails or ends first, or the codec reads a wrong length
+	 */
+	public <E> E readRecord(ElementCodec<? extends E> codec) throws IOException {
+		int length = readInt();															//length prefix
+		if(length == ChannelWriter.NULL_LENGTH) {										//if a null element was written
+			return null;
+		}
+		if(length < 0) {																//if the prefix is garbage
+			throw new IOException("Corrupt record length " + length);					//throw exception
+		}
+		ByteBuffer source = buffer;														//decode in place when it fits
+		if(length > buffer.capacity()) {												//if the record can never fit the buffer
+			source = ByteBuffer.allocate(length);										//give it a buffer of its own
+			readFully(source);
+			source.flip();
+		}
+		else {
+			require(length);
+		}
+		int start = source.position();
+		E e = codec.decode(source, length);												//read the element
+		if(source.position() - start != length) {										//if the codec read a different amount
+			throw new IOException("Codec read " + (source.position() - start) + " bytes of a " + length + " byte record");	//throw exception
+		}
+		return e;																		//return the element
+	}
+
+	/**
+	 * Fills the remaining space of target with the next bytes, taking what is buffered
+	 * first and reading the rest straight from the channel.
+	 *
+	 * @param target the buffer to fill
+	 * @throws       IOException if the channel fails or ends first
+	 */
+	public void readFully(ByteBuffer target) throws IOException {
+		int buffered = Math.min(buffer.remaining(), target.remaining());
+		ByteBuffer head = buffer.duplicate();
+		head.limit(head.position() + buffered);
+		target.put(head);																//take what is already buffered
+		buffer.position(buffer.position() + buffered);
+		while(target.hasRemaining()) {													//and read the rest straight in
+			if(channel.read(target) < 0) {
+				throw new EOFException("Channel ended after " + target.position() + " of " + target.limit() + " bytes");	//throw exception
+			}
+		}
+	}
+
+	/**
+	 * Closes the channel.
+	 *
+	 * @throws IOException if the channel fails
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();																//close the channel
+	}
+
+	/**
+	 * Makes sure the given number of bytes can be taken from the buffer, reading more
+	 * from the channel if needed.
+	 *
+	 * @param bytes the number of bytes about to be taken, at most the buffer capacity
+	 * @throws      IOException if the channel fails or ends first
+	 */
+	private void require(int bytes) throws IOException {
+		if(buffer.remaining() >= bytes) {												//if they are buffered already
+			return;
+		}
+		buffer.compact();																//keep the leftover bytes, make room behind them
+		while(buffer.position() < bytes) {												//read until enough is there
+			if(channel.read(buffer) < 0) {												//if the channel ended
+				buffer.flip();
+				throw new EOFException("Channel ended after " + buffer.remaining() + " of " + bytes + " bytes");	//throw exception
+			}
+		}
+		buffer.flip();																	//ready to get again
+	}
+}
@@ -0,0 +1,156 @@
+package packag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffers ints, longs and length-prefixed element records and writes them to a
+ * channel in large sequential chunks. A record is its length as an int, -1 for a
+ * null element, followed by the bytes of the element codec. Records larger than the
+ * buffer are written through a buffer of their own.
+ */
+public class ChannelWriter implements AutoCloseable {
+
+	static final int NULL_LENGTH = -1;													//length stored for a null element
+	private static final int DEFAULT_BUFFER = 1 << 16;									//bytes buffered before a write
+
+	private final WritableByteChannel channel;											//channel the bytes go to
+	private final ByteBuffer buffer;													//bytes not written yet
+	private long written = 0;															//bytes handed to the channel so far
+
+	/**
+	 * Constructs a writer with the default buffer size.
+	 *
+	 * @param channel the channel to write to
+	 */
+	public ChannelWriter(WritableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER);													//use the default buffer size
+	}
+
+	/**
+	 * Constructs a writer with the given buffer size.
+	 *
+	 * @param channel  the channel to write to
+	 * @param capacity the number of bytes buffered before a write
+	 */
+	public ChannelWriter(WritableByteChannel channel, int capacity) {
+		this.channel = channel;															//sets channel to the value of channel
+		this.buffer = ByteBuffer.allocateDirect(Math.max(capacity, Long.BYTES));		//room for at least one long
+	}
+
+	/**
+	 * Writes an int.
+	 *
+	 * @param value the value to write
+	 * @throws      IOException if the channel fails
+	 */
+	public void writeInt(int value) throws IOException {
+		ensure(Integer.BYTES);															//make room
+		buffer.putInt(value);
+	}
+
+	/**
+	 * Writes a long.
+	 *
+	 * @param value the value to write
+	 * @throws      IOException if the channel fails
+	 */
+	public void writeLong(long value) throws IOException {
+		ensure(Long.BYTES);																//make room
+		buffer.putLong(value);
+	}
+
+	/**
+	 * Writes one element as a length-prefixed record.
+	 *
+	 * @param e     the element, may be null
+	 * @param codec the codec that encodes the element
+	 * @throws      IOException if the channel fails or the codec writes a wrong length
+	 */
+	public <E> void writeRecord(E e, ElementCodec<? super E> codec) throws IOException {
+		if(e == null) {																	//if there is no element
+			writeInt(NULL_LENGTH);														//only the marker is stored
+			return;
+		}
+		int length = codec.sizeOf(e);													//bytes the element takes
+		ensure(Integer.BYTES);
+		buffer.putInt(length);															//length prefix
+		ByteBuffer target = buffer;														//encode in place when it fits
+		if(length > buffer.capacity()) {												//if the record can never fit the buffer
+			flush();
+			target = ByteBuffer.allocate(length);										//give it a buffer of its own
+		}
+		else {
+			ensure(length);
+		}
+		int start = target.position();
+		codec.encode(e, target);														//write the element
+		if(target.position() - start != length) {										//if the codec broke its promise
+			throw new IOException("Codec wrote " + (target.position() - start) + " bytes, sizeOf said " + length);	//throw exception
+		}
+		if(target != buffer) {															//if the record went into its own buffer
+			target.flip();
+			drain(target);																//write it straight through
+		}
+	}
+
+	/**
+	 * Writes every buffered byte to the channel.
+	 *
+	 * @throws IOException if the channel fails
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		drain(buffer);																	//write what was buffered
+		buffer.clear();
+	}
+
+	/**
+	 * Returns the number of bytes written so far, buffered bytes included.
+	 *
+	 * @return the number of bytes written
+	 */
+	public long bytesWritten() {
+		return written + buffer.position();												//handed over plus still buffered
+	}
+
+	/**
+	 * Flushes the buffer and closes the channel.
+	 *
+	 * @throws IOException if the channel fails
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();																	//nothing may stay behind
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Makes sure the buffer has room for the given number of bytes.
+	 *
+	 * @param bytes the number of bytes about to be put
+	 * @throws      IOException if the channel fails
+	 */
+	private void ensure(int bytes) throws IOException {
+		if(buffer.remaining() < bytes) {												//if they do not fit
+			flush();																	//empty the buffer
+		}
+	}
+
+	/**
+	 * Writes every remaining byte of source to the channel.
+	 *
+	 * @param source the bytes to write
+	 * @throws       IOException if the channel fails
+	 */
+	private void drain(ByteBuffer source) throws IOException {
+		while(source.hasRemaining()) {													//channels may write less than asked
+			written += channel.write(source);
+		}
+	}
+}
@@ -0,0 +1,702 @@
+package packag;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A tree that keeps its links in int arrays instead of a node object plus a children
+ * list per node. Every slot stores its parent, first child, last child and both
+ * siblings, so a node costs a few ints and an element reference, and a leaf pays no
+ * more than any other node. Removed slots are chained into a free list and reused.
+ * Besides the Tree methods, the tree can be walked directly through int slot handles
+ * (rootSlot, firstChildSlot, nextSiblingSlot, parentSlot, elementAt, ...). A slot
+ * handle carries the generation of its slot next to the index, so a handle kept
+ * after its node was removed is rejected even once the slot holds another node.
+ */
+public class CompactTree<E> implements Tree<E> {
+
+	//----------------------------nested Handle class-----------------------
+
+	/** This class is the lightweight Position handed out for a slot of the tree. */
+	public class Handle implements Position<E> {
+
+		private int slot;																//slot this handle refers to, NONE once removed
+
+		/**
+		 * Constructs a handle for the given slot.
+		 *
+		 * @param slot the slot in the arrays
+		 */
+		private Handle(int slot) {
+			this.slot = slot;															//sets slot to the value of slot
+		}
+
+		/**
+		 * Returns the slot handle of this position, for use with the slot API.
+		 *
+		 * @return the slot handle of this position, or NONE if it has been removed
+		 */
+		public int slot() {
+			return slot == NONE ? NONE : slotOrNone(slot);								//returns the slot with its generation
+		}
+
+		/**
+		 * Returns the element stored at this position.
+		 *
+		 * @return the stored element
+		 * @throws IllegalArgumentException if position no longer valid
+		 */
+		@Override
+		public E getElement() throws IllegalArgumentException {
+			if(slot == NONE) {															//if the slot has been removed
+				throw new IllegalArgumentException("Position no longer valid");			//throw exception
+			}
+			return element(slot);														//return the stored element
+		}
+
+		/** Returns the tree that owns this handle. */
+		private CompactTree<E> owner() {
+			return CompactTree.this;													//returns the enclosing tree
+		}
+	}
+	//----------------------------end of nested Handle class--------------------
+
+	//-----------------------nested PreorderIterator class-----------------------
+
+	/**
+	 * This class walks the slots of a subtree in preorder. It follows the links only,
+	 * climbing through the parents to find the next sibling, so it needs no stack.
+	 */
+	private class PreorderIterator<T> implements Iterator<T> {
+
+		private final int top;															//root of the walk
+		private final boolean reportPositions;											//true to report handles, false for elements
+		private int cursor;																//slot of the next object to report
+
+		/**
+		 * Constructs an iterator over the subtree rooted at top.
+		 *
+		 * @param top             the root of the walk, or NONE for an empty walk
+		 * @param reportPositions true to report positions, false to report elements
+		 */
+		private PreorderIterator(int top, boolean reportPositions) {
+			this.top = top;																//sets top to the value of top
+			this.reportPositions = reportPositions;										//sets reportPositions to the value of reportPositions
+			this.cursor = top;															//the root comes first
+		}
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if the iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return cursor != NONE;														//true until the walk leaves the subtree
+		}
+
+		/** Returns the next object in the iterator.
+		 *
+		 * @return the next element or position in preorder
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if(cursor == NONE) {														//if there is no next object
+				throw new java.util.NoSuchElementException("No next element");			//throw exception
+			}
+			int slot = cursor;															//slot to report
+			cursor = preorderNext(slot, top);											//move to the next slot
+			return reportPositions ? (T) handle(slot) : (T) element(slot);				//report the handle or the element
+		}
+	}
+	//-----------------------end of nested PreorderIterator class--------------------
+
+	//-----------------------nested SlotIterable class-----------------------
+
+	/**
+	 * This class constructs a new iterator over a subtree or a sibling chain each time
+	 * iterator() is called.
+	 */
+	private class SlotIterable implements Iterable<Position<E>> {
+
+		private final int start;														//first slot of the walk
+		private final boolean siblingsOnly;												//true to walk the sibling chain, false for the subtree
+
+		/**
+		 * Constructs an iterable starting at the given slot.
+		 *
+		 * @param start        the first slot, or NONE
+		 * @param siblingsOnly true to walk the sibling chain, false for the subtree
+		 */
+		private SlotIterable(int start, boolean siblingsOnly) {
+			this.start = start;															//sets start to the value of start
+			this.siblingsOnly = siblingsOnly;											//sets siblingsOnly to the value of siblingsOnly
+		}
+
+		/** Returns an iterator for the positions.
+		 *
+		 * @return an iterator for the positions
+		 */
+		@Override
+		public Iterator<Position<E>> iterator() {
+			if(!siblingsOnly) {															//if the whole subtree is walked
+				return new PreorderIterator<Position<E>>(start, true);
+			}
+			return new Iterator<Position<E>>() {										//walk the sibling chain
+				private int cursor = start;
+
+				@Override
+				public boolean hasNext() {
+					return cursor != NONE;
+				}
+
+				@Override
+				public Position<E> next() {
+					if(cursor == NONE) {												//if there is no next position
+						throw new java.util.NoSuchElementException("No next position");	//throw exception
+					}
+					int slot = cursor;
+					cursor = nextSibling[slot];											//move to the next sibling
+					return handle(slot);
+				}
+			};
+		}
+
+		/** This class does not need the positions() method, therefore it returns null. */
+		@Override
+		public Iterable<Position<E>> positions() {
+			return null;																//returns null
+		}
+	}
+	//-----------------------end of nested SlotIterable class--------------------
+
+	/** Slot handle returned when there is no position (no parent, no child, empty tree). */
+	public static final int NONE = -1;
+
+	private static final int FREE = -2;													//marker stored in prevSibling[] for slots on the free list
+	private static final int DEFAULT_CAPACITY = 16;										//initial number of slots
+	private static final int INDEX_BITS = 24;											//low bits of a handle that hold the slot
+	private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+	private static final int GENERATION_MASK = 0x7F;									//generation bits above the slot, the sign bit stays clear
+	private static final int MAX_SLOTS = 1 << INDEX_BITS;								//slots a handle can name
+
+	private int[] parent;																//parent[s] is the parent of slot s
+	private int[] firstChild;															//firstChild[s] is the first child of slot s, or the next free slot
+	private int[] lastChild;															//lastChild[s] is the last child of slot s
+	private int[] nextSibling;															//nextSibling[s] is the sibling after slot s
+	private int[] prevSibling;															//prevSibling[s] is the sibling before slot s, FREE if unused
+	private byte[] generation;															//generation[s] is the generation of slot s
+	private Object[] data;																//data[s] is the element stored in slot s
+	private Handle[] handles;															//handles[s] is the cached Position of slot s
+	private int root = NONE;															//slot of the root, NONE if the tree is empty
+	private int free = NONE;															//first slot of the free list, chained through firstChild[]
+	private int used = 0;																//number of slots ever handed out
+	private int size = 0;																//number of nodes in the tree
+
+	/** Constructor that creates an empty tree with the default capacity. */
+	public CompactTree() {
+		this(DEFAULT_CAPACITY);															//use the default capacity
+	}
+
+	/**
+	 * Constructor that creates an empty tree with room for the given number of nodes.
+	 *
+	 * @param capacity the number of nodes the tree can hold before growing
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public CompactTree(int capacity) {
+		if(capacity < 0) {																//if the capacity is negative
+			throw new IllegalArgumentException("Negative capacity: " + capacity);		//throw exception
+		}
+		if(capacity > MAX_SLOTS) {														//if a handle could not name every slot
+			throw new IllegalArgumentException("Capacity too large: " + capacity);		//throw exception
+		}
+		parent = new int[capacity];
+		firstChild = new int[capacity];
+		lastChild = new int[capacity];
+		nextSibling = new int[capacity];
+		prevSibling = new int[capacity];
+		generation = new byte[capacity];
+		data = new Object[capacity];
+		handles = new CompactTree.Handle[capacity];
+	}
+
+	/**
+	 * Returns the number of positions (and hence elements) that are contained in the tree
+	 *
+	 * @return the number of positions in the tree
+	 */
+	@Override
+	public int size() {
+		return size;																	//returns the number of positions in the tree
+	}
+
+	/**
+	 * Returns true if the tree does not contain any positions (and thus no elements).
+	 *
+	 * @return true if the tree does not contain any positions
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;																//true if there are no nodes
+	}
+
+	/**
+	 * Returns the position of the root of the tree (or null if tree is empty)
+	 *
+	 * @return the position of the root of the tree or null if the tree is empty
+	 */
+	@Override
+	public Position<E> root() {
+		return position(root);															//the root, or null
+	}
+
+	/**
+	 * Returns the position of the parent of position p (or null if p is the root).
+	 *
+	 * @param p the position that is passed
+	 * @return  the position of the parent of position p
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> parent(Position<E> p) throws InvalidPositionException {
+		return position(parent[checkPosition(p)]);										//the parent, or null
+	}
+
+	/**
+	 * Returns an iterable collection containing the children of position p (if any).
+	 *
+	 * @param p the position that is passed
+	 * @return  iterable collection containing the children of position p
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Iterable<Position<E>> children(Position<E> p) throws InvalidPositionException {
+		return new SlotIterable(firstChild[checkPosition(p)], true);					//walk the sibling chain of the first child
+	}
+
+	/**
+	 * Returns the number of children of position p. Runs in time proportional to
+	 * the number of children.
+	 *
+	 * @param p the position that is passed
+	 * @return  the number of children of position p
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public int numChildren(Position<E> p) throws InvalidPositionException {
+		int count = 0;																	//variable to hold the number of children
+		for(int s = firstChild[checkPosition(p)]; s != NONE; s = nextSibling[s]) {		//for every child
+			count++;																	//increment count by 1
+		}
+		return count;																	//return the count
+	}
+
+	/**
+	 * Returns true if position p has at least one child.
+	 *
+	 * @param p the position that is passed
+	 * @return  true if position p has at least one child
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public boolean isInternal(Position<E> p) throws InvalidPositionException {
+		return firstChild[checkPosition(p)] != NONE;									//true if there is a first child
+	}
+
+	/**
+	 * Returns true if position p does not have any children.
+	 *
+	 * @param p the position that is passed
+	 * @return  true if position p does not have any children
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public boolean isExternal(Position<E> p) throws InvalidPositionException {
+		return firstChild[checkPosition(p)] == NONE;									//true if there is no first child
+	}
+
+	/**
+	 * Returns true if position p is the root of the tree.
+	 *
+	 * @param p the position that is passed
+	 * @return  true if position p is the root of the tree
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public boolean isRoot(Position<E> p) throws InvalidPositionException {
+		return checkPosition(p) == root;												//true if p is the root
+	}
+
+	/**
+	 * Returns an iterator for all elements in the tree, in preorder.
+	 *
+	 * @return an iterator for all elements in the tree
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new PreorderIterator<E>(root, false);									//returns an iterator for all elements in the tree
+	}
+
+	/** Returns an iterable representation of the tree's positions, in preorder.
+	 *
+	 * @return an iterable representation of the tree's positions
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterable<E> positions() {
+		return (Iterable<E>) new SlotIterable(root, false);								//return the positions in preorder
+	}
+
+	/** Returns a spliterator over the elements of the tree, in preorder.
+	 *
+	 * @return a sized spliterator over the elements of the tree
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED);			//the size is known
+	}
+
+	/**
+	 * Adds a root node to an empty tree
+	 *
+	 * @param e the element in the root node
+	 * @return  the newly added root node
+	 * @throws  NonEmptyTreeException if root node already exists
+	 */
+	public Position<E> addRoot(E e) throws NonEmptyTreeException {
+		if(!isEmpty()) {																//if the tree is not empty
+			throw new NonEmptyTreeException("Tree is not empty");						//throw exception
+		}
+		root = allocate(e, NONE);														//create a root for the tree
+		return handle(root);															//return the root of the tree
+	}
+
+	/**
+	 * Adds a node holding e as the last child of Position p.
+	 *
+	 * @param p the position of the parent
+	 * @param e the element in the new node
+	 * @return  the position of the new node
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public Position<E> addChild(Position<E> p, E e) throws InvalidPositionException {
+		return handle(insertChild(checkPosition(p), e));								//link a new last child
+	}
+
+	/**
+	 * Replaces the element stored at position p and returns the replaced element.
+	 *
+	 * @param p the position of the element
+	 * @param e the element that will replace the element stored at position p
+	 * @return  the replaced element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public E set(Position<E> p, E e) throws InvalidPositionException {
+		int slot = checkPosition(p);													//slot of the position
+		E replaced = element(slot);														//variable to store the replaced element
+		data[slot] = e;																	//store the new element
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Removes the subtree rooted at Position p, invalidating its positions, and returns
+	 * the number of nodes removed. Removing the root empties the tree.
+	 *
+	 * @param p the root of the subtree
+	 * @return  the number of nodes removed
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int removeSubtree(Position<E> p) throws InvalidPositionException {
+		int top = checkPosition(p);														//slot of the subtree root
+		if(top == root) {																//if the whole tree goes
+			root = NONE;
+		}
+		else {
+			unlinkSibling(top);															//cut the subtree off its parent
+		}
+		int before = size;
+		for(int s = top; s != NONE;) {													//free every slot in preorder
+			int next = preorderNext(s, top);											//find the next slot before this one is freed
+			release(s);
+			s = next;
+		}
+		return before - size;															//return the number of nodes removed
+	}
+
+	//----------------------------slot handle operations-----------------------
+
+	/**
+	 * Returns the slot of the root (or NONE, if empty).
+	 *
+	 * @return the root slot, or NONE
+	 */
+	public int rootSlot() {
+		return slotOrNone(root);														//returns the root slot
+	}
+
+	/**
+	 * Returns the slot of the parent of the given slot (or NONE, if it is the root).
+	 *
+	 * @param slot a live slot of this tree
+	 * @return     the parent slot, or NONE
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public int parentSlot(int slot) throws InvalidPositionException {
+		return slotOrNone(parent[checkSlot(slot)]);										//the parent slot
+	}
+
+	/**
+	 * Returns the slot of the first child of the given slot (or NONE, if it is a leaf).
+	 *
+	 * @param slot a live slot of this tree
+	 * @return     the first child slot, or NONE
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public int firstChildSlot(int slot) throws InvalidPositionException {
+		return slotOrNone(firstChild[checkSlot(slot)]);									//the first child slot
+	}
+
+	/**
+	 * Returns the slot of the sibling after the given slot (or NONE, if it is the last child).
+	 *
+	 * @param slot a live slot of this tree
+	 * @return     the next sibling slot, or NONE
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public int nextSiblingSlot(int slot) throws InvalidPositionException {
+		return slotOrNone(nextSibling[checkSlot(slot)]);								//the next sibling slot
+	}
+
+	/**
+	 * Returns the element stored in the given slot.
+	 *
+	 * @param slot a live slot of this tree
+	 * @return     the element in the slot
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public E elementAt(int slot) throws InvalidPositionException {
+		return element(checkSlot(slot));												//the element in the slot
+	}
+
+	/**
+	 * Links a new slot holding e as the last child of the given slot and returns it.
+	 *
+	 * @param slot a live slot of this tree
+	 * @param e    the element in the new node
+	 * @return     the slot of the new node
+	 * @throws     InvalidPositionException if slot is not a live slot
+	 */
+	public int insertChild(int slot, E e) throws InvalidPositionException {
+		return slotOrNone(linkChild(checkSlot(slot), e));								//link the child below the checked slot
+	}
+
+	/**
+	 * Links a new slot holding e as the last child of the given live slot and returns it.
+	 *
+	 * @param slot a live slot of this tree
+	 * @param e    the element in the new node
+	 * @return     the slot of the new node
+	 */
+	private int linkChild(int slot, E e) {
+		int child = allocate(e, slot);													//take a fresh slot
+		int last = lastChild[slot];
+		if(last == NONE) {																//if it is the first child
+			firstChild[slot] = child;
+		}
+		else {
+			nextSibling[last] = child;													//link it after the last child
+			prevSibling[child] = last;
+		}
+		lastChild[slot] = child;														//it is the new last child
+		return child;																	//return the new slot
+	}
+
+	/**
+	 * Returns the slot after the given one in a preorder walk of the subtree at top.
+	 *
+	 * @param slot a slot of the subtree
+	 * @param top  the root of the subtree
+	 * @return     the next slot in preorder, or NONE at the end of the subtree
+	 */
+	private int preorderNext(int slot, int top) {
+		if(firstChild[slot] != NONE) {													//if the slot has children
+			return firstChild[slot];													//the first child comes next
+		}
+		while(slot != top) {															//climb until a sibling is found
+			if(nextSibling[slot] != NONE) {
+				return nextSibling[slot];
+			}
+			slot = parent[slot];
+		}
+		return NONE;																	//the subtree is done
+	}
+
+	/**
+	 * Unlinks a slot from the sibling chain of its parent.
+	 *
+	 * @param slot a slot that is not the root
+	 */
+	private void unlinkSibling(int slot) {
+		int up = parent[slot];
+		int before = prevSibling[slot];
+		int after = nextSibling[slot];
+		if(before == NONE) {															//if it was the first child
+			firstChild[up] = after;
+		}
+		else {
+			nextSibling[before] = after;
+		}
+		if(after == NONE) {																//if it was the last child
+			lastChild[up] = before;
+		}
+		else {
+			prevSibling[after] = before;
+		}
+	}
+
+	/**
+	 * Returns an unused slot holding e below the given parent, growing the arrays if
+	 * every slot is taken. The slot has no children and no siblings yet.
+	 *
+	 * @param e  the element to be stored
+	 * @param up the parent slot, or NONE
+	 * @return   the new slot
+	 */
+	private int allocate(E e, int up) {
+		int slot;
+		if(free != NONE) {																//if a removed slot is available
+			slot = free;																//reuse it
+			free = firstChild[slot];
+		}
+		else {
+			if(used == parent.length) {													//if the arrays are full
+				if(used == MAX_SLOTS) {													//if no handle could name another slot
+					throw new IllegalStateException("The tree is full: " + MAX_SLOTS + " nodes");	//throw exception
+				}
+				grow(Math.min(Math.max(2 * parent.length, DEFAULT_CAPACITY), MAX_SLOTS));	//double their length
+			}
+			slot = used++;																//hand out the next untouched slot
+		}
+		parent[slot] = up;
+		firstChild[slot] = NONE;
+		lastChild[slot] = NONE;
+		nextSibling[slot] = NONE;
+		prevSibling[slot] = NONE;
+		data[slot] = e;																	//store the element
+		size++;																			//the size of the tree is increased by 1
+		return slot;																	//return the slot
+	}
+
+	/**
+	 * Puts a slot on the free list and invalidates its handle. Only firstChild and
+	 * prevSibling are overwritten, so a preorder walk that climbs through the parent
+	 * and sibling links of freed slots still works.
+	 *
+	 * @param slot the slot to free
+	 */
+	private void release(int slot) {
+		Handle handle = handles[slot];
+		if(handle != null) {															//if a handle was handed out for the slot
+			handle.slot = NONE;															//invalidate it
+			handles[slot] = null;
+		}
+		data[slot] = null;																//let go of the element
+		prevSibling[slot] = FREE;														//mark the slot as free
+		generation[slot] = (byte) ((generation[slot] + 1) & GENERATION_MASK);			//slot handles of the removed node go stale
+		firstChild[slot] = free;														//push the slot on the free list
+		free = slot;
+		size--;																			//decrease the size of the tree by 1
+	}
+
+	/**
+	 * Grows every array to the given number of slots.
+	 *
+	 * @param capacity the new number of slots
+	 */
+	private void grow(int capacity) {
+		parent = Arrays.copyOf(parent, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		lastChild = Arrays.copyOf(lastChild, capacity);
+		nextSibling = Arrays.copyOf(nextSibling, capacity);
+		prevSibling = Arrays.copyOf(prevSibling, capacity);
+		generation = Arrays.copyOf(generation, capacity);
+		data = Arrays.copyOf(data, capacity);											//grow the elements
+		handles = Arrays.copyOf(handles, capacity);										//grow the cached handles
+	}
+
+	/**
+	 * Checks whether the passed handle names a live slot of this tree in its current
+	 * generation.
+	 *
+	 * @param handle the handle that is checked
+	 * @return       the slot it names
+	 * @throws       InvalidPositionException if the slot is out of range or free, or was reused since
+	 */
+	private int checkSlot(int handle) throws InvalidPositionException {
+		int slot = handle & INDEX_MASK;
+		if(handle < 0 || slot >= used || prevSibling[slot] == FREE) {					//if the slot is not in use
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		if(handle >>> INDEX_BITS != generation[slot]) {									//if the node of the handle was removed
+			throw new InvalidPositionException("The position is no longer valid");		//throw exception
+		}
+		return slot;																	//return the slot
+	}
+
+	/** Returns the handle of a slot for the slot API, keeping NONE as NONE. */
+	private int slotOrNone(int slot) {
+		return slot == NONE ? NONE : generation[slot] << INDEX_BITS | slot;				//the slot with its generation
+	}
+
+	/**
+	 * Checks whether the passed position is a live handle of this tree.
+	 *
+	 * @param v the position that is checked
+	 * @return  the slot of the passed position
+	 * @throws  InvalidPositionException if v is null, not a handle of this tree or removed
+	 */
+	protected int checkPosition(Position<E> v) throws InvalidPositionException {
+		if(!(v instanceof CompactTree.Handle)) {										//if v does not exist or v is not a handle
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		Handle handle = (Handle) v;
+		if(handle.owner() != this || handle.slot == NONE) {								//if v belongs to another tree or was removed
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		return handle.slot;																//return the slot of the handle
+	}
+
+	/**
+	 * Returns the handle of a slot, or null if the slot is NONE.
+	 *
+	 * @param slot the slot
+	 * @return     the handle of the slot, or null
+	 */
+	private Position<E> position(int slot) {
+		return slot == NONE ? null : handle(slot);										//NONE has no position
+	}
+
+	/**
+	 * Returns the cached handle of a live slot, creating it the first time it is asked for.
+	 *
+	 * @param slot a live slot
+	 * @return     the handle of the slot
+	 */
+	private Handle handle(int slot) {
+		Handle handle = handles[slot];													//the cached handle
+		if(handle == null) {															//if none has been handed out yet
+			handle = new Handle(slot);													//create it once
+			handles[slot] = handle;
+		}
+		return handle;																	//return the handle
+	}
+
+	/** Returns the element in a slot with the unchecked cast in one place. */
+	@SuppressWarnings("unchecked")
+	private E element(int slot) {
+		return (E) data[slot];															//return the element in the slot
+	}
+}
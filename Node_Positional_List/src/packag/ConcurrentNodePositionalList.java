@@ -0,0 +1,538 @@
+package packag;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe positional list that never takes a lock. Nodes are linked forward
+ * through markable references: removing a node first marks its next link (logical
+ * deletion) and then swings its predecessor past it with a compare-and-set, and
+ * every traversal helps unlink marked nodes it walks over. The prev links are only
+ * hints that are repaired as they are used. The size is a striped counter and the
+ * iterators are weakly consistent: they never fail and see every element that stays
+ * in the list for the whole walk. Once a node is marked, its remover takes the
+ * element with an atomic swap, and set replaces it with a compare-and-set, so a set
+ * either lands before the removal and is what remove returns, or fails.
+ */
+public class ConcurrentNodePositionalList<E> implements PositionalList<E>, Iterable<E> {
+
+	//----------------------------nested CNode class-----------------------
+
+	/** This class is a list node whose next link carries the node's deletion mark. */
+	public class CNode implements Position<E> {
+
+		private final AtomicMarkableReference<CNode> next;								//next node, marked once this node is removed
+		private volatile CNode prev;													//hint to a node before this one
+		private volatile E data;														//element stored in the node
+
+		/**
+		 * Constructs a node with a hint to its previous node, its element and its next node.
+		 *
+		 * @param p the previous node hint
+		 * @param d element in the node
+		 * @param n the next node
+		 */
+		private CNode(CNode p, E d, CNode n) {
+			this.prev = p;																//sets prev to the value of p
+			this.data = d;																//sets data to the value of d
+			this.next = new AtomicMarkableReference<>(n, false);						//sets next to the value of n, unmarked
+		}
+
+		/**
+		 * Returns the element stored at this position.
+		 *
+		 * @return the stored element
+		 * @throws IllegalArgumentException if position no longer valid
+		 */
+		@Override
+		public E getElement() throws IllegalArgumentException {
+			E element = data;															//read the element before the mark
+			if(element == REMOVED || isDeleted()) {										//if the node has been removed
+				throw new IllegalArgumentException("Position no longer valid");			//throw exception
+			}
+			return element;																//return the stored element
+		}
+
+		/** Returns true once the node has been logically removed. */
+		private boolean isDeleted() {
+			return next.isMarked();														//the mark on next is the deletion flag
+		}
+
+		/** Returns the list that owns this node. */
+		private ConcurrentNodePositionalList<E> owner() {
+			return ConcurrentNodePositionalList.this;									//returns the enclosing list
+		}
+	}
+	//----------------------------end of nested CNode class--------------------
+
+	//-----------------------nested PositionIterator class-----------------------
+
+	/** This class walks the live nodes and reports each position, weakly consistently. */
+	private class PositionIterator implements Iterator<Position<E>> {
+
+		private CNode pointer = successor(header);										//node of the next position to report
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if the iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return pointer != trailer;													//true until the walk reaches the trailer
+		}
+
+		/** Returns the next position in the iterator.
+		 *
+		 * @return the next position in the iterator
+		 */
+		@Override
+		public Position<E> next() {
+			if(pointer == trailer) {													//if there is no next position
+				throw new java.util.NoSuchElementException("No next position");			//throw exception
+			}
+			CNode last = pointer;														//position to report
+			pointer = successor(pointer);												//move to the next live node
+			return last;																//return the position
+		}
+	}
+	//-----------------------end of nested PositionIterator class--------------------
+
+	//-----------------------nested PositionIterable class-----------------------
+
+	/** This class constructs and returns a new PositionIterator each time iterator() is called. */
+	private class PositionIterable implements Iterable<Position<E>> {
+
+		/** Returns an iterator for the positions in the list.
+		 *
+		 * @return an iterator for the positions in the list
+		 */
+		@Override
+		public Iterator<Position<E>> iterator() {
+			return new PositionIterator();												//return a new PositionIterator object
+		}
+
+		/** This class does not need the positions() method, therefore it returns null. */
+		@Override
+		public Iterable<Position<E>> positions() {
+			return null;																//returns null
+		}
+	}
+	//-----------------------end of nested PositionIterable class--------------------
+
+	//----------------------------nested ElementIterator class-----------------------
+
+	/** This class walks the live nodes and reports their elements, weakly consistently. */
+	private class ElementIterator implements Iterator<E> {
+
+		private CNode pointer = header;													//node last reported
+		private E nextElement;															//element of the next node, read when it was found
+		private boolean ready = false;													//true when nextElement holds the next element
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			while(!ready) {																//until a live element is found or the end is reached
+				CNode node = successor(pointer);										//next live node
+				if(node == trailer) {													//if the end was reached
+					return false;														//there is no next element
+				}
+				pointer = node;
+				E element = node.data;													//read the element
+				if(!node.isDeleted()) {													//if the node was still live when read
+					nextElement = element;												//report it
+					ready = true;
+				}
+			}
+			return true;																//an element is ready
+		}
+
+		/** Returns the next element in the iterator.
+		 *
+		 * @return the element in the next position in the iterator
+		 */
+		@Override
+		public E next() {
+			if(!hasNext()) {															//if there is no next element
+				throw new java.util.NoSuchElementException("No next element");			//throw exception
+			}
+			ready = false;																//the element is consumed
+			return nextElement;															//return element
+		}
+	}
+	//----------------------------end of nested ElementIterator class--------------------
+
+	private final CNode header;															//variable for the head node
+	private final CNode trailer;														//variable for the tail node
+	private final LongAdder size = new LongAdder();										//striped count of the elements
+
+	private static final Object REMOVED = new Object();									//element of a node once remove has taken it
+	private static final VarHandle DATA;												//atomic access to the element of a node
+
+	static {
+		try {
+			DATA = MethodHandles.lookup().findVarHandle(ConcurrentNodePositionalList.CNode.class, "data", Object.class);
+		}
+		catch(ReflectiveOperationException e) {											//the field is declared above
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** Constructor that initializes the header and trailer */
+	public ConcurrentNodePositionalList() {
+		trailer = new CNode(null, null, null);											//trailer has no next node
+		header = new CNode(null, null, trailer);										//header links to the trailer
+		trailer.prev = header;															//the node before the trailer is the header
+	}
+
+	/** Returns an iterator for the elements in the collection.
+	 *
+	 * @return a weakly consistent iterator of the elements in the list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new ElementIterator();													//returns an iterator of the elements in the list
+	}
+
+	/** Returns an iterable representation of the list's positions.
+	 *
+	 * @return an iterable representation of the list's positions
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterable<E> positions() {
+		return (Iterable<E>) new PositionIterable();									//returns an iterable of the list's positions
+	}
+
+	/** Returns the number of elements in the list. Under concurrent updates the
+	 * result is an estimate that is exact once the updates have finished.
+	 *
+	 * @return the number of elements in the list
+	 */
+	@Override
+	public int size() {
+		return (int) Math.max(0, size.sum());											//sum the striped counter
+	}
+
+	/** Tests whether the list is empty.
+	 *
+	 * @return true if the list has no live element, false otherwise
+	 */
+	@Override
+	public boolean isEmpty() {
+		return successor(header) == trailer;											//empty if the header is followed by the trailer
+	}
+
+	/** Returns the first Position in the list (or null, if empty).
+	 *
+	 * @return the first position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> first() {
+		return position(successor(header));												//return the first live position
+	}
+
+	/** Returns the last Position in the list (or null, if empty).
+	 *
+	 * @return the last position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> last() {
+		return position(predecessor(trailer));											//return the last live position
+	}
+
+	/**
+	 * Returns the Position immediately before Position p (or null, if p is first).
+	 *
+	 * @param p the position of the node
+	 * @return  the position immediately before position p, or null if p is first
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> before(Position<E> p) throws InvalidPositionException {
+		CNode node = checkPosition(p);													//cast p as a node
+		CNode pred = predecessor(node);													//live node linked right before p
+		if(pred == null) {																//if p was removed meanwhile
+			throw new InvalidPositionException("The position is no longer valid");		//throw exception
+		}
+		return position(pred);															//return the previous position
+	}
+
+	/**
+	 * Returns the Position immediately after Position p (or null, if p is last).
+	 *
+	 * @param p the position of the node
+	 * @return  the position immediately after position p, or null if p is last
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> after(Position<E> p) throws InvalidPositionException {
+		return position(successor(checkPosition(p)));									//return the next live position
+	}
+
+	/**
+	 * Inserts element e at the front of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addFirst(E e) {
+		return insertAfter(header, e);													//the header is never removed
+	}
+
+	/**
+	 * Inserts element e at the back of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addLast(E e) {
+		return insertBefore(trailer, e);												//the trailer is never removed
+	}
+
+	/**
+	 * Inserts element e immediately before Position p and returns its new Position.
+	 *
+	 * @param p the position of the node
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid or removed concurrently
+	 */
+	@Override
+	public Position<E> addBefore(Position<E> p, E e) throws InvalidPositionException {
+		Position<E> added = insertBefore(checkPosition(p), e);							//link before p
+		if(added == null) {																//if p was removed meanwhile
+			throw new InvalidPositionException("The position is no longer valid");		//throw exception
+		}
+		return added;																	//return the new position
+	}
+
+	/**
+	 * Inserts element e immediately after Position p and returns its new Position.
+	 *
+	 * @param p the position of the node
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid or removed concurrently
+	 */
+	@Override
+	public Position<E> addAfter(Position<E> p, E e) throws InvalidPositionException {
+		Position<E> added = insertAfter(checkPosition(p), e);							//link after p
+		if(added == null) {																//if p was removed meanwhile
+			throw new InvalidPositionException("The position is no longer valid");		//throw exception
+		}
+		return added;																	//return the new position
+	}
+
+	/**
+	 * Replaces the element stored at Position p and returns the replaced element.
+	 *
+	 * @param p the position of the node
+	 * @param e the element that will replace the element stored at position p
+	 * @return  the replaced element
+	 * @throws  InvalidPositionException if position is invalid or removed concurrently
+	 */
+	@Override
+	public E set(Position<E> p, E e) throws InvalidPositionException {
+		CNode node = checkPosition(p);													//cast p as a node
+		E replaced;																		//variable to store the replaced element
+		do {
+			replaced = node.data;
+			if(replaced == REMOVED) {													//if a remove has taken the element
+				throw new InvalidPositionException("The position is no longer valid");	//throw exception
+			}
+		} while(!DATA.compareAndSet(node, replaced, e));								//replace it unless it changed meanwhile
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Removes the element stored at Position p and returns it (invalidating p). The
+	 * node is marked first, which is the point where the removal takes effect, and
+	 * then unlinked; if another thread gets in the way, later traversals finish the unlink.
+	 *
+	 * @param p the position of the node
+	 * @return  the removed element
+	 * @throws  InvalidPositionException if position is invalid or already removed
+	 */
+	@Override
+	public E remove(Position<E> p) throws InvalidPositionException {
+		CNode node = checkPosition(p);													//cast p as a node
+		CNode succ;
+		do {
+			succ = node.next.getReference();											//current successor
+			if(node.next.isMarked()) {													//if another thread removed it first
+				throw new InvalidPositionException("The position is no longer valid");	//throw exception
+			}
+		} while(!node.next.compareAndSet(succ, succ, false, true));						//mark the node as removed
+		@SuppressWarnings("unchecked")
+		E removed = (E) DATA.getAndSet(node, REMOVED);									//take the element, later sets fail
+		size.decrement();																//one element less
+		unlink(node, succ);																//try to unlink it right away
+		return removed;																	//return the removed element
+	}
+
+	/**
+	 * Returns a string representation of the list, from a weakly consistent walk.
+	 *
+	 * @return a string representation of the list
+	 */
+	public String toString() {
+		StringBuilder list = new StringBuilder();										//builder for the string
+		for(Iterator<E> it = iterator(); it.hasNext();) {								//for every live element
+			list.append(it.next()).append(' ');											//add the element with a space right after
+		}
+		return list.toString();															//return the string
+	}
+
+	//----------------------------internal helpers-----------------------
+
+	/**
+	 * Links a new node holding e right after pred.
+	 *
+	 * @param pred the node to insert after
+	 * @param e    the element to be inserted
+	 * @return     the new node, or null if pred has been removed
+	 */
+	private CNode insertAfter(CNode pred, E e) {
+		CNode node = new CNode(pred, e, null);											//the new node
+		while(true) {
+			CNode succ = pred.next.getReference();										//current successor of pred
+			if(pred.next.isMarked()) {													//if pred has been removed
+				return null;															//there is nothing to insert after
+			}
+			node.next.set(succ, false);													//point the new node at the successor
+			if(pred.next.compareAndSet(succ, node, false, false)) {						//swing pred to the new node
+				succ.prev = node;														//update the hint of the successor
+				size.increment();														//one element more
+				return node;															//return the new node
+			}
+		}
+	}
+
+	/**
+	 * Links a new node holding e right before succ.
+	 *
+	 * @param succ the node to insert before
+	 * @param e    the element to be inserted
+	 * @return     the new node, or null if succ has been removed
+	 */
+	private CNode insertBefore(CNode succ, E e) {
+		CNode node = new CNode(null, e, succ);											//the new node
+		while(true) {
+			CNode pred = predecessor(succ);												//live node linked right before succ
+			if(pred == null || succ.isDeleted()) {										//if succ has been removed
+				return null;															//there is nothing to insert before
+			}
+			node.prev = pred;															//hint to the predecessor
+			if(pred.next.compareAndSet(succ, node, false, false)) {						//swing pred to the new node
+				succ.prev = node;														//update the hint of the successor
+				size.increment();														//one element more
+				return node;															//return the new node
+			}
+		}
+	}
+
+	/**
+	 * Swings the predecessor of a marked node past it. The walk starts from the prev
+	 * hint and stops at the node's successor, so it stays short; if the predecessor is
+	 * itself being removed the compare-and-set fails and a later traversal finishes the job.
+	 *
+	 * @param node a node whose next link has been marked
+	 * @param succ the successor the node was marked with
+	 */
+	private void unlink(CNode node, CNode succ) {
+		CNode pred = node.prev;															//start from the hint
+		while(pred != header && pred.isDeleted()) {										//back off over removed nodes
+			pred = pred.prev;
+		}
+		while(pred != succ && pred != trailer) {										//walk forward up to the successor
+			CNode next = pred.next.getReference();
+			if(next == node) {															//if pred links straight to node
+				pred.next.compareAndSet(node, succ, false, false);						//swing it past the node
+				succ.prev = pred;														//update the hint of the successor
+				return;
+			}
+			pred = next;
+		}
+	}
+
+	/**
+	 * Returns the first live node after node, unlinking removed nodes on the way when
+	 * node itself is live.
+	 *
+	 * @param node a node of the list
+	 * @return     the next live node, or the trailer
+	 */
+	private CNode successor(CNode node) {
+		CNode succ = node.next.getReference();											//first candidate
+		while(succ != trailer && succ.isDeleted()) {									//while the candidate has been removed
+			CNode after = succ.next.getReference();										//node after the removed one
+			node.next.compareAndSet(succ, after, false, false);							//help unlink it, if node is live
+			succ = after;																//try the next candidate
+		}
+		return succ;																	//return the live successor
+	}
+
+	/**
+	 * Returns the live node whose next link points at node, repairing the prev hint.
+	 *
+	 * @param node a node of the list
+	 * @return     the live predecessor, or null if node is no longer linked
+	 */
+	private CNode predecessor(CNode node) {
+		CNode pred = node.prev;															//start from the hint
+		while(pred != header && pred.isDeleted()) {										//back off over removed nodes
+			pred = pred.prev;
+		}
+		while(!node.isDeleted()) {														//give up as soon as node is removed
+			CNode succ = successor(pred);												//live node after pred
+			if(succ == node) {															//if pred links straight to node
+				node.prev = pred;														//repair the hint
+				return pred;															//return the predecessor
+			}
+			if(succ == trailer) {														//if the end was reached
+				return node == trailer ? pred : null;									//node is not linked any more
+			}
+			pred = succ;																//walk forward
+		}
+		return null;																	//node has been removed
+	}
+
+	/**
+	 * Checks whether the passed position is a live node of this list.
+	 *
+	 * @param v the position that is checked
+	 * @return  the node of the passed position
+	 * @throws  InvalidPositionException if v is null, not a node of this list or removed
+	 */
+	protected CNode checkPosition(Position<E> v) throws InvalidPositionException {
+		if(!(v instanceof ConcurrentNodePositionalList.CNode)) {						//if v does not exist or v is not a node
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		CNode node = (CNode) v;
+		if(node.owner() != this || node == header || node == trailer || node.isDeleted()) {	//if v belongs to another list, is a sentinel or was removed
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		return node;																	//return the node
+	}
+
+	/**
+	 * Returns the given node as a Position (or null, if it is a sentinel).
+	 *
+	 * @param node the node in the list
+	 * @return     the node, or null
+	 */
+	private Position<E> position(CNode node) {
+		if(node == header || node == trailer) {											//if node is the header or trailer
+			return null;																//return null
+		}
+		return node;																	//return node
+	}
+}
@@ -0,0 +1,244 @@
+package packag;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * A positional list of unboxed double values. It follows the PositionalList contract, but
+ * positions are int slot handles (NONE where PositionalList would return null) and the
+ * values live in a double array, so storing and reading them never boxes.
+ *
+ * A position is only good while its value is in the list. It carries the generation
+ * of its slot, so after remove(p) the position p is rejected, also once addLast or
+ * addAfter has put another value into the same slot; it does not silently read or
+ * change that value. AbstractSlotList describes the handle layout and its limits.
+ */
+public class DoublePositionalList extends AbstractSlotList {
+
+	//----------------------------nested ValueIterator class-----------------------
+
+	/** This class walks the slots and reports their values without boxing. */
+	private class ValueIterator implements PrimitiveIterator.OfDouble {
+
+		private int cursor = next[SENTINEL];											//slot of the next value to report
+
+		/** Tests whether the iterator has a next value.
+		 *
+		 * @return true if iterator has a next value, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return cursor != SENTINEL;													//true until the walk returns to the sentinel
+		}
+
+		/** Returns the next value in the iterator.
+		 *
+		 * @return the next value in the iterator
+		 */
+		@Override
+		public double nextDouble() {
+			if(cursor == SENTINEL) {													//if there is no next value
+				throw new java.util.NoSuchElementException("No next element");			//throw exception
+			}
+			double value = values[cursor];												//value of the current slot
+			cursor = next[cursor];														//move to the next slot
+			return value;																//return the value
+		}
+	}
+	//----------------------------end of nested ValueIterator class--------------------
+
+	private double[] values;															//values[s] is the value stored in slot s
+
+	/** Constructor that creates an empty list with the default capacity. */
+	public DoublePositionalList() {
+		this(DEFAULT_CAPACITY);															//use the default capacity
+	}
+
+	/**
+	 * Constructor that creates an empty list with room for the given number of values.
+	 *
+	 * @param capacity the number of values the list can hold before growing
+	 */
+	public DoublePositionalList(int capacity) {
+		super(capacity);																//create the link arrays
+		values = new double[capacity + 1];												//one extra slot for the sentinel
+	}
+
+	/**
+	 * Returns an iterator over the values of the list, in order.
+	 *
+	 * @return a primitive iterator over the values
+	 */
+	public PrimitiveIterator.OfDouble iterator() {
+		return new ValueIterator();														//returns an iterator of the values in the list
+	}
+
+	/** Returns the first position in the list (or NONE, if empty). */
+	public int first() {
+		return firstSlot();																//return the first slot
+	}
+
+	/** Returns the last position in the list (or NONE, if empty). */
+	public int last() {
+		return lastSlot();																//return the last slot
+	}
+
+	/**
+	 * Returns the position immediately before position p (or NONE, if p is first).
+	 *
+	 * @param p the position of the value
+	 * @return  the position immediately before p, or NONE
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int before(int p) throws InvalidPositionException {
+		return prevSlot(p);																//return the previous slot
+	}
+
+	/**
+	 * Returns the position immediately after position p (or NONE, if p is last).
+	 *
+	 * @param p the position of the value
+	 * @return  the position immediately after p, or NONE
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int after(int p) throws InvalidPositionException {
+		return nextSlot(p);																//return the next slot
+	}
+
+	/**
+	 * Returns the value stored at position p.
+	 *
+	 * @param p the position of the value
+	 * @return  the stored value
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public double get(int p) throws InvalidPositionException {
+		return values[checkSlot(p)];													//return the stored value
+	}
+
+	/**
+	 * Inserts value v at the front of the list and returns its new position.
+	 *
+	 * @param v the value to be inserted
+	 * @return  the new position of the inserted value
+	 */
+	public int addFirst(double v) {
+		return slotOrNone(insert(v, SENTINEL, next[SENTINEL]));							//link right after the sentinel
+	}
+
+	/**
+	 * Inserts value v at the back of the list and returns its new position.
+	 *
+	 * @param v the value to be inserted
+	 * @return  the new position of the inserted value
+	 */
+	public int addLast(double v) {
+		return slotOrNone(insert(v, prev[SENTINEL], SENTINEL));							//link right before the sentinel
+	}
+
+	/**
+	 * Inserts value v immediately before position p and returns its new position.
+	 *
+	 * @param p the position of the value
+	 * @param v the value to be inserted
+	 * @return  the new position of the inserted value
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int addBefore(int p, double v) throws InvalidPositionException {
+		int s = checkSlot(p);															//make sure the position is live
+		return slotOrNone(insert(v, prev[s], s));										//link between the previous slot and p
+	}
+
+	/**
+	 * Inserts value v immediately after position p and returns its new position.
+	 *
+	 * @param p the position of the value
+	 * @param v the value to be inserted
+	 * @return  the new position of the inserted value
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int addAfter(int p, double v) throws InvalidPositionException {
+		int s = checkSlot(p);															//make sure the position is live
+		return slotOrNone(insert(v, s, next[s]));										//link between p and the next slot
+	}
+
+	/**
+	 * Replaces the value stored at position p and returns the replaced value.
+	 *
+	 * @param p the position of the value
+	 * @param v the value that will replace the value stored at position p
+	 * @return  the replaced value
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public double set(int p, double v) throws InvalidPositionException {
+		int s = checkSlot(p);															//the slot p names
+		double replaced = values[s];													//variable to store the replaced value
+		values[s] = v;																	//store the new value
+		return replaced;																//return the replaced value
+	}
+
+	/**
+	 * Removes the value stored at position p and returns it (invalidating p).
+	 *
+	 * @param p the position of the value
+	 * @return  the removed value
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public double remove(int p) throws InvalidPositionException {
+		int s = checkSlot(p);															//the slot p names
+		double removed = values[s];														//variable that holds the value to be removed
+		unlink(s);																		//put the slot on the free list
+		return removed;																	//return the removed value
+	}
+
+	/**
+	 * Returns the values of the list, in order, in a new array.
+	 *
+	 * @return an array holding the values of the list
+	 */
+	public double[] toArray() {
+		double[] array = new double[size()];											//array with one entry per value
+		int i = 0;
+		for(int s = next[SENTINEL]; s != SENTINEL; s = next[s]) {						//for every slot in order
+			array[i++] = values[s];														//copy its value
+		}
+		return array;																	//return the array
+	}
+
+	/**
+	 * Returns a string representation of the list
+	 *
+	 * @return a string representation of the list
+	 */
+	public String toString() {
+		StringBuilder list = new StringBuilder();										//builder for the string
+		for(int s = next[SENTINEL]; s != SENTINEL; s = next[s]) {						//for every slot in order
+			list.append(values[s]).append(' ');											//add the value with a space right after
+		}
+		return list.toString();															//return the string
+	}
+
+	/**
+	 * Links value v into a fresh slot between pred and succ.
+	 *
+	 * @param v    value to be added
+	 * @param pred the previous slot
+	 * @param succ the next slot
+	 * @return     the slot that has been linked between pred and succ
+	 */
+	private int insert(double v, int pred, int succ) {
+		int slot = link(pred, succ);													//link a fresh slot
+		values[slot] = v;																//store the value
+		return slot;																	//return the new slot
+	}
+
+	/**
+	 * Grows the value array to the given number of slots.
+	 *
+	 * @param capacity the new number of slots
+	 */
+	@Override
+	void grow(int capacity) {
+		values = Arrays.copyOf(values, capacity);										//grow the values
+	}
+}
@@ -0,0 +1,132 @@
+package packag;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts elements to and from bytes for the binary list and tree formats. The
+ * format stores the length of every record in front of it, so a codec only has to
+ * say how many bytes an element takes, write exactly that many, and read an element
+ * back from that many bytes. Null elements never reach a codec.
+ */
+public interface ElementCodec<E> {
+
+	/** Returns the number of bytes encode writes for element e. */
+	int sizeOf(E e);
+
+	/** Writes element e into out, advancing its position by sizeOf(e) bytes. */
+	void encode(E e, ByteBuffer out);
+
+	/** Reads an element from the next length bytes of in, advancing its position past them. */
+	E decode(ByteBuffer in, int length);
+
+	/**
+	 * Returns a codec for strings, stored as UTF-8. sizeOf and encode walk the chars
+	 * directly, so neither builds the byte array of the string. Like String.getBytes,
+	 * an unpaired surrogate is written as '?'.
+	 */
+	public static ElementCodec<String> utf8() {
+		return new ElementCodec<String>() {
+			@Override
+			public int sizeOf(String e) {
+				int bytes = 0;															//variable to hold the length of the UTF-8 form
+				for(int i = 0; i < e.length(); i++) {									//for every char
+					char c = e.charAt(i);
+					if(c < 0x80) {														//if it is ASCII
+						bytes += 1;
+					}
+					else if(c < 0x800) {												//if it takes two bytes
+						bytes += 2;
+					}
+					else if(Character.isHighSurrogate(c) && i + 1 < e.length() && Character.isLowSurrogate(e.charAt(i + 1))) {	//if a pair starts here
+						bytes += 4;
+						i++;															//the pair is one code point
+					}
+					else if(Character.isSurrogate(c)) {									//if it is an unpaired surrogate
+						bytes += 1;														//it becomes '?'
+					}
+					else {
+						bytes += 3;
+					}
+				}
+				return bytes;															//return the length of the UTF-8 form
+			}
+
+			@Override
+			public void encode(String e, ByteBuffer out) {
+				for(int i = 0; i < e.length(); i++) {									//for every char
+					char c = e.charAt(i);
+					if(c < 0x80) {														//if it is ASCII
+						out.put((byte) c);
+					}
+					else if(c < 0x800) {												//if it takes two bytes
+						out.put((byte) (0xC0 | c >> 6));
+						out.put((byte) (0x80 | c & 0x3F));
+					}
+					else if(Character.isHighSurrogate(c) && i + 1 < e.length() && Character.isLowSurrogate(e.charAt(i + 1))) {	//if a pair starts here
+						int cp = Character.toCodePoint(c, e.charAt(++i));				//the pair is one code point
+						out.put((byte) (0xF0 | cp >> 18));
+						out.put((byte) (0x80 | cp >> 12 & 0x3F));
+						out.put((byte) (0x80 | cp >> 6 & 0x3F));
+						out.put((byte) (0x80 | cp & 0x3F));
+					}
+					else if(Character.isSurrogate(c)) {									//if it is an unpaired surrogate
+						out.put((byte) '?');											//write the replacement
+					}
+					else {
+						out.put((byte) (0xE0 | c >> 12));
+						out.put((byte) (0x80 | c >> 6 & 0x3F));
+						out.put((byte) (0x80 | c & 0x3F));
+					}
+				}
+			}
+
+			@Override
+			public String decode(ByteBuffer in, int length) {
+				byte[] bytes = new byte[length];
+				in.get(bytes);
+				return new String(bytes, StandardCharsets.UTF_8);						//read the UTF-8 form
+			}
+		};
+	}
+
+	/** Returns a codec for integers, stored as four big-endian bytes. */
+	public static ElementCodec<Integer> int32() {
+		return new ElementCodec<Integer>() {
+			@Override
+			public int sizeOf(Integer e) {
+				return Integer.BYTES;													//always four bytes
+			}
+
+			@Override
+			public void encode(Integer e, ByteBuffer out) {
+				out.putInt(e);															//write the value
+			}
+
+			@Override
+			public Integer decode(ByteBuffer in, int length) {
+				return in.getInt();														//read the value
+			}
+		};
+	}
+
+	/** Returns a codec for longs, stored as eight big-endian bytes. */
+	public static ElementCodec<Long> int64() {
+		return new ElementCodec<Long>() {
+			@Override
+			public int sizeOf(Long e) {
+				return Long.BYTES;														//always eight bytes
+			}
+
+			@Override
+			public void encode(Long e, ByteBuffer out) {
+				out.putLong(e);															//write the value
+			}
+
+			@Override
+			public Long decode(ByteBuffer in, int length) {
+				return in.getLong();													//read the value
+			}
+		};
+	}
+}
@@ -0,0 +1,709 @@
+package packag;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * A positional list that also answers rank and select queries. Every node sits both
+ * in a doubly linked list, which keeps before/after at O(1), and in a treap ordered by
+ * list position whose nodes know the size of their subtree, which gives atIndex,
+ * indexOf and addAtIndex in expected O(log n). Positions are the nodes themselves and
+ * stay valid until they are removed.
+ */
+public class IndexedPositionalList<E> implements PositionalList<E>, Iterable<E> {
+
+	//----------------------------nested RankedNode class-----------------------
+
+	/** This class is a list node that is also a node of the order-statistic treap. */
+	public class RankedNode implements Position<E> {
+
+		private RankedNode next;														//variable that points to the next node in the list
+		private RankedNode prev;														//variable that points to the previous node in the list
+		private RankedNode left;														//left child in the treap
+		private RankedNode right;														//right child in the treap
+		private RankedNode parent;														//parent in the treap
+		private int weight = 1;															//number of nodes in the treap subtree rooted here
+		private final int priority;														//random heap priority of the node
+		private E data;																	//element stored in the node
+
+		/**
+		 * Constructs a node holding element d with a random treap priority.
+		 *
+		 * @param d element in the node
+		 */
+		private RankedNode(E d) {
+			this.data = d;																//sets data to the value of d
+			this.priority = random.nextInt();											//draw the heap priority
+		}
+
+		/**
+		 * Returns the element stored at this position.
+		 *
+		 * @return the stored element
+		 * @throws IllegalArgumentException if position no longer valid
+		 */
+		@Override
+		public E getElement() throws IllegalArgumentException {
+			if(next == null) {															//if no next node
+				throw new IllegalArgumentException("Position no longer valid");			//throw exception
+			}
+			return data;																//return the stored element
+		}
+
+		/** Returns the list that owns this node. */
+		private IndexedPositionalList<E> owner() {
+			return IndexedPositionalList.this;											//returns the enclosing list
+		}
+	}
+	//----------------------------end of nested RankedNode class--------------------
+
+	//-----------------------nested PositionIterator class-----------------------
+
+	/** This class walks the list links and reports each position. */
+	private class PositionIterator implements Iterator<Position<E>> {
+
+		private RankedNode pointer = header.next;										//node of the next position to report
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if the iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return pointer != trailer;													//true until the walk reaches the trailer
+		}
+
+		/** Returns the next position in the iterator.
+		 *
+		 * @return the next position in the iterator
+		 */
+		@Override
+		public Position<E> next() {
+			if(pointer == trailer) {													//if there is no next position
+				throw new java.util.NoSuchElementException("No next position");			//throw exception
+			}
+			RankedNode last = pointer;													//position to report
+			pointer = pointer.next;														//move to the next node
+			return last;																//return the position
+		}
+	}
+	//-----------------------end of nested PositionIterator class--------------------
+
+	//-----------------------nested PositionIterable class-----------------------
+
+	/** This class constructs and returns a new PositionIterator each time iterator() is called. */
+	private class PositionIterable implements Iterable<Position<E>> {
+
+		/** Returns an iterator for the positions in the list.
+		 *
+		 * @return an iterator for the positions in the list
+		 */
+		@Override
+		public Iterator<Position<E>> iterator() {
+			return new PositionIterator();												//return a new PositionIterator object
+		}
+
+		/** This class does not need the positions() method, therefore it returns null. */
+		@Override
+		public Iterable<Position<E>> positions() {
+			return null;																//returns null
+		}
+	}
+	//-----------------------end of nested PositionIterable class--------------------
+
+	//----------------------------nested ElementIterator class-----------------------
+
+	/** This class adapts the iteration produced by positions() to return elements. */
+	private class ElementIterator implements Iterator<E> {
+
+		private Iterator<Position<E>> posIterator = new PositionIterator();				//creates an iterator
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return posIterator.hasNext();												//returns true if there is a next object, false otherwise
+		}
+
+		/** Returns the next element in the iterator.
+		 *
+		 * @return the element in the next position in the iterator
+		 */
+		@Override
+		public E next() {
+			return posIterator.next().getElement();										//return element
+		}
+	}
+	//----------------------------end of nested ElementIterator class--------------------
+
+	//----------------------------nested RankSpliterator class-----------------------
+
+	/**
+	 * This class reports the elements with ranks in [index, fence). It splits at the
+	 * middle rank without walking, and finds its first node by rank only once it
+	 * starts reporting.
+	 */
+	private class RankSpliterator implements Spliterator<E> {
+
+		private RankedNode current;														//node of the next element, null until looked up
+		private int index;																//rank of the next element
+		private final int fence;														//rank one past the last element
+
+		/**
+		 * Constructs a spliterator over a range of ranks.
+		 *
+		 * @param current the node at rank index, or null to look it up later
+		 * @param index   the first rank
+		 * @param fence   the rank one past the last
+		 */
+		private RankSpliterator(RankedNode current, int index, int fence) {
+			this.current = current;														//sets current to the value of current
+			this.index = index;															//sets index to the value of index
+			this.fence = fence;															//sets fence to the value of fence
+		}
+
+		/** Reports the next element, if there is one.
+		 *
+		 * @param action the action applied to the element
+		 * @return       true if an element was reported, false at the end of the range
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if(index >= fence) {														//if the range is used up
+				return false;
+			}
+			RankedNode node = start();													//node of the next element
+			current = node.next;														//move to the next node
+			index++;
+			action.accept(node.data);													//report the element
+			return true;
+		}
+
+		/** Reports every remaining element of the range.
+		 *
+		 * @param action the action applied to each element
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			if(index >= fence) {														//if the range is used up
+				return;
+			}
+			RankedNode node = start();													//walk on locals
+			for(int i = index; i < fence; i++) {
+				action.accept(node.data);												//report the element
+				node = node.next;
+			}
+			current = node;																//the range is used up
+			index = fence;
+		}
+
+		/** Hands the first half of the range to a new spliterator.
+		 *
+		 * @return a spliterator over the first half, or null if the range is too short
+		 */
+		@Override
+		public Spliterator<E> trySplit() {
+			int mid = (index + fence) >>> 1;											//middle rank
+			if(mid == index) {															//if there is nothing to split off
+				return null;
+			}
+			RankSpliterator prefix = new RankSpliterator(current, index, mid);			//first half
+			current = null;																//look up the node at mid when needed
+			index = mid;																//this spliterator keeps the second half
+			return prefix;																//return the first half
+		}
+
+		/** Returns the exact number of elements left in the range.
+		 *
+		 * @return the number of elements left
+		 */
+		@Override
+		public long estimateSize() {
+			return fence - index;														//the range length is exact
+		}
+
+		/** Returns the characteristics of the spliterator.
+		 *
+		 * @return ORDERED, SIZED and SUBSIZED
+		 */
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;		//the range is ordered and its length known
+		}
+
+		/** Returns the node at rank index, looking it up in the treap the first time. */
+		private RankedNode start() {
+			if(current == null) {														//if the node is not known yet
+				current = (RankedNode) atIndex(index);									//find it by rank
+			}
+			return current;
+		}
+	}
+	//----------------------------end of nested RankSpliterator class--------------------
+
+	private final SplittableRandom random = new SplittableRandom();						//source of treap priorities
+	private final RankedNode header;													//variable for the head node
+	private final RankedNode trailer;													//variable for the tail node
+	private RankedNode root;															//root of the treap, null if empty
+	private int size = 0;																//number of elements in the list
+
+	/** Constructor that initializes the header and trailer */
+	public IndexedPositionalList() {
+		header = new RankedNode(null);													//sentinels never enter the treap
+		trailer = new RankedNode(null);
+		header.next = trailer;															//the node after the header is the trailer
+		trailer.prev = header;															//the node before the trailer is the header
+	}
+
+	/** Returns an iterator for the elements in the collection.
+	 *
+	 * @return an iterator of the elements in the list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new ElementIterator();													//returns an iterator of the elements in the list
+	}
+
+	/** Returns an iterable representation of the list's positions.
+	 *
+	 * @return an iterable representation of the list's positions
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterable<E> positions() {
+		return (Iterable<E>) new PositionIterable();									//returns an iterable of the list's positions
+	}
+
+	/** Returns a spliterator over the elements of the list. It splits at the middle
+	 * rank in O(1) and finds a half's first node in O(log n), so parallel streams
+	 * divide the list evenly without walking it.
+	 *
+	 * @return a spliterator over the elements of the list
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new RankSpliterator(header.next, 0, size);								//spliterator over every rank
+	}
+
+	/** Returns the number of elements in the list.
+	 *
+	 * @return the number of elements in the list
+	 */
+	@Override
+	public int size() {
+		return size;																	//returns the size
+	}
+
+	/** Tests whether the list is empty.
+	 *
+	 * @return true if the list is empty, false otherwise
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;																//true if there are no elements
+	}
+
+	/** Returns the first Position in the list (or null, if empty).
+	 *
+	 * @return the first position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> first() {
+		return position(header.next);													//return the first position
+	}
+
+	/** Returns the last Position in the list (or null, if empty).
+	 *
+	 * @return the last position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> last() {
+		return position(trailer.prev);													//return the last position
+	}
+
+	/**
+	 * Returns the Position immediately before Position p (or null, if p is first).
+	 *
+	 * @param p the position of the node
+	 * @return  the position immediately before position p, or null if p is first
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> before(Position<E> p) throws InvalidPositionException {
+		return position(checkPosition(p).prev);											//return the previous position
+	}
+
+	/**
+	 * Returns the Position immediately after Position p (or null, if p is last).
+	 *
+	 * @param p the position of the node
+	 * @return  the position immediately after position p, or null if p is last
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> after(Position<E> p) throws InvalidPositionException {
+		return position(checkPosition(p).next);											//return the next position
+	}
+
+	/**
+	 * Inserts element e at the front of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addFirst(E e) {
+		return addBetween(e, header, header.next);										//add just after the header node
+	}
+
+	/**
+	 * Inserts element e at the back of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addLast(E e) {
+		return addBetween(e, trailer.prev, trailer);									//add just before the trailer node
+	}
+
+	/**
+	 * Inserts element e immediately before Position p and returns its new Position.
+	 *
+	 * @param p the position of the node
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addBefore(Position<E> p, E e) throws InvalidPositionException {
+		RankedNode node = checkPosition(p);												//cast p as a node
+		return addBetween(e, node.prev, node);											//add between p and the node before it
+	}
+
+	/**
+	 * Inserts element e immediately after Position p and returns its new Position.
+	 *
+	 * @param p the position of the node
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addAfter(Position<E> p, E e) throws InvalidPositionException {
+		RankedNode node = checkPosition(p);												//cast p as a node
+		return addBetween(e, node, node.next);											//add between p and the node after it
+	}
+
+	/**
+	 * Replaces the element stored at Position p and returns the replaced element.
+	 *
+	 * @param p the position of the node
+	 * @param e the element that will replace the element stored at position p
+	 * @return  the replaced element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E set(Position<E> p, E e) throws InvalidPositionException {
+		RankedNode node = checkPosition(p);												//cast p as a node
+		E replaced = node.data;															//variable to store the replaced element
+		node.data = e;																	//replace the data in the position with element 'e'
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Removes the element stored at Position p and returns it (invalidating p).
+	 *
+	 * @param p the position of the node
+	 * @return  the removed element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E remove(Position<E> p) throws InvalidPositionException {
+		RankedNode node = checkPosition(p);												//cast p as a node
+		E removed = node.data;															//variable that holds the element to be removed
+		treeRemove(node);																//take the node out of the treap
+		node.prev.next = node.next;														//the node before skips over this one
+		node.next.prev = node.prev;														//the node after skips over this one
+		node.next = null;																//invalidate the position
+		node.prev = null;
+		node.data = null;
+		size--;																			//decrease the size of the list by 1
+		return removed;																	//return the removed element
+	}
+
+	//----------------------------rank and select-----------------------
+
+	/**
+	 * Returns the Position of the element with the given rank (0 is the first element).
+	 * Runs in expected O(log n).
+	 *
+	 * @param i the rank of the element
+	 * @return  the position at rank i
+	 * @throws  IndexOutOfBoundsException if i is not in [0, size)
+	 */
+	public Position<E> atIndex(int i) {
+		checkIndex(i, size);															//make sure the rank exists
+		RankedNode node = root;															//start at the root of the treap
+		while(true) {
+			int leftWeight = weight(node.left);											//number of nodes before this one in its subtree
+			if(i < leftWeight) {														//if the rank is in the left subtree
+				node = node.left;														//go left
+			}
+			else if(i == leftWeight) {													//if it is this node
+				return node;															//return it
+			}
+			else {																		//otherwise it is in the right subtree
+				i -= leftWeight + 1;													//skip the left subtree and this node
+				node = node.right;														//go right
+			}
+		}
+	}
+
+	/**
+	 * Returns the rank of Position p (0 for the first element). Runs in expected O(log n).
+	 *
+	 * @param p the position of the node
+	 * @return  the rank of position p
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int indexOf(Position<E> p) throws InvalidPositionException {
+		RankedNode node = checkPosition(p);												//cast p as a node
+		int rank = weight(node.left);													//nodes before p in its own subtree
+		while(node.parent != null) {													//climb to the root
+			if(node == node.parent.right) {												//if we come up from the right
+				rank += weight(node.parent.left) + 1;									//the parent and its left subtree are before p
+			}
+			node = node.parent;
+		}
+		return rank;																	//return the rank
+	}
+
+	/**
+	 * Inserts element e so that it ends up at rank i and returns its new Position.
+	 * Runs in expected O(log n).
+	 *
+	 * @param i the rank of the new element, from 0 to size inclusive
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  IndexOutOfBoundsException if i is not in [0, size]
+	 */
+	public Position<E> addAtIndex(int i, E e) {
+		checkIndex(i, size + 1);														//size itself means append
+		if(i == size) {																	//if the element goes at the back
+			return addLast(e);															//append it
+		}
+		RankedNode node = (RankedNode) atIndex(i);										//node currently at rank i
+		return addBetween(e, node.prev, node);											//add right before it
+	}
+
+	/**
+	 * Returns a string representation of the list
+	 *
+	 * @return a string representation of the list
+	 */
+	public String toString() {
+		StringBuilder list = new StringBuilder();										//builder for the string
+		for(RankedNode node = header.next; node != trailer; node = node.next) {			//for every node in order
+			list.append(node.data).append(' ');											//add the element with a space right after
+		}
+		return list.toString();															//return the string
+	}
+
+	//----------------------------internal helpers-----------------------
+
+	/**
+	 * Adds element e to the list between the given nodes and to the treap at the matching rank.
+	 *
+	 * @param e    element to be added
+	 * @param pred the previous node
+	 * @param succ the next node
+	 * @return     the node that has been added between the pred and succ nodes
+	 */
+	private Position<E> addBetween(E e, RankedNode pred, RankedNode succ) {
+		RankedNode node = new RankedNode(e);											//create the new node
+		node.prev = pred;																//link it into the list
+		node.next = succ;
+		pred.next = node;
+		succ.prev = node;
+		treeInsertAfter(node, pred);													//give it the rank right after pred
+		size++;																			//the size of the list is increased by 1
+		return node;																	//return the new node
+	}
+
+	/**
+	 * Inserts node into the treap as the in-order successor of pred (or as the first
+	 * node if pred is the header), then restores the heap order by rotating it up.
+	 *
+	 * @param node the node to insert
+	 * @param pred the node it must follow
+	 */
+	private void treeInsertAfter(RankedNode node, RankedNode pred) {
+		if(root == null) {																//if the treap is empty
+			root = node;																//the node becomes the root
+			return;
+		}
+		if(pred == header) {															//if the node goes first
+			RankedNode leftmost = root;													//it becomes the left child of the leftmost node
+			while(leftmost.left != null) {
+				leftmost = leftmost.left;
+			}
+			attach(node, leftmost, true);
+		}
+		else if(pred.right == null) {													//if pred has no right subtree
+			attach(node, pred, false);													//the node becomes its right child
+		}
+		else {																			//otherwise it precedes everything in that subtree
+			RankedNode leftmost = pred.right;
+			while(leftmost.left != null) {
+				leftmost = leftmost.left;
+			}
+			attach(node, leftmost, true);
+		}
+		while(node.parent != null && node.priority > node.parent.priority) {			//while the heap order is broken
+			rotateUp(node);																//lift the node
+		}
+	}
+
+	/**
+	 * Hangs a leaf under parent and adds one to the weight of every ancestor.
+	 *
+	 * @param node   the leaf
+	 * @param parent its new parent
+	 * @param left   true to make it the left child, false for the right child
+	 */
+	private void attach(RankedNode node, RankedNode parent, boolean left) {
+		if(left) {
+			parent.left = node;															//link as left child
+		}
+		else {
+			parent.right = node;														//link as right child
+		}
+		node.parent = parent;
+		for(RankedNode a = parent; a != null; a = a.parent) {							//for every ancestor
+			a.weight++;																	//its subtree grew by one
+		}
+	}
+
+	/**
+	 * Removes node from the treap by rotating it down to a leaf and cutting it off.
+	 *
+	 * @param node the node to remove
+	 */
+	private void treeRemove(RankedNode node) {
+		while(node.left != null || node.right != null) {								//while the node is not a leaf
+			RankedNode child;															//child with the higher priority goes up
+			if(node.left == null) {
+				child = node.right;
+			}
+			else if(node.right == null || node.left.priority > node.right.priority) {
+				child = node.left;
+			}
+			else {
+				child = node.right;
+			}
+			rotateUp(child);															//the node moves one level down
+		}
+		RankedNode parent = node.parent;
+		if(parent == null) {															//if the node was the only one
+			root = null;																//the treap is now empty
+		}
+		else {
+			if(parent.left == node) {													//cut the leaf off its parent
+				parent.left = null;
+			}
+			else {
+				parent.right = null;
+			}
+			for(RankedNode a = parent; a != null; a = a.parent) {						//for every ancestor
+				a.weight--;																//its subtree shrank by one
+			}
+		}
+		node.parent = null;
+		node.weight = 1;
+	}
+
+	/**
+	 * Rotates x above its parent, keeping the in-order sequence and fixing both weights.
+	 *
+	 * @param x a node with a parent
+	 */
+	private void rotateUp(RankedNode x) {
+		RankedNode p = x.parent;														//current parent
+		RankedNode g = p.parent;														//current grandparent
+		if(x == p.left) {																//right rotation
+			p.left = x.right;
+			if(x.right != null) {
+				x.right.parent = p;
+			}
+			x.right = p;
+		}
+		else {																			//left rotation
+			p.right = x.left;
+			if(x.left != null) {
+				x.left.parent = p;
+			}
+			x.left = p;
+		}
+		p.parent = x;
+		x.parent = g;
+		if(g == null) {																	//if p was the root
+			root = x;																	//x is the root now
+		}
+		else if(g.left == p) {
+			g.left = x;
+		}
+		else {
+			g.right = x;
+		}
+		p.weight = 1 + weight(p.left) + weight(p.right);								//p lost the subtree of x
+		x.weight = 1 + weight(x.left) + weight(x.right);								//x now holds p's old subtree
+	}
+
+	/** Returns the weight of a possibly empty subtree. */
+	private static int weight(IndexedPositionalList<?>.RankedNode node) {
+		return node == null ? 0 : node.weight;											//an empty subtree weighs 0
+	}
+
+	/** Throws IndexOutOfBoundsException unless 0 <= i < bound. */
+	private static void checkIndex(int i, int bound) {
+		if(i < 0 || i >= bound) {														//if the index is out of range
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + bound);	//throw exception
+		}
+	}
+
+	/**
+	 * Checks whether the passed position is a live node of this list.
+	 *
+	 * @param v the position that is checked
+	 * @return  the node of the passed position
+	 * @throws  InvalidPositionException if v is null, not a node of this list or removed
+	 */
+	protected RankedNode checkPosition(Position<E> v) throws InvalidPositionException {
+		if(!(v instanceof IndexedPositionalList.RankedNode)) {							//if v does not exist or v is not a node
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		RankedNode node = (RankedNode) v;
+		if(node.owner() != this || node.next == null || node == header) {				//if v belongs to another list, was removed or is a sentinel
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		return node;																	//return the node
+	}
+
+	/**
+	 * Returns the given node as a Position (or null, if it is a sentinel).
+	 *
+	 * @param node the node in the list
+	 * @return     the node, or null
+	 */
+	private Position<E> position(RankedNode node) {
+		if(node == header || node == trailer) {											//if node is the header or trailer
+			return null;																//return null
+		}
+		return node;																	//return node
+	}
+}
@@ -0,0 +1,22 @@
+package packag;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JFR event committed by StructureMetrics every time an InvalidPositionException is thrown. */
+@Name("packag.InvalidPosition")
+@Label("Invalid Position")
+@Category({"Positional Lists", "Errors"})
+@Description("A position was rejected by a list or tree")
+@StackTrace(true)
+final class InvalidPositionEvent extends jdk.jfr.Event {
+
+	@Label("Structure")
+	String structure;																	//name the metrics were created with
+
+	@Label("Message")
+	String message;																		//message of the exception
+}
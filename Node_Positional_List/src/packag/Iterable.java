@@ -1,12 +1,24 @@
 package packag;
 
 import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public interface Iterable<E> {
+public interface Iterable<E> extends java.lang.Iterable<E> {
 	
 	/** Returns an iterator for the elements in the collection. */
 	public Iterator<E> iterator();
 	
 	/** Returns an iterable representation of the list's positions. */
 	public Iterable<E> positions();
+
+	/** Returns a sequential stream over the elements in the collection. */
+	public default Stream<E> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/** Returns a parallel stream over the elements, split as spliterator() allows. */
+	public default Stream<E> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
 }
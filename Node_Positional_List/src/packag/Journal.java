@@ -0,0 +1,392 @@
+package packag;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A write-ahead journal behind JournaledList and JournaledTree. It keeps two files
+ * next to each other: a checkpoint (base.snap), a full image of the structure, and
+ * a log (base.log) of every change made since that checkpoint. Each change is one
+ * record of an operation code, the id of the node it concerns, the id of a second
+ * node (anchor or parent) and the element as a length-prefixed codec record, guarded
+ * by a CRC32C checksum.
+ *
+ * Records are collected in memory and forced to the disk in groups: automatically
+ * once syncBatch records are pending, or when sync() is called. Threads that call
+ * sync() while another thread is forcing the log wait for it and return without a
+ * second fsync if that one covered their records. A crash loses at most the records
+ * after the last sync. On opening, the checkpoint is loaded and the log replayed up
+ * to the last whole record; a torn record at the end is cut off. A checkpoint is
+ * taken every checkpointInterval records, or on checkpoint(), and empties the log.
+ * Both files carry a generation number, so a crash between writing a checkpoint
+ * and emptying the log never replays the old log on top of the new checkpoint.
+ */
+public final class Journal implements AutoCloseable {
+
+	/** What a journal needs from the structure it protects. */
+	interface Target {
+
+		/** Writes a full image of the structure. */
+		void writeSnapshot(ChannelWriter out) throws IOException;
+
+		/** Rebuilds the structure from an image written by writeSnapshot. */
+		void readSnapshot(ChannelReader in) throws IOException;
+
+		/**
+		 * Applies one logged change to the structure.
+		 *
+		 * @param op      the operation code
+		 * @param id      the id of the node the change concerns
+		 * @param ref     the id of the second node, 0 if there is none
+		 * @param element the encoded element, positioned at its first byte
+		 * @param length  the length of the element, -1 for a null or missing element
+		 */
+		void replay(int op, long id, long ref, ByteBuffer element, int length) throws IOException;
+	}
+
+	private static final int SNAPSHOT_MAGIC = 0x4E50534E;								//"NPSN"
+	private static final int LOG_MAGIC = 0x4E504C47;									//"NPLG"
+	private static final int LOG_HEADER = Integer.BYTES + Long.BYTES;					//magic and generation
+	private static final int RECORD_HEADER = 2 * Integer.BYTES;							//size and checksum of a record
+	private static final int RECORD_FIELDS = 1 + 2 * Long.BYTES + Integer.BYTES;		//op, id, ref and element length
+	private static final int WRITE_THRESHOLD = 1 << 16;									//pending bytes handed to the file early
+	static final int DEFAULT_SYNC_BATCH = 64;											//records per automatic fsync
+	static final long DEFAULT_CHECKPOINT_INTERVAL = 1 << 20;							//records between automatic checkpoints
+
+	private final Target target;														//structure the journal protects
+	private final Path snapshotFile;													//base.snap
+	private final Path logFile;															//base.log
+	private final Object syncLock = new Object();										//held by the thread forcing the log
+	private final CRC32C crc = new CRC32C();
+	private FileChannel log;															//the open log, null once closed
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 12);							//records not handed to the file yet
+	private ByteBuffer element = ByteBuffer.allocate(1 << 8);							//element of the next record
+	private long generation = 0;														//generation of the current checkpoint
+	private long appended = 0;															//records appended since the journal was opened
+	private volatile long synced = 0;													//records known to be on the disk
+	private long sinceCheckpoint = 0;													//records in the log
+	private int syncBatch = DEFAULT_SYNC_BATCH;
+	private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+	/**
+	 * Opens the journal with the given base path and recovers target from it: the
+	 * checkpoint is loaded if there is one, then the log is replayed.
+	 *
+	 * @param base   the path the two file names are derived from
+	 * @param target the structure to recover and protect, empty
+	 * @throws       IOException if the files cannot be read or written
+	 */
+	Journal(Path base, Target target) throws IOException {
+		this.target = target;															//sets target to the value of target
+		this.snapshotFile = base.resolveSibling(base.getFileName() + ".snap");
+		this.logFile = base.resolveSibling(base.getFileName() + ".log");
+		if(Files.exists(snapshotFile)) {												//if a checkpoint was taken
+			try(ChannelReader in = new ChannelReader(FileChannel.open(snapshotFile, StandardOpenOption.READ))) {
+				if(in.readInt() != SNAPSHOT_MAGIC) {									//if it holds something else
+					throw new IOException("Not a journal checkpoint: " + snapshotFile);	//throw exception
+				}
+				generation = in.readLong();
+				target.readSnapshot(in);												//load it
+			}
+		}
+		log = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+		try {
+			recover();
+		}
+		catch(IOException | RuntimeException e) {										//do not leak the channel
+			log.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Sets how many records may be pending before they are forced to the disk.
+	 *
+	 * @param records the number of records per automatic fsync, 1 to force every change
+	 */
+	public synchronized void setSyncBatch(int records) {
+		if(records < 1) {																//if the batch is empty
+			throw new IllegalArgumentException("Sync batch must be at least 1: " + records);
+		}
+		syncBatch = records;															//sets syncBatch to the value of records
+	}
+
+	/**
+	 * Sets how many records the log may hold before a checkpoint is taken.
+	 *
+	 * @param records the number of records between automatic checkpoints
+	 */
+	public synchronized void setCheckpointInterval(long records) {
+		if(records < 1) {																//if the interval is empty
+			throw new IllegalArgumentException("Checkpoint interval must be at least 1: " + records);
+		}
+		checkpointInterval = records;													//sets checkpointInterval to the value of records
+	}
+
+	/**
+	 * Returns the number of records in the log, the changes a recovery would replay.
+	 *
+	 * @return the number of records since the last checkpoint
+	 */
+	public synchronized long logSize() {
+		return sinceCheckpoint;															//returns the number of records
+	}
+
+	/**
+	 * Forces every record appended so far to the disk. If another thread is forcing
+	 * the log, waits for it and returns right away when its fsync covered this
+	 * thread's records.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	public void sync() throws IOException {
+		long wanted;
+		synchronized(this) {
+			wanted = appended;															//records this call must cover
+		}
+		synchronized(syncLock) {														//one fsync at a time
+			if(synced >= wanted) {														//if a fsync we waited for covered them
+				return;
+			}
+			long covered;
+			synchronized(this) {
+				covered = appended;														//everything appended up to now goes along
+				write();
+			}
+			log.force(false);															//one fsync for the whole group
+			synced = covered;
+		}
+	}
+
+	/**
+	 * Writes a checkpoint of the structure and empties the log. The checkpoint is
+	 * written to a temporary file and renamed into place, so a crash leaves either the
+	 * old checkpoint and log or the new checkpoint behind.
+	 *
+	 * @throws IOException if the files cannot be written
+	 */
+	public void checkpoint() throws IOException {
+		synchronized(syncLock) {
+			synchronized(this) {
+				Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+				try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					ChannelWriter out = new ChannelWriter(channel);
+					out.writeInt(SNAPSHOT_MAGIC);
+					out.writeLong(generation + 1);										//the checkpoint covers the current log
+					target.writeSnapshot(out);
+					out.flush();
+					channel.force(true);
+				}
+				Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				generation++;
+				pending.clear();														//the pending records are in the checkpoint
+				resetLog();
+				synced = appended;
+			}
+		}
+	}
+
+	/**
+	 * Forces the pending records to the disk and closes the log.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if(log == null) {																//if it is closed already
+			return;
+		}
+		try {
+			sync();
+		}
+		finally {
+			log.close();
+			log = null;
+		}
+	}
+
+	/**
+	 * Encodes the element of a change that is about to be made, so that a codec that
+	 * fails or breaks its promise does so before the structure changes. Called by the
+	 * thread that changes the structure; the returned buffer is reused by the next
+	 * call, so it has to be passed to append before that.
+	 *
+	 * @param e     the element, null if there is none
+	 * @param codec the codec that encodes the element
+	 * @return      the encoded element between position and limit, null if e is null
+	 * @throws      IOException if the codec writes another number of bytes than sizeOf says
+	 */
+	<E> ByteBuffer encode(E e, ElementCodec<? super E> codec) throws IOException {
+		if(e == null) {																	//null has no bytes
+			return null;
+		}
+		int length = codec.sizeOf(e);													//bytes the element takes
+		if(length < 0) {																//if the codec makes no sense
+			throw new IOException("Codec said an element takes " + length + " bytes");	//throw exception
+		}
+		if(element.capacity() < length) {
+			element = ByteBuffer.allocate(Math.max(element.capacity() * 2, length));
+		}
+		element.clear().limit(length);													//the codec may not write past sizeOf
+		try {
+			codec.encode(e, element);
+		}
+		catch(BufferOverflowException x) {												//if it wrote more than it said
+			throw new IOException("Codec wrote more than the " + length + " bytes sizeOf said", x);	//throw exception
+		}
+		if(element.hasRemaining()) {													//if it wrote less than it said
+			throw new IOException("Codec wrote " + element.position() + " bytes, sizeOf said " + length);	//throw exception
+		}
+		element.flip();
+		return element;																	//return the encoded element
+	}
+
+	/**
+	 * Appends a record for a change that has just been made to the structure. Syncs or
+	 * takes a checkpoint if the batch or the interval is full. If the record cannot be
+	 * put together, nothing of it stays in the pending buffer.
+	 *
+	 * @param op      the operation code
+	 * @param id      the id of the node the change concerns
+	 * @param ref     the id of the second node, 0 if there is none
+	 * @param element the element as returned by encode, null if there is none
+	 * @throws        IOException if the log cannot be written
+	 */
+	void append(int op, long id, long ref, ByteBuffer element) throws IOException {
+		boolean checkpoint;
+		boolean sync;
+		synchronized(this) {
+			if(log == null) {															//if the journal is closed
+				throw new IllegalStateException("The journal is closed");
+			}
+			int length = element == null ? -1 : element.remaining();					//bytes the element takes
+			int size = RECORD_FIELDS + Math.max(length, 0);								//bytes covered by the checksum
+			reserve(RECORD_HEADER + size);
+			int start = pending.position();
+			try {
+				pending.position(start + RECORD_HEADER);								//checksum is filled in below
+				pending.put((byte) op).putLong(id).putLong(ref).putInt(length);
+				if(element != null) {
+					pending.put(element);												//the element
+				}
+				ByteBuffer body = pending.duplicate();
+				body.position(start + RECORD_HEADER).limit(start + RECORD_HEADER + size);
+				crc.reset();
+				crc.update(body);
+				pending.putInt(start, size).putInt(start + Integer.BYTES, (int) crc.getValue());	//record header
+			}
+			catch(RuntimeException x) {													//drop the half-written record
+				pending.position(start);
+				throw x;
+			}
+			appended++;
+			sinceCheckpoint++;
+			checkpoint = sinceCheckpoint >= checkpointInterval;
+			sync = appended - synced >= syncBatch;
+			if(!checkpoint && !sync && pending.position() >= WRITE_THRESHOLD) {			//if a lot is pending
+				write();																//hand it to the file, no fsync
+			}
+		}
+		if(checkpoint) {																//if the log is long enough
+			checkpoint();
+		}
+		else if(sync) {																	//if a batch is full
+			sync();
+		}
+	}
+
+	/**
+	 * Replays the log after the checkpoint has been loaded. A log of an older
+	 * generation was already folded into the checkpoint and is dropped; a damaged or
+	 * torn record ends the replay and the log is cut off before it.
+	 *
+	 * @throws IOException if the log cannot be read or written
+	 */
+	private void recover() throws IOException {
+		long length = log.size();
+		ChannelReader in = new ChannelReader(log.position(0));
+		if(length < LOG_HEADER || in.readInt() != LOG_MAGIC || in.readLong() != generation) {	//if the log does not belong to the checkpoint
+			resetLog();																	//start an empty one
+			return;
+		}
+		long end = LOG_HEADER;															//end of the last whole record
+		ByteBuffer body = ByteBuffer.allocate(RECORD_FIELDS);
+		while(length - end >= RECORD_HEADER) {											//while a record header can follow
+			int size = in.readInt();
+			int checksum = in.readInt();
+			if(size < RECORD_FIELDS || size > length - end - RECORD_HEADER) {			//if the record is torn or garbage
+				break;
+			}
+			if(body.capacity() < size) {
+				body = ByteBuffer.allocate(size);
+			}
+			body.clear().limit(size);
+			in.readFully(body);															//copy the record out of the reader
+			body.flip();
+			crc.reset();
+			crc.update(body.duplicate());
+			if((int) crc.getValue() != checksum) {										//if the record is damaged
+				break;
+			}
+			int op = body.get();
+			long id = body.getLong();
+			long ref = body.getLong();
+			target.replay(op, id, ref, body, body.getInt());							//apply the change
+			end += RECORD_HEADER + size;
+			sinceCheckpoint++;
+		}
+		log.truncate(end);																//cut off what could not be replayed
+		log.position(end);
+	}
+
+	/**
+	 * Empties the log and gives it the header of the current generation.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	private void resetLog() throws IOException {
+		log.truncate(0);
+		ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+		header.putInt(LOG_MAGIC).putLong(generation).flip();
+		while(header.hasRemaining()) {
+			log.write(header, header.position());
+		}
+		log.position(LOG_HEADER);
+		log.force(true);
+		sinceCheckpoint = 0;
+	}
+
+	/**
+	 * Hands the pending records to the log without forcing them.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	private void write() throws IOException {
+		pending.flip();
+		while(pending.hasRemaining()) {													//channels may write less than asked
+			log.write(pending);
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Makes sure the pending buffer has room for the given number of bytes.
+	 *
+	 * @param bytes the number of bytes about to be put
+	 */
+	private void reserve(int bytes) {
+		if(pending.remaining() < bytes) {												//if they do not fit
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+			pending.flip();
+			bigger.put(pending);														//keep what is pending
+			pending = bigger;
+		}
+	}
+}
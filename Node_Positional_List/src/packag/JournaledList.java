@@ -0,0 +1,358 @@
+package packag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * A NodePositionalList whose changes are written to a Journal, so that it survives
+ * the process. Reads go straight to the list in memory; every add, set and remove is
+ * applied to it and then appended to the log as a record naming the nodes by id.
+ * The element is encoded before the list changes, so a failing codec leaves both
+ * the list and the log as they were. Opening the same base path again loads the
+ * latest checkpoint and replays the log.
+ */
+public class JournaledList<E> extends AbstractJournaled<E> implements PositionalList<E>, Iterable<E> {
+
+	private static final int ADD_FIRST = 1;												//record: id added at the front
+	private static final int ADD_LAST = 2;												//record: id added at the back
+	private static final int ADD_BEFORE = 3;											//record: id added before ref
+	private static final int ADD_AFTER = 4;												//record: id added after ref
+	private static final int SET = 5;													//record: element of id replaced
+	private static final int REMOVE = 6;												//record: id removed
+
+	//----------------------------nested Recovery class-----------------------
+
+	/** This class lets the journal save, load and replay the list. */
+	private class Recovery implements Journal.Target {
+
+		/** Writes the id counter, the list and then the id of every node in order. */
+		@Override
+		public void writeSnapshot(ChannelWriter out) throws IOException {
+			writeNextId(out);
+			BinaryFormat.writeList(list, codec, out);
+			try {
+				for(Position<E> p = list.first(); p != null; p = list.after(p)) {		//ids in list order
+					out.writeLong(idOf(p));
+				}
+			}
+			catch(InvalidPositionException e) {											//every node of the list is registered
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/** Reads what writeSnapshot wrote. */
+		@Override
+		public void readSnapshot(ChannelReader in) throws IOException {
+			readNextId(in);
+			list = BinaryFormat.readList(codec, in);
+			try {
+				for(Position<E> p = list.first(); p != null; p = list.after(p)) {		//ids in list order
+					register(p, in.readLong());
+				}
+			}
+			catch(InvalidPositionException e) {											//the positions come from the list itself
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/** Applies a logged add, set or remove. */
+		@Override
+		public void replay(int op, long id, long ref, ByteBuffer element, int length) throws IOException {
+			E e = decode(element, length);
+			try {
+				switch(op) {
+					case ADD_FIRST:
+						register(list.addFirst(e), id);
+						break;
+					case ADD_LAST:
+						register(list.addLast(e), id);
+						break;
+					case ADD_BEFORE:
+						register(list.addBefore(nodeOf(ref), e), id);
+						break;
+					case ADD_AFTER:
+						register(list.addAfter(nodeOf(ref), e), id);
+						break;
+					case SET:
+						list.set(nodeOf(id), e);
+						break;
+					case REMOVE:
+						Position<E> p = nodeOf(id);
+						list.remove(p);
+						unregister(p);
+						break;
+					default:
+						throw new IOException("Unknown list record " + op);				//throw exception
+				}
+			}
+			catch(InvalidPositionException x) {											//registered nodes are always in the list
+				throw new IOException("The journal does not match the list", x);
+			}
+		}
+	}
+	//----------------------------end of nested Recovery class--------------------
+
+	//----------------------------nested JournaledIterator class-----------------------
+
+	/** This class walks the list, reporting elements or positions, and removes through the journal. */
+	private class JournaledIterator<T> implements Iterator<T> {
+
+		private final boolean reportPositions;											//true to report nodes, false for elements
+		private Position<E> pointer = list.first();										//position of the next element to report
+		private Position<E> last = null;												//position of last reported element
+
+		private JournaledIterator(boolean reportPositions) {
+			this.reportPositions = reportPositions;										//sets reportPositions to the value of reportPositions
+		}
+
+		/** Tests whether the iterator has a next object. */
+		@Override
+		public boolean hasNext() {
+			return pointer != null;														//true until the end of the list
+		}
+
+		/** Returns the next element or position. */
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if(pointer == null) {														//if there is no next element
+				throw new java.util.NoSuchElementException("No next position");			//throw exception
+			}
+			last = pointer;
+			try {
+				pointer = list.after(pointer);											//move to the next position
+			}
+			catch(InvalidPositionException e) {											//the node was removed while the iteration was on it
+				throw new java.util.ConcurrentModificationException("The list was modified during iteration");	//throw exception
+			}
+			return (T) (reportPositions ? last : last.getElement());
+		}
+
+		/** Removes the last reported element from the list and logs it. */
+		@Override
+		public void remove() {
+			if(last == null) {															//if there is nothing to remove
+				throw new IllegalStateException("next() has not been called");			//throw exception
+			}
+			try {
+				JournaledList.this.remove(last);										//remove it, unregister and log it
+			}
+			catch(InvalidPositionException e) {											//it was removed behind the iterator's back
+				throw new java.util.ConcurrentModificationException("The list was modified during iteration");	//throw exception
+			}
+			last = null;																//it can not be removed twice
+		}
+	}
+	//----------------------------end of nested JournaledIterator class--------------------
+
+	private NodePositionalList<E> list = new NodePositionalList<E>();					//the list in memory
+
+	/**
+	 * Opens the journaled list stored under the given base path, recovering it from the
+	 * checkpoint and log there, or starting an empty one.
+	 *
+	 * @param base  the path the journal file names are derived from
+	 * @param codec the codec that converts elements to and from bytes
+	 * @throws      IOException if the journal cannot be read or written
+	 */
+	public JournaledList(Path base, ElementCodec<E> codec) throws IOException {
+		super(codec);
+		journal = new Journal(base, new Recovery());									//recover, then keep logging
+	}
+
+	/** Returns an iterator for the elements in the collection.
+	 *
+	 * @return an iterator of the elements in the list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new JournaledIterator<E>(false);											//removing through it is logged
+	}
+
+	/** Returns an iterable representation of the list's positions.
+	 *
+	 * @return an iterable representation of the list's positions
+	 */
+	@Override
+	public Iterable<E> positions() {
+		return new Iterable<E>() {
+			@Override
+			public Iterator<E> iterator() {
+				return new JournaledIterator<E>(true);									//reports positions, as in NodePositionalList
+			}
+
+			@Override
+			public Iterable<E> positions() {
+				return null;															//not needed, as in PositionIterable
+			}
+		};
+	}
+
+	/** Returns the number of elements in the list.
+	 *
+	 * @return the number of elements in the list
+	 */
+	@Override
+	public int size() {
+		return list.size();																//returns the size
+	}
+
+	/** Tests whether the list is empty.
+	 *
+	 * @return true if the list is empty, false otherwise
+	 */
+	@Override
+	public boolean isEmpty() {
+		return list.isEmpty();															//true if there are no elements
+	}
+
+	/** Returns the first Position in the list (or null, if empty).
+	 *
+	 * @return the first position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> first() {
+		return list.first();															//return the first position
+	}
+
+	/** Returns the last Position in the list (or null, if empty).
+	 *
+	 * @return the last position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> last() {
+		return list.last();																//return the last position
+	}
+
+	/**
+	 * Returns the Position immediately before Position p (or null, if p is first).
+	 *
+	 * @param p the position of the element
+	 * @return  the position immediately before position p, or null if p is first
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> before(Position<E> p) throws InvalidPositionException {
+		idOf(p);																		//check that p is a node of the list
+		return list.before(p);															//return the previous position
+	}
+
+	/**
+	 * Returns the Position immediately after Position p (or null, if p is last).
+	 *
+	 * @param p the position of the element
+	 * @return  the position immediately after position p, or null if p is last
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> after(Position<E> p) throws InvalidPositionException {
+		idOf(p);																		//check that p is a node of the list
+		return list.after(p);															//return the next position
+	}
+
+	/**
+	 * Inserts element e at the front of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addFirst(E e) {
+		ByteBuffer bytes = encode(e);													//encode before the list changes
+		Position<E> p = list.addFirst(e);												//add in memory
+		log(ADD_FIRST, register(p), 0, bytes);											//then log it
+		return p;																		//return the new position
+	}
+
+	/**
+	 * Inserts element e at the back of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addLast(E e) {
+		ByteBuffer bytes = encode(e);													//encode before the list changes
+		Position<E> p = list.addLast(e);												//add in memory
+		log(ADD_LAST, register(p), 0, bytes);											//then log it
+		return p;																		//return the new position
+	}
+
+	/**
+	 * Inserts element e immediately before Position p and returns its new Position.
+	 *
+	 * @param p the position of the element
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addBefore(Position<E> p, E e) throws InvalidPositionException {
+		long anchor = idOf(p);															//id of position p
+		ByteBuffer bytes = encode(e);													//encode before the list changes
+		Position<E> q = list.addBefore(p, e);											//add in memory
+		log(ADD_BEFORE, register(q), anchor, bytes);									//then log it
+		return q;																		//return the new position
+	}
+
+	/**
+	 * Inserts element e immediately after Position p and returns its new Position.
+	 *
+	 * @param p the position of the element
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addAfter(Position<E> p, E e) throws InvalidPositionException {
+		long anchor = idOf(p);															//id of position p
+		ByteBuffer bytes = encode(e);													//encode before the list changes
+		Position<E> q = list.addAfter(p, e);											//add in memory
+		log(ADD_AFTER, register(q), anchor, bytes);										//then log it
+		return q;																		//return the new position
+	}
+
+	/**
+	 * Replaces the element stored at Position p and returns the replaced element.
+	 *
+	 * @param p the position of the element
+	 * @param e the element that will replace the element stored at position p
+	 * @return  the replaced element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E set(Position<E> p, E e) throws InvalidPositionException {
+		long id = idOf(p);																//id of position p
+		ByteBuffer bytes = encode(e);													//encode before the list changes
+		E replaced = list.set(p, e);													//replace in memory
+		log(SET, id, 0, bytes);															//then log it
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Removes the element stored at Position p and returns it (invalidating p).
+	 *
+	 * @param p the position of the element
+	 * @return  the removed element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E remove(Position<E> p) throws InvalidPositionException {
+		long id = idOf(p);																//id of position p
+		E removed = list.remove(p);														//remove in memory
+		unregister(p);
+		log(REMOVE, id, 0, null);														//then log it
+		return removed;																	//return the removed element
+	}
+
+	/**
+	 * Returns a string representation of the list
+	 *
+	 * @return a string representation of the list
+	 */
+	public String toString() {
+		return list.toString();															//the list in memory
+	}
+}
@@ -0,0 +1,323 @@
+package packag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * A LinkedTree whose changes are written to a Journal, so that it survives the
+ * process. Reads go straight to the tree in memory; adding a root or a child,
+ * replacing an element and removing a subtree are applied to it and then appended
+ * to the log as a record naming the nodes by id. The element is encoded before the
+ * tree changes, so a failing codec leaves both the tree and the log as they were.
+ * Opening the same base path again loads the latest checkpoint and replays the log.
+ */
+public class JournaledTree<E> extends AbstractJournaled<E> implements Tree<E> {
+
+	private static final int ADD_ROOT = 1;												//record: id added as the root
+	private static final int ADD_CHILD = 2;												//record: id added as the last child of ref
+	private static final int SET = 3;													//record: element of id replaced
+	private static final int REMOVE = 4;												//record: subtree of id removed
+
+	//----------------------------nested Recovery class-----------------------
+
+	/** This class lets the journal save, load and replay the tree. */
+	private class Recovery implements Journal.Target {
+
+		/** Writes the id counter, the tree and then the id of every node in preorder. */
+		@Override
+		public void writeSnapshot(ChannelWriter out) throws IOException {
+			writeNextId(out);
+			BinaryFormat.writeTree(tree, codec, out);
+			try {
+				for(Position<E> p : tree.preorder()) {									//ids in preorder
+					out.writeLong(idOf(p));
+				}
+			}
+			catch(InvalidPositionException e) {											//every node of the tree is registered
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/** Reads what writeSnapshot wrote. */
+		@Override
+		public void readSnapshot(ChannelReader in) throws IOException {
+			readNextId(in);
+			tree = BinaryFormat.readTree(codec, in);
+			for(Position<E> p : tree.preorder()) {										//ids in preorder
+				register(p, in.readLong());
+			}
+		}
+
+		/** Applies a logged add, set or remove. */
+		@Override
+		public void replay(int op, long id, long ref, ByteBuffer element, int length) throws IOException {
+			E e = decode(element, length);
+			try {
+				switch(op) {
+					case ADD_ROOT:
+						register(tree.addRoot(e), id);
+						break;
+					case ADD_CHILD:
+						register(tree.addChild(nodeOf(ref), e), id);
+						break;
+					case SET:
+						((TreePosition<E>) nodeOf(id)).setElement(e);
+						break;
+					case REMOVE:
+						removeSubtree(nodeOf(id), false);
+						break;
+					default:
+						throw new IOException("Unknown tree record " + op);				//throw exception
+				}
+			}
+			catch(InvalidPositionException | NonEmptyTreeException x) {					//registered nodes are always in the tree
+				throw new IOException("The journal does not match the tree", x);
+			}
+		}
+	}
+	//----------------------------end of nested Recovery class--------------------
+
+	private LinkedTree<E> tree = new LinkedTree<E>();									//the tree in memory
+
+	/**
+	 * Opens the journaled tree stored under the given base path, recovering it from the
+	 * checkpoint and log there, or starting an empty one.
+	 *
+	 * @param base  the path the journal file names are derived from
+	 * @param codec the codec that converts elements to and from bytes
+	 * @throws      IOException if the journal cannot be read or written
+	 */
+	public JournaledTree(Path base, ElementCodec<E> codec) throws IOException {
+		super(codec);
+		journal = new Journal(base, new Recovery());									//recover, then keep logging
+	}
+
+	/**
+	 * Returns the number of positions in the tree.
+	 *
+	 * @return the number of positions in the tree
+	 */
+	@Override
+	public int size() {
+		return tree.size();																//returns the size
+	}
+
+	/**
+	 * Tests whether the tree is empty.
+	 *
+	 * @return true if the tree is empty, false otherwise
+	 */
+	@Override
+	public boolean isEmpty() {
+		return tree.isEmpty();															//true if there are no positions
+	}
+
+	/**
+	 * Returns the position of the root of the tree (or null if tree is empty).
+	 *
+	 * @return the root, or null
+	 */
+	@Override
+	public Position<E> root() {
+		return tree.root();																//returns the root
+	}
+
+	/**
+	 * Returns the position of the parent of position p (or null if p is the root).
+	 *
+	 * @param p the position that is passed
+	 * @return  the parent of p, or null
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> parent(Position<E> p) throws InvalidPositionException {
+		idOf(p);																		//check that p is a node of the tree
+		return tree.parent(p);															//return the parent
+	}
+
+	/**
+	 * Returns an iterable collection containing the children of position p.
+	 *
+	 * @param p the position that is passed
+	 * @return  the children of p
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Iterable<Position<E>> children(Position<E> p) throws InvalidPositionException {
+		idOf(p);																		//check that p is a node of the tree
+		return readOnly(tree.children(p));												//return the children, read-only
+	}
+
+	/**
+	 * Returns the number of children of position p.
+	 *
+	 * @param p the position that is passed
+	 * @return  the number of children of p
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public int numChildren(Position<E> p) throws InvalidPositionException {
+		idOf(p);																		//check that p is a node of the tree
+		return tree.numChildren(p);														//return the count
+	}
+
+	/**
+	 * Returns true if position p has at least one child.
+	 *
+	 * @param p the position that is passed
+	 * @return  true if p has a child
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public boolean isInternal(Position<E> p) throws InvalidPositionException {
+		idOf(p);																		//check that p is a node of the tree
+		return tree.isInternal(p);
+	}
+
+	/**
+	 * Returns true if position p does not have any children.
+	 *
+	 * @param p the position that is passed
+	 * @return  true if p has no children
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public boolean isExternal(Position<E> p) throws InvalidPositionException {
+		idOf(p);																		//check that p is a node of the tree
+		return tree.isExternal(p);
+	}
+
+	/**
+	 * Returns true if position p is the root of the tree.
+	 *
+	 * @param p the position that is passed
+	 * @return  true if p is the root
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public boolean isRoot(Position<E> p) throws InvalidPositionException {
+		idOf(p);																		//check that p is a node of the tree
+		return tree.isRoot(p);
+	}
+
+	/**
+	 * Returns an iterator of the elements stored in the tree.
+	 *
+	 * @return an iterator of the elements
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new ReadOnlyIterator<E>(tree.iterator());								//iterate over the tree in memory, read-only
+	}
+
+	/**
+	 * Returns an iterable collection of the positions of the tree.
+	 *
+	 * @return the positions of the tree
+	 */
+	@Override
+	public Iterable<E> positions() {
+		return readOnly(tree.positions());												//positions of the tree in memory, read-only
+	}
+
+	/**
+	 * Returns the positions of the tree in preorder.
+	 *
+	 * @return the positions of the tree in preorder
+	 */
+	public Iterable<Position<E>> preorder() {
+		return readOnly(tree.preorder());												//lazy preorder of the tree in memory, read-only
+	}
+
+	/**
+	 * Adds a root node to an empty tree.
+	 *
+	 * @param e the element in the root node
+	 * @return  the new root
+	 * @throws  NonEmptyTreeException if the tree already has a root
+	 */
+	public Position<E> addRoot(E e) throws NonEmptyTreeException {
+		ByteBuffer bytes = encode(e);													//encode before the tree changes
+		Position<E> p = tree.addRoot(e);												//add in memory
+		log(ADD_ROOT, register(p), 0, bytes);											//then log it
+		return p;																		//return the root
+	}
+
+	/**
+	 * Adds a node holding e as the last child of Position p and returns it.
+	 *
+	 * @param p the position of the parent
+	 * @param e the element in the new node
+	 * @return  the position of the new node
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public Position<E> addChild(Position<E> p, E e) throws InvalidPositionException {
+		long parent = idOf(p);															//id of position p
+		ByteBuffer bytes = encode(e);													//encode before the tree changes
+		Position<E> q = tree.addChild(p, e);											//add in memory
+		log(ADD_CHILD, register(q), parent, bytes);										//then log it
+		return q;																		//return the new node
+	}
+
+	/**
+	 * Replaces the element stored at Position p and returns the replaced element.
+	 *
+	 * @param p the position of the element
+	 * @param e the new element
+	 * @return  the replaced element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public E set(Position<E> p, E e) throws InvalidPositionException {
+		long id = idOf(p);																//id of position p
+		ByteBuffer bytes = encode(e);													//encode before the tree changes
+		E replaced = p.getElement();
+		((TreePosition<E>) p).setElement(e);											//replace in memory
+		log(SET, id, 0, bytes);															//then log it
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Removes the subtree rooted at Position p.
+	 *
+	 * @param p the root of the subtree
+	 * @return  the number of nodes removed
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int removeSubtree(Position<E> p) throws InvalidPositionException {
+		return removeSubtree(p, true);													//remove and log
+	}
+
+	/**
+	 * Removes the subtree rooted at Position p and forgets the ids of its nodes.
+	 *
+	 * @param p      the root of the subtree
+	 * @param logged true to append a record, false while replaying
+	 * @return       the number of nodes removed
+	 * @throws       InvalidPositionException if position is invalid
+	 */
+	private int removeSubtree(Position<E> p, boolean logged) throws InvalidPositionException {
+		long id = idOf(p);																//id of position p
+		ArrayList<Position<E>> removed = new ArrayList<>();								//nodes of the subtree
+		ArrayDeque<Position<E>> stack = new ArrayDeque<>();
+		stack.push(p);
+		while(!stack.isEmpty()) {														//collect the subtree
+			Position<E> q = stack.pop();
+			removed.add(q);
+			for(Position<E> child : tree.children(q)) {
+				stack.push(child);
+			}
+		}
+		int count = tree.removeSubtree(p);												//remove in memory
+		for(Position<E> q : removed) {
+			unregister(q);
+		}
+		if(logged) {
+			log(REMOVE, id, 0, null);													//then log it
+		}
+		return count;																	//return the number of nodes removed
+	}
+}
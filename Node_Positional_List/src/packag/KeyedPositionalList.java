@@ -0,0 +1,459 @@
+package packag;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A NodePositionalList with a hash index from a key of each element to the positions
+ * holding it, so find, contains and removeByKey take expected O(1) instead of a walk
+ * over the list. The key is extracted by a function given to the constructor; the
+ * elements themselves serve as keys with byElement(). Every add, set and remove keeps
+ * the index up to date. Keys are taken from elements as they are added or set, so an
+ * element must not change its key while it is in the list.
+ *
+ * A key held by a single element maps straight to its position. A key shared by
+ * several elements maps to a bucket listing their positions in the order they were
+ * indexed, and each of those positions knows its entry in the bucket, so a position
+ * leaves the index in O(1) however many elements share its key. Keys are computed
+ * before the list is changed, so a key function that throws leaves both untouched.
+ */
+public class KeyedPositionalList<K, E> implements PositionalList<E>, Iterable<E> {
+
+	//----------------------------nested KeyedIterator class-----------------------
+
+	/** This class walks the list, reporting elements or positions, and removes through the index. */
+	private class KeyedIterator<T> implements Iterator<T> {
+
+		private final boolean reportPositions;											//true to report nodes, false for elements
+		private Position<E> pointer = list.first();										//position of the next element to report
+		private Position<E> last = null;												//position of last reported element
+
+		private KeyedIterator(boolean reportPositions) {
+			this.reportPositions = reportPositions;										//sets reportPositions to the value of reportPositions
+		}
+
+		/** Tests whether the iterator has a next object. */
+		@Override
+		public boolean hasNext() {
+			return pointer != null;														//true until the end of the list
+		}
+
+		/** Returns the next element or position. */
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if(pointer == null) {														//if there is no next element
+				throw new java.util.NoSuchElementException("No next position");			//throw exception
+			}
+			last = pointer;
+			try {
+				pointer = list.after(pointer);											//move to the next position
+			}
+			catch(InvalidPositionException e) {											//the node was removed while the iteration was on it
+				throw new java.util.ConcurrentModificationException("The list was modified during iteration");	//throw exception
+			}
+			return (T) (reportPositions ? last : last.getElement());
+		}
+
+		/** Removes the last reported element from the list and the index in O(1). */
+		@Override
+		public void remove() {
+			if(last == null) {															//if there is nothing to remove
+				throw new IllegalStateException("next() has not been called");			//throw exception
+			}
+			try {
+				KeyedPositionalList.this.remove(last);									//remove it from the list and the index
+			}
+			catch(InvalidPositionException e) {											//it was removed behind the iterator's back
+				throw new java.util.ConcurrentModificationException("The list was modified during iteration");	//throw exception
+			}
+			last = null;																//it can not be removed twice
+		}
+	}
+	//----------------------------end of nested KeyedIterator class--------------------
+
+	private final NodePositionalList<E> list = new NodePositionalList<E>();				//the list itself
+	private final Function<? super E, ? extends K> keyOf;								//extracts the key of an element
+	private final HashMap<K, Object> index = new HashMap<>();							//position of each key, or a bucket of them in indexing order
+	private final IdentityHashMap<Position<E>, Position<Position<E>>> entries = new IdentityHashMap<>();	//bucket entry of each position, null if its key has no bucket
+
+	/**
+	 * Constructs an empty list indexed by the key the function extracts from each
+	 * element. The key may be null.
+	 *
+	 * @param keyOf the function that extracts the key of an element
+	 */
+	public KeyedPositionalList(Function<? super E, ? extends K> keyOf) {
+		this.keyOf = keyOf;																//sets keyOf to the value of keyOf
+	}
+
+	/**
+	 * Returns an empty list indexed by the elements themselves, using their equals
+	 * and hashCode.
+	 *
+	 * @return a new list that uses its elements as keys
+	 */
+	public static <E> KeyedPositionalList<E, E> byElement() {
+		return new KeyedPositionalList<E, E>(Function.identity());						//every element is its own key
+	}
+
+	/**
+	 * Returns the first indexed position whose element has the given key.
+	 *
+	 * @param key the key
+	 * @return    the position, or null if no element has that key
+	 */
+	public Position<E> find(K key) {
+		Object value = index.get(key);
+		if(value instanceof NodePositionalList) {										//if the key has a bucket
+			return bucket(value).first().getElement();									//buckets are never empty
+		}
+		return position(value);															//the position, or null
+	}
+
+	/**
+	 * Returns every position whose element has the given key, in the order they were
+	 * indexed.
+	 *
+	 * @param key the key
+	 * @return    a new list of the positions, empty if no element has that key
+	 */
+	public List<Position<E>> findAll(K key) {
+		Object value = index.get(key);
+		List<Position<E>> found = new ArrayList<>(count(key));
+		if(value instanceof NodePositionalList) {										//if the key has a bucket
+			for(Position<E> p : bucket(value)) {
+				found.add(p);
+			}
+		}
+		else if(value != null) {														//if the key has a single position
+			found.add(position(value));
+		}
+		return found;																	//return the positions
+	}
+
+	/**
+	 * Tests whether an element with the given key is in the list.
+	 *
+	 * @param key the key
+	 * @return    true if an element has that key, false otherwise
+	 */
+	public boolean contains(K key) {
+		return index.containsKey(key);													//keys leave the index with their last element
+	}
+
+	/**
+	 * Returns the number of elements with the given key.
+	 *
+	 * @param key the key
+	 * @return    the number of elements with that key
+	 */
+	public int count(K key) {
+		Object value = index.get(key);
+		if(value instanceof NodePositionalList) {										//if the key has a bucket
+			return bucket(value).size();												//the size of its bucket
+		}
+		return value == null ? 0 : 1;
+	}
+
+	/**
+	 * Removes every element with the given key, in time proportional to their number.
+	 *
+	 * @param key the key
+	 * @return    the number of elements removed
+	 */
+	public int removeByKey(K key) {
+		Object value = index.remove(key);												//the key leaves the index
+		if(value == null) {																//if no element has that key
+			return 0;
+		}
+		try {
+			if(!(value instanceof NodePositionalList)) {								//if the key has a single position
+				Position<E> p = position(value);
+				entries.remove(p);
+				list.remove(p);															//remove it from the list
+				return 1;
+			}
+			NodePositionalList<Position<E>> bucket = bucket(value);
+			for(Position<E> p : bucket) {
+				entries.remove(p);
+				list.remove(p);															//remove it from the list
+			}
+			return bucket.size();														//return the number of elements removed
+		}
+		catch(InvalidPositionException e) {												//indexed positions are always in the list
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Returns an iterator for the elements in the collection.
+	 *
+	 * @return an iterator of the elements in the list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new KeyedIterator<E>(false);												//removing through it updates the index
+	}
+
+	/** Returns an iterable representation of the list's positions.
+	 *
+	 * @return an iterable representation of the list's positions
+	 */
+	@Override
+	public Iterable<E> positions() {
+		return new Iterable<E>() {
+			@Override
+			public Iterator<E> iterator() {
+				return new KeyedIterator<E>(true);										//reports positions, as in NodePositionalList
+			}
+
+			@Override
+			public Iterable<E> positions() {
+				return null;															//not needed, as in PositionIterable
+			}
+		};
+	}
+
+	/** Returns the number of elements in the list.
+	 *
+	 * @return the number of elements in the list
+	 */
+	@Override
+	public int size() {
+		return list.size();																//returns the size
+	}
+
+	/** Tests whether the list is empty.
+	 *
+	 * @return true if the list is empty, false otherwise
+	 */
+	@Override
+	public boolean isEmpty() {
+		return list.isEmpty();															//true if there are no elements
+	}
+
+	/** Returns the first Position in the list (or null, if empty).
+	 *
+	 * @return the first position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> first() {
+		return list.first();															//return the first position
+	}
+
+	/** Returns the last Position in the list (or null, if empty).
+	 *
+	 * @return the last position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> last() {
+		return list.last();																//return the last position
+	}
+
+	/**
+	 * Returns the Position immediately before Position p (or null, if p is first).
+	 *
+	 * @param p the position of the element
+	 * @return  the position immediately before position p, or null if p is first
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> before(Position<E> p) throws InvalidPositionException {
+		checkPosition(p);
+		return list.before(p);															//return the previous position
+	}
+
+	/**
+	 * Returns the Position immediately after Position p (or null, if p is last).
+	 *
+	 * @param p the position of the element
+	 * @return  the position immediately after position p, or null if p is last
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> after(Position<E> p) throws InvalidPositionException {
+		checkPosition(p);
+		return list.after(p);															//return the next position
+	}
+
+	/**
+	 * Inserts element e at the front of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addFirst(E e) {
+		K key = keyOf.apply(e);															//before the list changes
+		return index(list.addFirst(e), key);											//add, then index it
+	}
+
+	/**
+	 * Inserts element e at the back of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addLast(E e) {
+		K key = keyOf.apply(e);															//before the list changes
+		return index(list.addLast(e), key);												//add, then index it
+	}
+
+	/**
+	 * Inserts element e immediately before Position p and returns its new Position.
+	 *
+	 * @param p the position of the element
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addBefore(Position<E> p, E e) throws InvalidPositionException {
+		checkPosition(p);
+		K key = keyOf.apply(e);															//before the list changes
+		return index(list.addBefore(p, e), key);										//add, then index it
+	}
+
+	/**
+	 * Inserts element e immediately after Position p and returns its new Position.
+	 *
+	 * @param p the position of the element
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addAfter(Position<E> p, E e) throws InvalidPositionException {
+		checkPosition(p);
+		K key = keyOf.apply(e);															//before the list changes
+		return index(list.addAfter(p, e), key);											//add, then index it
+	}
+
+	/**
+	 * Replaces the element stored at Position p and returns the replaced element. The
+	 * position moves to the bucket of the new key, at its end.
+	 *
+	 * @param p the position of the element
+	 * @param e the element that will replace the element stored at position p
+	 * @return  the replaced element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E set(Position<E> p, E e) throws InvalidPositionException {
+		checkPosition(p);
+		K oldKey = keyOf.apply(p.getElement());											//both keys before anything changes
+		K newKey = keyOf.apply(e);
+		unindex(p, oldKey);																//drop the old key
+		E replaced = list.set(p, e);													//replace in the list
+		index(p, newKey);																//then index the new key
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Removes the element stored at Position p and returns it (invalidating p).
+	 *
+	 * @param p the position of the element
+	 * @return  the removed element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E remove(Position<E> p) throws InvalidPositionException {
+		checkPosition(p);
+		unindex(p, keyOf.apply(p.getElement()));										//drop it from the index
+		return list.remove(p);															//then from the list
+	}
+
+	/**
+	 * Checks that p is a position of this list.
+	 *
+	 * @param p the position that is checked
+	 * @throws  InvalidPositionException if p is not a position of this list
+	 */
+	private void checkPosition(Position<E> p) throws InvalidPositionException {
+		if(!entries.containsKey(p)) {													//every position of the list has an entry
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+	}
+
+	/**
+	 * Indexes a position under its element's key. The first position of a key is
+	 * stored as it is; the second one turns the key's entry into a bucket.
+	 *
+	 * @param p   the position
+	 * @param key the key of its element
+	 * @return    p
+	 */
+	private Position<E> index(Position<E> p, K key) {
+		Object value = index.get(key);
+		if(value == null) {																//if the key is new
+			index.put(key, p);															//no bucket for a single position
+			entries.put(p, null);
+			return p;
+		}
+		NodePositionalList<Position<E>> bucket;
+		if(value instanceof NodePositionalList) {										//if the key already has a bucket
+			bucket = bucket(value);
+		}
+		else {																			//the second position of the key
+			bucket = new NodePositionalList<Position<E>>(0);							//a bucket without a node pool
+			Position<E> first = position(value);
+			entries.put(first, bucket.addLast(first));									//the first position goes first
+			index.put(key, bucket);
+		}
+		entries.put(p, bucket.addLast(p));												//remember its entry in the bucket
+		return p;																		//return the position
+	}
+
+	/**
+	 * Removes a position from the index. A bucket left with one position turns back
+	 * into that position, and the key leaves the index with its last position.
+	 *
+	 * @param p   the position, which has to be indexed
+	 * @param key the key of its element
+	 */
+	private void unindex(Position<E> p, K key) {
+		Position<Position<E>> entry = entries.remove(p);
+		if(entry == null) {																//if p is the only position of the key
+			index.remove(key);
+			return;
+		}
+		NodePositionalList<Position<E>> bucket = bucket(index.get(key));
+		try {
+			bucket.remove(entry);														//O(1) through the entry
+		}
+		catch(InvalidPositionException e) {												//entries always belong to their bucket
+			throw new IllegalStateException(e);
+		}
+		if(bucket.size() == 1) {														//if one position is left
+			Position<E> last = bucket.first().getElement();
+			index.put(key, last);														//store it without the bucket
+			entries.put(last, null);
+		}
+	}
+
+	/** Returns an index value that holds a bucket as the bucket. */
+	@SuppressWarnings("unchecked")
+	private NodePositionalList<Position<E>> bucket(Object value) {
+		return (NodePositionalList<Position<E>>) value;
+	}
+
+	/** Returns an index value that holds a single position as the position. */
+	@SuppressWarnings("unchecked")
+	private Position<E> position(Object value) {
+		return (Position<E>) value;
+	}
+
+	/**
+	 * Returns a string representation of the list
+	 *
+	 * @return a string representation of the list
+	 */
+	public String toString() {
+		return list.toString();															//the list itself
+	}
+}
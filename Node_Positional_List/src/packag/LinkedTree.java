@@ -1,6 +1,19 @@
 package packag;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 public class LinkedTree<E> implements Tree<E> {
 	
@@ -10,6 +23,12 @@ public class LinkedTree<E> implements Tree<E> {
 		private E element;																		//element stored at this node
 		private TreePosition<E> parent; 														//adjacent node
 		private PositionalList<Position<E>> children;											//children nodes
+		private int childCount = 0;																//number of children, kept in augmented mode
+		private int subtreeSize = 1;															//number of nodes in the subtree rooted here, kept in augmented mode
+		private int depth = 0;																	//number of ancestors, kept in augmented mode
+		private int height = 0;																	//longest path down to a leaf, kept in augmented mode
+		private Position<Position<E>> entry;													//entry of this node in the children list of its parent
+		private LinkedTree<?> owner = LinkedTree.this;											//tree the node belongs to, null once it is removed
 		
 		/**
 		 * Constructs a tree node with an element, parent and children
@@ -118,10 +137,478 @@ public class LinkedTree<E> implements Tree<E> {
 		}
 	}
 	//----------------------------end of nested ElementIterator class--------------------
+
+	//----------------------------nested traversal classes-----------------------
+	/** The orders in which the traversal iterators report positions. */
+	private enum Traversal { PREORDER, POSTORDER, BREADTH_FIRST }
+
+	/** This class constructs and returns a new traversal iterator each time iterator() is called. */
+	private class TraversalIterable implements Iterable<Position<E>> {
+
+		private final Traversal order;															//order of the iterators handed out
+
+		/**
+		 * Constructs an iterable for the given traversal order.
+		 * 
+		 * @param order the traversal order
+		 */
+		private TraversalIterable(Traversal order) {
+			this.order = order;																	//sets order to the value of order
+		}
+
+		/** Returns an iterator over the positions in the traversal order.
+		 * 
+		 * @return an iterator over the positions of the tree
+		 */
+		@Override
+		public Iterator<Position<E>> iterator() {
+			Position<E> start = root();															//null if the tree is empty
+			Iterator<Position<E>> iterator;
+			switch(order) {
+				case PREORDER:
+					iterator = new PreorderIterator<E>(start);
+					break;
+				case POSTORDER:
+					iterator = new PostorderIterator<E>(start);
+					break;
+				default:
+					iterator = new BreadthFirstIterator<E>(start);
+			}
+			return metrics == null ? iterator : metrics.meter(iterator, order.name().toLowerCase());	//metered if metrics are on
+		}
+
+		/** This class does not need the positions() method, therefore it returns null. */
+		@Override
+		public Iterable<Position<E>> positions() {
+			return null;																		//returns null
+		}
+	}
+
+	/**
+	 * This class reports positions in preorder. It keeps one child iterator per level
+	 * on a stack, so it needs memory proportional to the depth of the tree.
+	 */
+	private static class PreorderIterator<T> implements Iterator<Position<T>> {
+
+		private final ArrayDeque<Iterator<Position<T>>> stack = new ArrayDeque<>();				//child iterators of the nodes on the current path
+		private Position<T> next;																//next position to report, null at the end
+
+		/**
+		 * Constructs an iterator starting at the given position.
+		 * 
+		 * @param start the root of the traversal, or null for an empty one
+		 */
+		private PreorderIterator(Position<T> start) {
+			next = start;																		//the root comes first
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;																//true until every position was reported
+		}
+
+		@Override
+		public Position<T> next() {
+			if(next == null) {																	//if there is no next position
+				throw new java.util.NoSuchElementException("No next element");					//throw exception
+			}
+			Position<T> current = next;															//position to report
+			Iterator<Position<T>> children = childIterator(current);							//its children come next
+			if(children != null) {
+				stack.push(children);
+			}
+			next = null;
+			while(!stack.isEmpty()) {															//find the next unreported child on the path
+				Iterator<Position<T>> top = stack.peek();
+				if(top.hasNext()) {
+					next = top.next();
+					break;
+				}
+				stack.pop();																	//every child of this level was reported
+			}
+			return current;																		//return the position
+		}
+	}
+
+	/**
+	 * This class reports positions in postorder. It keeps the path from the root to the
+	 * next position on a stack, together with a child iterator for each node on it.
+	 */
+	private static class PostorderIterator<T> implements Iterator<Position<T>> {
+
+		private final ArrayDeque<Position<T>> path = new ArrayDeque<>();						//nodes whose subtrees are not finished
+		private final ArrayDeque<Iterator<Position<T>>> children = new ArrayDeque<>();			//child iterator of each node on the path
+
+		/**
+		 * Constructs an iterator starting at the given position.
+		 * 
+		 * @param start the root of the traversal, or null for an empty one
+		 */
+		private PostorderIterator(Position<T> start) {
+			if(start != null) {
+				descend(start);																	//the first position is the leftmost leaf
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !path.isEmpty();																//true until the root was reported
+		}
+
+		@Override
+		public Position<T> next() {
+			if(path.isEmpty()) {																//if there is no next position
+				throw new java.util.NoSuchElementException("No next element");					//throw exception
+			}
+			Position<T> current = path.pop();													//every child of the top node is done
+			children.pop();
+			if(!children.isEmpty()) {															//if the parent has more children
+				Iterator<Position<T>> siblings = children.peek();
+				if(siblings.hasNext()) {
+					descend(siblings.next());													//the next position is in the next sibling's subtree
+				}
+			}
+			return current;																		//return the position
+		}
+
+		/**
+		 * Pushes node and its first descendants down to the leftmost leaf below it.
+		 * 
+		 * @param node the root of the subtree to enter
+		 */
+		private void descend(Position<T> node) {
+			while(node != null) {
+				Iterator<Position<T>> iterator = childIterator(node);							//children of the node
+				path.push(node);
+				children.push(iterator == null ? noChildren() : iterator);						//deques do not take null
+				node = iterator == null ? null : iterator.next();								//go down to the first child
+			}
+		}
+
+		/** Returns an iterator without children, standing in for null on the stack. */
+		private static <T> Iterator<Position<T>> noChildren() {
+			return java.util.Collections.emptyIterator();										//an empty iterator
+		}
+	}
+
+	/**
+	 * This class reports positions level by level, left to right. It keeps the
+	 * positions still to report in a queue, so it needs memory proportional to the
+	 * width of the tree.
+	 */
+	private static class BreadthFirstIterator<T> implements Iterator<Position<T>> {
+
+		private final ArrayDeque<Position<T>> queue = new ArrayDeque<>();						//positions still to report, in order
+
+		/**
+		 * Constructs an iterator starting at the given position.
+		 * 
+		 * @param start the root of the traversal, or null for an empty one
+		 */
+		private BreadthFirstIterator(Position<T> start) {
+			if(start != null) {
+				queue.add(start);																//the root comes first
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !queue.isEmpty();															//true until every position was reported
+		}
+
+		@Override
+		public Position<T> next() {
+			Position<T> current = queue.poll();													//position to report
+			if(current == null) {																//if there is no next position
+				throw new java.util.NoSuchElementException("No next element");					//throw exception
+			}
+			Iterator<Position<T>> children = childIterator(current);							//its children go to the back of the queue
+			while(children != null && children.hasNext()) {
+				queue.add(children.next());
+			}
+			return current;																		//return the position
+		}
+	}
+	//----------------------------end of nested traversal classes--------------------
+
+	//----------------------------nested SubtreeSpliterator class-----------------------
+	/**
+	 * This class reports elements in preorder and splits by subtree: the first half of
+	 * the pending subtrees goes to the new spliterator. When only one subtree is left
+	 * its root is reported on its own and its children become the pending subtrees.
+	 */
+	private class SubtreeSpliterator implements Spliterator<E> {
+
+		private TreePosition<E> single;															//node to report on its own before the subtrees, or null
+		private final ArrayDeque<TreePosition<E>> pending;										//roots of the subtrees still to report, in order
+		private long estimate;																	//estimated number of elements left
+
+		/**
+		 * Constructs a spliterator over the given subtrees.
+		 *
+		 * @param single   a node to report first on its own, or null
+		 * @param pending  the roots of the subtrees to report, in order
+		 * @param estimate the estimated number of elements
+		 */
+		private SubtreeSpliterator(TreePosition<E> single, ArrayDeque<TreePosition<E>> pending, long estimate) {
+			this.single = single;																//sets single to the value of single
+			this.pending = pending;																//sets pending to the value of pending
+			this.estimate = estimate;															//sets estimate to the value of estimate
+		}
+
+		/** Reports the next element in preorder, if there is one.
+		 *
+		 * @param action the action applied to the element
+		 * @return       true if an element was reported, false when nothing is left
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			TreePosition<E> node = single;														//the lone node goes first
+			if(node != null) {
+				single = null;
+			}
+			else {
+				node = pending.pollFirst();														//otherwise the root of the next subtree
+				if(node == null) {																//if nothing is left
+					return false;
+				}
+				pushChildren(node);																//its children come right after it
+			}
+			if(estimate > 0) {
+				estimate--;
+			}
+			action.accept(node.getElement());													//report the element
+			return true;
+		}
+
+		/** Hands the first half of the pending subtrees to a new spliterator.
+		 *
+		 * @return a spliterator over the first half, or null if there is nothing to split
+		 */
+		@Override
+		public Spliterator<E> trySplit() {
+			if(single == null && pending.size() == 1) {											//if one subtree is left
+				single = pending.pollFirst();													//report its root on its own
+				pushChildren(single);															//and split among its children
+			}
+			int count = pending.size() / 2;														//subtrees that go to the new spliterator
+			if(count == 0 && (single == null || pending.isEmpty())) {							//if there is only one item
+				return null;
+			}
+			ArrayDeque<TreePosition<E>> prefix = new ArrayDeque<>(count);						//the first subtrees
+			for(int i = 0; i < count; i++) {
+				prefix.addLast(pending.pollFirst());
+			}
+			long half = estimate >>> 1;															//split the estimate evenly
+			estimate -= half;
+			SubtreeSpliterator split = new SubtreeSpliterator(single, prefix, half);			//the lone node goes with the first half
+			single = null;
+			return split;																		//return the first half
+		}
+
+		/** Returns the estimated number of elements left.
+		 *
+		 * @return the estimated number of elements left
+		 */
+		@Override
+		public long estimateSize() {
+			return estimate;																	//returns the estimate
+		}
+
+		/** Returns the characteristics of the spliterator.
+		 *
+		 * @return ORDERED
+		 */
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;															//subtree sizes are not known
+		}
+
+		/**
+		 * Puts the children of node at the front of the pending subtrees, in order.
+		 *
+		 * @param node the node whose children are pushed
+		 */
+		private void pushChildren(TreePosition<E> node) {
+			if(node.getChildren() == null) {													//if the node has no children list
+				return;																			//there is nothing below it
+			}
+			ArrayList<TreePosition<E>> children = new ArrayList<>();							//the children in order
+			for(Position<E> child : node.getChildren()) {
+				children.add((TreePosition<E>) child);
+			}
+			for(int i = children.size() - 1; i >= 0; i--) {										//push them last to first
+				pending.addFirst(children.get(i));
+			}
+		}
+	}
+	//----------------------------end of nested SubtreeSpliterator class--------------------
+
+	//----------------------------nested SubtreeReduction class-----------------------
+	/**
+	 * This class reduces either one subtree or a run of sibling subtrees. A run is cut
+	 * in two halves of about the same number of nodes, one of which is forked, until it
+	 * is light enough to fold on this thread: in augmented mode when it holds at most
+	 * the size threshold of nodes, otherwise when the pool already has work queued.
+	 * Below the fork depth everything is folded sequentially in preorder. Results are
+	 * combined in child order, so the outcome is that of a preorder fold.
+	 */
+	private static class SubtreeReduction<T, R> extends RecursiveTask<R> {
+
+		private static final long serialVersionUID = 1L;
+		private static final int MAX_SURPLUS = 3;												//queued tasks that are enough to keep the pool busy
+
+		private final Position<T> node;															//root of the subtree to reduce, null for a run
+		private final ArrayList<Position<T>> children;											//siblings the run is taken from, null for a subtree
+		private final long[] weight;															//weight[i] is the size of children 0 to i-1
+		private final int lo;																	//first child of the run
+		private final int hi;																	//child after the last one of the run
+		private final int depth;																//depth of node, or of the run, below the root of the reduction
+		private final int forkDepth;															//depth from which subtrees are reduced sequentially
+		private final int threshold;															//size of a run that is reduced sequentially
+		private final ToIntFunction<Position<T>> sizeOf;										//subtree sizes, null if they are not cached
+		private final Function<? super T, ? extends R> mapper;									//maps each element to a value
+		private final BinaryOperator<R> combiner;												//combines values, must be associative
+
+		/**
+		 * Constructs a task that reduces the subtree rooted at node.
+		 *
+		 * @param node      the root of the subtree
+		 * @param forkDepth the depth from which subtrees are reduced sequentially
+		 * @param threshold the size of a run that is reduced sequentially
+		 * @param sizeOf    the cached subtree sizes, or null
+		 * @param mapper    maps each element to a value
+		 * @param combiner  combines values
+		 */
+		private SubtreeReduction(Position<T> node, int forkDepth, int threshold, ToIntFunction<Position<T>> sizeOf, Function<? super T, ? extends R> mapper, BinaryOperator<R> combiner) {
+			this.node = node;																	//sets node to the value of node
+			this.children = null;
+			this.weight = null;
+			this.lo = 0;
+			this.hi = 0;
+			this.depth = 0;
+			this.forkDepth = forkDepth;															//sets forkDepth to the value of forkDepth
+			this.threshold = threshold;															//sets threshold to the value of threshold
+			this.sizeOf = sizeOf;																//sets sizeOf to the value of sizeOf
+			this.mapper = mapper;																//sets mapper to the value of mapper
+			this.combiner = combiner;															//sets combiner to the value of combiner
+		}
+
+		/**
+		 * Constructs a task that reduces a run of siblings with the settings of parent.
+		 *
+		 * @param parent   the task the run is split off from
+		 * @param children the siblings
+		 * @param weight   the prefix sums of their sizes
+		 * @param lo       the first child of the run
+		 * @param hi       the child after the last one of the run
+		 * @param depth    the depth of the siblings
+		 */
+		private SubtreeReduction(SubtreeReduction<T, R> parent, ArrayList<Position<T>> children, long[] weight, int lo, int hi, int depth) {
+			this.node = null;
+			this.children = children;															//sets children to the value of children
+			this.weight = weight;																//sets weight to the value of weight
+			this.lo = lo;																		//sets lo to the value of lo
+			this.hi = hi;																		//sets hi to the value of hi
+			this.depth = depth;																	//sets depth to the value of depth
+			this.forkDepth = parent.forkDepth;
+			this.threshold = parent.threshold;
+			this.sizeOf = parent.sizeOf;
+			this.mapper = parent.mapper;
+			this.combiner = parent.combiner;
+		}
+
+		/** Reduces the subtree or the run.
+		 *
+		 * @return the combined value of every element in it
+		 */
+		@Override
+		protected R compute() {
+			return node != null ? subtree(node, depth) : run(lo, hi);							//whichever this task stands for
+		}
+
+		/**
+		 * Reduces the subtree rooted at a node: its own value, then its children as one run.
+		 *
+		 * @param top   the root of the subtree
+		 * @param level its depth below the root of the reduction
+		 * @return      the combined value of every element in the subtree
+		 */
+		private R subtree(Position<T> top, int level) {
+			if(level >= forkDepth || (sizeOf != null && sizeOf.applyAsInt(top) <= threshold)) {	//if the subtree is deep or small enough
+				return reduceSequentially(top, mapper, combiner);								//fold it on this thread
+			}
+			R result = mapper.apply(top.getElement());											//value of the node itself
+			Iterator<Position<T>> it = childIterator(top);										//its children
+			if(it == null) {																	//if it is a leaf
+				return result;
+			}
+			ArrayList<Position<T>> list = new ArrayList<>();
+			while(it.hasNext()) {
+				list.add(it.next());
+			}
+			long[] sums = new long[list.size() + 1];											//prefix sums of the child sizes
+			for(int i = 0; i < list.size(); i++) {
+				sums[i + 1] = sums[i] + (sizeOf != null ? sizeOf.applyAsInt(list.get(i)) : 1);	//one per child if sizes are unknown
+			}
+			R rest = new SubtreeReduction<T, R>(this, list, sums, 0, list.size(), level + 1).compute();	//the children, on this thread
+			return combiner.apply(result, rest);												//the node comes first
+		}
+
+		/**
+		 * Reduces a run of the children in order, splitting it while it is heavy enough.
+		 *
+		 * @param from the first child of the run
+		 * @param to   the child after the last one of the run
+		 * @return     the combined value of every element in the run
+		 */
+		private R run(int from, int to) {
+			if(to - from == 1) {																//if the run is one subtree
+				return subtree(children.get(from), depth);										//go down into it
+			}
+			boolean light = sizeOf != null ? weight[to] - weight[from] <= threshold : getSurplusQueuedTaskCount() > MAX_SURPLUS;
+			if(depth >= forkDepth || light) {													//if splitting does not pay
+				R result = reduceSequentially(children.get(from), mapper, combiner);
+				for(int i = from + 1; i < to; i++) {											//fold the subtrees in order
+					result = combiner.apply(result, reduceSequentially(children.get(i), mapper, combiner));
+				}
+				return result;
+			}
+			long half = weight[from] + (weight[to] - weight[from]) / 2;							//weight at the middle of the run
+			int low = from + 1;																	//find the first cut at or past the middle
+			int high = to - 1;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(weight[mid] < half) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			SubtreeReduction<T, R> left = new SubtreeReduction<>(this, children, weight, from, low, depth);
+			left.fork();																		//the first half on another thread
+			R right = run(low, to);																//the second half on this one
+			return combiner.apply(left.join(), right);											//the first half comes first
+		}
+	}
+	//----------------------------end of nested SubtreeReduction class--------------------
 	
 	protected TreePosition<E> root;																//root of the tree
 	protected int size;																			//number of nodes in the tree 
 	protected E element;																		//element to be stored in a node
+	protected int modCount = 0;																	//number of structural changes, used to spot stale indexes
+	private AncestorIndex<E> ancestorIndex = null;												//query index, created on first use
+	private boolean augmented = false;															//true while every node caches its counts
+	private ForkJoinPool reducePool = null;														//pool of a dedicated parallelism, null for the common pool
+	private Cleaner.Cleanable reducePoolShutdown = null;										//shuts reducePool down, at the latest when the tree is collected
+	private int forkDepth = DEFAULT_FORK_DEPTH;													//depth from which reduce() stays sequential
+	private int sizeThreshold = DEFAULT_SIZE_THRESHOLD;											//subtree size from which reduce() stays sequential
+	private StructureMetrics metrics = null;													//operation counters, null while not instrumented
+
+	private static final int DEFAULT_FORK_DEPTH = 8;											//forks at most the top eight levels
+	private static final int DEFAULT_SIZE_THRESHOLD = 1 << 12;									//runs of at most 4096 nodes are not split
+	private static final Cleaner POOL_CLEANER = Cleaner.create();								//shuts down the pools of collected trees
 	
 	/**
 	 * Constructor that creates an empty linked tree
@@ -143,6 +630,7 @@ public class LinkedTree<E> implements Tree<E> {
 		this.root = root;																		//this.root is set to root
 		element = elem;																			//element is set to elem
 		size = 1;																				//size is set to one
+		setOwner(root, this);																	//the nodes now belong to this tree
 	}
 	
 	/**
@@ -163,6 +651,7 @@ public class LinkedTree<E> implements Tree<E> {
 			LinkedTree<E> subtree = (LinkedTree<E>) subtrees.first();							//creates a subtree that holds the first element in the subtrees list
 			TreeNode<E> node = (LinkedTree<E>.TreeNode<E>) subtree.root();						//node becomes the root of the subtree
 			node.setParent(root);																//the variable 'root' becomes the root of 'node'
+			setOwner(node, this);																//its nodes now belong to this tree
 			kids.addLast((E) node);																//'node' is added to the end of the 'kids' positional list
 			subtrees.remove(subtrees.first());													//remove the first element from the subtrees positional list
 			y++;																				//increment y
@@ -219,6 +708,9 @@ public class LinkedTree<E> implements Tree<E> {
 	@Override
 	public Iterable<Position<E>> children(Position<E> p) throws InvalidPositionException {
 		TreePosition<E> node = checkPosition(p);												//check if p is a valid position
+		if(node.getChildren() == null) {														//if the node never had children
+			return new NodePositionalList<Position<E>>();										//it has an empty collection of them
+		}
 		return (Iterable<Position<E>>) node.getChildren();										//return an iterable collection containing the children of position p
 	}
 
@@ -231,8 +723,13 @@ public class LinkedTree<E> implements Tree<E> {
 	@Override
 	public int numChildren(Position<E> p) {
 		TreePosition<E> node = (TreePosition<E>) p;												//check if p is a valid position
+		if(augmented) {																			//if the count is cached
+			return treeNode(node).childCount;													//return it
+		}
 		int count = 0;																			//variable to hold the number of children
-		while(node.getChildren().iterator().hasNext()) {										//while there is a next child
+		Iterator<Position<E>> children = childIterator(node);									//one iterator over all the children
+		while(children != null && children.hasNext()) {											//while there is a next child
+			children.next();
 			count++;																			//increment count by 1
 		}
 		return count;																			//return the count
@@ -248,7 +745,7 @@ public class LinkedTree<E> implements Tree<E> {
 	@Override
 	public boolean isInternal(Position<E> p) throws InvalidPositionException {
 		TreePosition<E> node = checkPosition(p);												//check if p is a valid position
-		if(numChildren(node) == 0) {															//if number of children is 0
+		if(!hasChildren(node)) {																//if number of children is 0
 			return false;																		//return false
 		}
 		else {
@@ -264,7 +761,7 @@ public class LinkedTree<E> implements Tree<E> {
 	 */
 	@Override
 	public boolean isExternal(Position<E> p) {
-		if(numChildren(p) == 0) {																//if number of children is 0
+		if(!hasChildren(p)) {																	//if number of children is 0
 			return true;																		//return true
 		}
 		return false;																			//else return false
@@ -317,6 +814,22 @@ public class LinkedTree<E> implements Tree<E> {
 	public Iterable<E> positions() {
 		return (Iterable<E>) preorder();														//return a preorder representation of the list's positions
 	}
+
+	/**
+	 * Returns a spliterator over the elements of the tree in preorder. It splits by
+	 * subtree, so parallel streams hand whole subtrees to different workers.
+	 *
+	 * @return a spliterator over the elements of the tree
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		if(isEmpty()) {																			//if the tree is empty
+			return Spliterators.emptySpliterator();												//there is nothing to report
+		}
+		ArrayDeque<TreePosition<E>> pending = new ArrayDeque<>();								//the whole tree is one subtree
+		pending.addLast(root);
+		return new SubtreeSpliterator(null, pending, size);										//spliterator over the tree
+	}
 	
 	/**
 	 * Checks whether the passed position is a valid tree node
@@ -327,10 +840,24 @@ public class LinkedTree<E> implements Tree<E> {
 	 */
 	protected TreePosition<E> checkPosition(Position<E> v) throws InvalidPositionException { 
 		if (v == null || !(v instanceof TreePosition)) {										//if v does not exist or v is not a node
-			throw new InvalidPositionException("The position is invalid");						//throw exception
+			throw invalid("The position is invalid");											//throw exception
+		}
+		if (v instanceof LinkedTree.TreeNode && ((LinkedTree<?>.TreeNode<?>) v).owner != this) {	//if v was removed or belongs to another tree
+			throw invalid("The position is not in this tree");									//throw exception
 		}
 		return (TreePosition<E>) v;																//return the position of the tree  node v
 	}
+
+	/**
+	 * Creates the exception for a rejected position, counting it if metrics are on.
+	 * 
+	 * @param message the message of the exception
+	 * @return        the exception to throw
+	 */
+	private InvalidPositionException invalid(String message) {
+		InvalidPositionException e = new InvalidPositionException(message);
+		return metrics == null ? e : metrics.invalid(e);										//count and report it if metrics are on
+	}
 	
 	/**
 	 * Adds a root node to an empty tree
@@ -345,6 +872,10 @@ public class LinkedTree<E> implements Tree<E> {
 		}
 		root = new TreeNode(e, null, null);														//create a root for the tree
 		size = 1;																				//size of the tree becomes 1
+		modCount++;																				//the structure changed
+		if(metrics != null) {																	//if operations are counted
+			metrics.added(size);
+		}
 		return root;																			//return the root of the tree
 	}
 	
@@ -358,11 +889,565 @@ public class LinkedTree<E> implements Tree<E> {
 	 * @return			the new tree node
 	 */
 	protected TreePosition<E> createNode(E element, TreePosition<E> parent, PositionalList<Position<E>> children){
-		return new TreeNode<E>(element,parent,children);										//return the new tree node
+		try {
+			return createNode(element, parent, children, null, false);							//append it to the children of parent
+		}
+		catch(InvalidPositionException e) {														//there is no anchor that could be invalid
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates a new tree node and links it under parent: at the end of its children
+	 * if anchor is null, otherwise right before or after the sibling anchor.
+	 * 
+	 * @param element  the element in the new tree node
+	 * @param parent   the parent node of the new tree node, or null
+	 * @param children the children of the new tree node
+	 * @param anchor   a child of parent to link next to, or null to append
+	 * @param before   true to link before anchor, false to link after it
+	 * @return         the new tree node
+	 * @throws         InvalidPositionException if anchor is not in the children list of parent
+	 */
+	private TreePosition<E> createNode(E element, TreePosition<E> parent, PositionalList<Position<E>> children, TreePosition<E> anchor, boolean before) throws InvalidPositionException {
+		TreeNode<E> node = new TreeNode<E>(element,null,children);								//the new tree node
+		if(augmented) {																			//if counts are cached
+			measure(node, 0);																	//count the subtree it comes with
+		}
+		if(parent != null && anchor == null) {													//if it goes at the end of the children
+			attach(node, parent);																//make it the last child of the parent
+		}
+		else if(parent != null) {																//if it goes next to a sibling
+			link(node, parent, anchor, before);													//link it next to anchor
+			size += setOwner(node, this);														//the tree holds the new nodes
+		}
+		if(metrics != null) {																	//if operations are counted
+			metrics.added(size);
+		}
+		return node;																			//return the new tree node
+	}
+
+	/**
+	 * Makes the subtree rooted at child the last child of parent and adds its nodes to
+	 * the tree and its size, so they pass checkPosition again after a detach.
+	 * 
+	 * @param child  the root of a subtree that has no parent
+	 * @param parent the node that receives the subtree
+	 */
+	protected void attach(TreePosition<E> child, TreePosition<E> parent) {
+		try {
+			link(child, parent, null, false);													//append child
+		}
+		catch(InvalidPositionException e) {														//there is no anchor that could be invalid
+			throw new IllegalStateException(e);
+		}
+		size += setOwner(child, this);															//the tree holds the new nodes
+	}
+
+	/**
+	 * Unlinks the subtree rooted at node from its parent and removes its nodes from the
+	 * size of the tree; detaching the root empties the tree. The nodes of the subtree
+	 * are marked as removed, so checkPosition rejects them from then on.
+	 * 
+	 * @param node the root of the subtree to unlink
+	 * @throws     InvalidPositionException if node is neither the root nor linked to a parent
+	 */
+	protected void detach(TreePosition<E> node) throws InvalidPositionException {
+		if(node == root) {																		//if node is the root
+			setOwner(node, null);																//every node leaves the tree
+			root = null;																		//the tree is empty
+			size = 0;
+			modCount++;																			//the structure changed
+			return;
+		}
+		if(node.getParent() == null) {															//if node is not linked into the tree
+			throw invalid("The position is not in this tree");									//throw exception
+		}
+		cut(node);																				//unlink node from the parent
+		size -= setOwner(node, null);															//the tree loses the nodes
+	}
+
+	/**
+	 * Sets the owner of every TreeNode in the subtree rooted at top: this tree when
+	 * nodes join it, null when they leave it.
+	 * 
+	 * @param top   the root of the subtree
+	 * @param owner the tree the nodes now belong to, or null if they were removed
+	 * @return      the number of nodes in the subtree
+	 */
+	private int setOwner(Position<E> top, LinkedTree<E> owner) {
+		if(top instanceof LinkedTree.TreeNode) {												//a single new leaf needs no walk
+			LinkedTree<?>.TreeNode<?> node = (LinkedTree<?>.TreeNode<?>) top;
+			if(node.children == null || node.children.isEmpty()) {
+				node.owner = owner;
+				return 1;
+			}
+		}
+		int count = 0;
+		for(Iterator<Position<E>> it = new PreorderIterator<E>(top); it.hasNext(); count++) {	//visit every node
+			Position<E> p = it.next();
+			if(p instanceof LinkedTree.TreeNode) {												//only TreeNodes record their owner
+				((LinkedTree<?>.TreeNode<?>) p).owner = owner;
+			}
+		}
+		return count;																			//return the number of nodes
+	}
+
+	/**
+	 * Links the subtree rooted at child into the children list of parent: at the end
+	 * if anchor is null, otherwise right before or after the sibling anchor. Runs in
+	 * O(1) plus, in augmented mode, a walk up the ancestor path that updates the cached
+	 * counts; the depths inside the subtree are shifted if it lands on a new level.
+	 * The size of the tree is left to the caller.
+	 * 
+	 * @param child  the root of a subtree that has no parent
+	 * @param parent the node that receives the subtree
+	 * @param anchor a child of parent to link next to, or null to append
+	 * @param before true to link before anchor, false to link after it
+	 * @throws       InvalidPositionException if anchor is not in the children list of parent
+	 */
+	private void link(TreePosition<E> child, TreePosition<E> parent, TreePosition<E> anchor, boolean before) throws InvalidPositionException {
+		if(parent.getChildren() == null) {														//if the parent has no children list yet
+			parent.setChildren(new NodePositionalList<Position<E>>());							//give it one
+		}
+		PositionalList<Position<E>> siblings = childList(parent);								//children of the parent
+		Position<Position<E>> entry;															//entry of child in that list
+		if(anchor == null) {
+			entry = siblings.addLast(child);													//add child at the end
+		}
+		else if(before) {
+			entry = siblings.addBefore(entryOf(anchor, siblings), child);						//add child before anchor
+		}
+		else {
+			entry = siblings.addAfter(entryOf(anchor, siblings), child);						//add child after anchor
+		}
+		if(child instanceof LinkedTree.TreeNode) {												//if the node can remember its entry
+			((LinkedTree<E>.TreeNode<E>) child).entry = entry;
+		}
+		child.setParent(parent);																//link child up
+		modCount++;																				//the structure changed
+		if(!augmented) {
+			return;
+		}
+		TreeNode<E> node = treeNode(child);														//cached counts of the subtree
+		TreeNode<E> above = treeNode(parent);
+		shiftDepth(node, above.depth + 1);														//place the subtree one level below parent
+		above.childCount++;																		//one child more
+		int height = node.height + 1;															//height parent gets through the new child
+		for(TreeNode<E> a = above; a != null; a = treeNode(a.getParent())) {					//for every ancestor
+			a.subtreeSize += node.subtreeSize;													//it holds the new nodes
+			if(a.height < height) {																//if the new subtree is the deepest below it
+				a.height = height;
+			}
+			height = a.height + 1;																//height the next ancestor gets through this one
+		}
+	}
+
+	/**
+	 * Returns the children list of a node with the unchecked cast in one place. Every
+	 * children list of this tree is a NodePositionalList of positions.
+	 *
+	 * @param parent a node that has a children list
+	 * @return       its children list
+	 */
+	@SuppressWarnings("unchecked")
+	private PositionalList<Position<E>> childList(TreePosition<E> parent) {
+		return (PositionalList<Position<E>>) parent.getChildren();								//the list behind the iterable
+	}
+
+	/**
+	 * Unlinks node from the children list of its parent. Runs in O(1) plus, in
+	 * augmented mode, a walk up the ancestor path that updates the cached counts; an
+	 * ancestor whose height may have shrunk looks at its children to find the new one.
+	 * The size of the tree is left to the caller.
+	 * 
+	 * @param node a node that has a parent
+	 * @throws     InvalidPositionException if node is not in the children list of its parent
+	 */
+	private void cut(TreePosition<E> node) throws InvalidPositionException {
+		TreePosition<E> parent = node.getParent();
+		PositionalList<Position<E>> siblings = childList(parent);								//children of the parent
+		siblings.remove(entryOf(node, siblings));												//unlink node from the parent
+		if(node instanceof LinkedTree.TreeNode) {
+			((LinkedTree<E>.TreeNode<E>) node).entry = null;									//it has no entry any more
+		}
+		node.setParent(null);
+		modCount++;																				//the structure changed
+		if(!augmented) {
+			return;
+		}
+		TreeNode<E> above = treeNode(parent);
+		int removed = treeNode(node).subtreeSize;												//number of nodes below parent that leave
+		above.childCount--;																		//one child less
+		boolean shrinking = treeNode(node).height + 1 == above.height;							//true while heights may drop
+		for(TreeNode<E> a = above; a != null; a = treeNode(a.getParent())) {					//for every ancestor
+			a.subtreeSize -= removed;															//it loses the nodes
+			if(shrinking) {																		//if its height may have come from the removed subtree
+				int height = childHeight(a);													//recompute it from its children
+				shrinking = height < a.height;													//only a drop can change the ancestors
+				a.height = height;
+			}
+		}
+	}
+
+	/**
+	 * Returns the entry of node in the given children list. TreeNodes remember their
+	 * entry, so this is O(1) for them; other positions, or nodes whose list was
+	 * replaced through setChildren, are looked up by a scan of the list.
+	 * 
+	 * @param node     a child in the list
+	 * @param siblings the children list of its parent
+	 * @return         the entry of node in the list
+	 * @throws         InvalidPositionException if node is not in the list
+	 */
+	private Position<Position<E>> entryOf(TreePosition<E> node, PositionalList<Position<E>> siblings) throws InvalidPositionException {
+		if(node instanceof LinkedTree.TreeNode) {												//if the node may know its entry
+			Position<Position<E>> entry = ((LinkedTree<E>.TreeNode<E>) node).entry;
+			try {
+				if(entry != null && entry.getElement() == node) {								//if the entry still holds the node
+					return entry;
+				}
+			}
+			catch(IllegalArgumentException e) {													//the entry was removed from its list behind our back
+			}
+		}
+		Position<Position<E>> entry = siblings.first();											//look for node among the children
+		while(entry != null && entry.getElement() != node) {
+			entry = siblings.after(entry);
+		}
+		if(entry == null) {																		//if node is not among the children
+			throw invalid("The position is invalid");											//throw exception
+		}
+		return entry;																			//return the entry
+	}
+
+	/**
+	 * Adds a node holding e as the last child of Position p and returns it. Runs in
+	 * O(1), plus the ancestor walk in augmented mode.
+	 * 
+	 * @param p the position of the parent
+	 * @param e the element in the new node
+	 * @return  the position of the new node
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public Position<E> addChild(Position<E> p, E e) throws InvalidPositionException {
+		return createNode(e, checkPosition(p), null);											//create and append the node
+	}
+
+	/**
+	 * Adds a node holding e right before Position sibling, under the same parent, and
+	 * returns it. Runs in O(1), plus the ancestor walk in augmented mode.
+	 * 
+	 * @param sibling the position the new node goes before
+	 * @param e       the element in the new node
+	 * @return        the position of the new node
+	 * @throws        InvalidPositionException if sibling is invalid or the root
+	 */
+	public Position<E> addChildBefore(Position<E> sibling, E e) throws InvalidPositionException {
+		return addSibling(sibling, e, true);													//link the node before sibling
+	}
+
+	/**
+	 * Adds a node holding e right after Position sibling, under the same parent, and
+	 * returns it. Runs in O(1), plus the ancestor walk in augmented mode.
+	 * 
+	 * @param sibling the position the new node goes after
+	 * @param e       the element in the new node
+	 * @return        the position of the new node
+	 * @throws        InvalidPositionException if sibling is invalid or the root
+	 */
+	public Position<E> addChildAfter(Position<E> sibling, E e) throws InvalidPositionException {
+		return addSibling(sibling, e, false);													//link the node after sibling
+	}
+
+	/**
+	 * Removes the subtree rooted at Position p and returns the number of nodes removed.
+	 * Removing the root empties the tree. Runs in time proportional to the size of the
+	 * subtree (plus the ancestor walk in augmented mode): every removed node is marked,
+	 * so its position, and the positions below it, are rejected from then on.
+	 * 
+	 * @param p the root of the subtree
+	 * @return  the number of nodes removed
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int removeSubtree(Position<E> p) throws InvalidPositionException {
+		TreePosition<E> node = checkPosition(p);												//check if p is a valid position
+		int before = size;
+		detach(node);																			//unlink the subtree and shrink the size
+		if(metrics != null) {																	//if operations are counted
+			metrics.removed(before - size, size);
+		}
+		return before - size;																	//return the number of nodes removed
+	}
+
+	/**
+	 * Moves the subtree rooted at Position p to the end of the children of Position
+	 * newParent. The relinking is O(1); making sure newParent is not inside the
+	 * subtree walks up from newParent, and augmented mode adds its ancestor walks.
+	 * 
+	 * @param p         the root of the subtree to move
+	 * @param newParent the new parent of p
+	 * @throws          InvalidPositionException if a position is invalid, p is the root or newParent is in the subtree of p
+	 */
+	public void moveSubtree(Position<E> p, Position<E> newParent) throws InvalidPositionException {
+		TreePosition<E> node = checkPosition(p);												//check if p is a valid position
+		TreePosition<E> parent = checkPosition(newParent);										//check if newParent is a valid position
+		if(node.getParent() == null) {															//if p is the root
+			throw invalid("The root can not be moved");											//throw exception
+		}
+		for(TreePosition<E> a = parent; a != null; a = a.getParent()) {							//climb from the new parent
+			if(a == node) {																		//if it lies inside the subtree
+				throw invalid("A subtree can not move below itself");							//throw exception
+			}
+		}
+		cut(node);																				//unlink the subtree, the size stays the same
+		link(node, parent, null, false);														//append it to the new parent
+	}
+
+	/**
+	 * Creates a node holding e next to sibling under the same parent.
+	 * 
+	 * @param sibling the position the new node goes next to
+	 * @param e       the element in the new node
+	 * @param before  true to link before sibling, false to link after it
+	 * @return        the position of the new node
+	 * @throws        InvalidPositionException if sibling is invalid or the root
+	 */
+	private Position<E> addSibling(Position<E> sibling, E e, boolean before) throws InvalidPositionException {
+		TreePosition<E> anchor = checkPosition(sibling);										//check if sibling is a valid position
+		TreePosition<E> parent = anchor.getParent();
+		if(parent == null) {																	//if sibling is the root
+			throw invalid("The root has no siblings");											//throw exception
+		}
+		return createNode(e, parent, null, anchor, before);										//create the node and link it next to sibling
+	}
+
+	/**
+	 * Returns the ancestor query index of this tree. The index is built on its first
+	 * query and rebuilt on the first query after the tree has changed through addRoot,
+	 * createNode, attach or detach, so it suits trees that are queried far more often
+	 * than they change. Children lists edited directly are not noticed.
+	 * 
+	 * @return the ancestor index of this tree
+	 */
+	public AncestorIndex<E> ancestorIndex() {
+		if(ancestorIndex == null) {																//if no index was asked for yet
+			ancestorIndex = new AncestorIndex<E>(this);											//create it, it builds itself lazily
+		}
+		return ancestorIndex;																	//return the index
+	}
+
+	/**
+	 * Installs metrics that count the adds, removes, element swaps, traversals and
+	 * rejected positions of this tree, or removes them. Without metrics each of those
+	 * operations pays one null check.
+	 * 
+	 * @param metrics the metrics to update, or null to stop counting
+	 */
+	public void setMetrics(StructureMetrics metrics) {
+		this.metrics = metrics;																	//sets metrics to the value of metrics
+	}
+
+	/**
+	 * Returns the installed metrics.
+	 * 
+	 * @return the metrics of this tree, or null if none are installed
+	 */
+	public StructureMetrics getMetrics() {
+		return metrics;																			//returns the metrics
+	}
+
+	/**
+	 * Turns augmented mode on or off. While it is on every TreeNode caches its child
+	 * count, subtree size, depth and height, so numChildren, isInternal, isExternal,
+	 * subtreeSize, depth and height answer in O(1). Insertions and removals through
+	 * attach and detach keep the counts up to date by walking the ancestor path.
+	 * Turning it on measures the whole tree once.
+	 * 
+	 * @param on true to cache counts, false to stop
+	 * @throws   IllegalStateException if a node of the tree is not a TreeNode
+	 */
+	public void setAugmented(boolean on) {
+		if(on && !augmented && root != null) {													//if the counts have to be computed
+			size = measure(treeNode(root), 0);													//measure the whole tree
+		}
+		augmented = on;																			//remember the mode
+	}
+
+	/**
+	 * Tests whether nodes cache their counts.
+	 * 
+	 * @return true if the tree is augmented, false otherwise
+	 */
+	public boolean isAugmented() {
+		return augmented;																		//returns the mode
+	}
+
+	/**
+	 * Returns the number of nodes in the subtree rooted at Position p, p included.
+	 * Runs in O(1) in augmented mode, otherwise in time proportional to the subtree.
+	 * 
+	 * @param p the root of the subtree
+	 * @return  the number of nodes in the subtree
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int subtreeSize(Position<E> p) throws InvalidPositionException {
+		TreePosition<E> node = checkPosition(p);												//check if p is a valid position
+		return augmented ? treeNode(node).subtreeSize : subtreeCount(node);						//cached or counted
+	}
+
+	/**
+	 * Returns the depth of Position p, the number of its ancestors. Runs in O(1) in
+	 * augmented mode, otherwise in time proportional to the depth.
+	 * 
+	 * @param p the position that is passed
+	 * @return  the depth of p, 0 for the root
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int depth(Position<E> p) throws InvalidPositionException {
+		TreePosition<E> node = checkPosition(p);												//check if p is a valid position
+		if(augmented) {																			//if the depth is cached
+			return treeNode(node).depth;														//return it
+		}
+		int depth = 0;
+		for(TreePosition<E> a = node.getParent(); a != null; a = a.getParent()) {				//climb to the root
+			depth++;
+		}
+		return depth;																			//return the depth
+	}
+
+	/**
+	 * Returns the height of Position p, the length of the longest path from p down to
+	 * a leaf. Runs in O(1) in augmented mode, otherwise in time proportional to the
+	 * subtree.
+	 * 
+	 * @param p the position that is passed
+	 * @return  the height of p, 0 for a leaf
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	public int height(Position<E> p) throws InvalidPositionException {
+		TreePosition<E> node = checkPosition(p);												//check if p is a valid position
+		if(augmented) {																			//if the height is cached
+			return treeNode(node).height;														//return it
+		}
+		ArrayDeque<Position<E>> level = new ArrayDeque<>();										//nodes of the current level
+		level.add(node);
+		int height = -1;
+		while(!level.isEmpty()) {																//for every level below p
+			height++;
+			for(int i = level.size(); i > 0; i--) {												//replace the level by the next one
+				Iterator<Position<E>> children = childIterator(level.poll());
+				while(children != null && children.hasNext()) {
+					level.add(children.next());
+				}
+			}
+		}
+		return height;																			//return the number of levels below p
+	}
+
+	/**
+	 * Tests whether node has at least one child, without counting them.
+	 * 
+	 * @param node the node that is tested
+	 * @return     true if node has a child, false otherwise
+	 */
+	private boolean hasChildren(Position<E> node) {
+		if(augmented) {																			//if the count is cached
+			return treeNode(node).childCount > 0;
+		}
+		return childIterator(node) != null;														//true if the children list is not empty
+	}
+
+	/**
+	 * Counts the nodes of the subtree rooted at node with a preorder walk.
+	 * 
+	 * @param node the root of the subtree
+	 * @return     the number of nodes in the subtree
+	 */
+	private int subtreeCount(Position<E> node) {
+		int count = 0;
+		for(Iterator<Position<E>> it = new PreorderIterator<E>(node); it.hasNext(); it.next()) {	//visit every node
+			count++;
+		}
+		return count;																			//return the count
+	}
+
+	/**
+	 * Computes the cached counts of every node in the subtree rooted at top, with a
+	 * postorder walk so children are done before their parent.
+	 * 
+	 * @param top   the root of the subtree
+	 * @param depth the depth of top
+	 * @return      the number of nodes in the subtree
+	 */
+	private int measure(TreeNode<E> top, int depth) {
+		for(Iterator<Position<E>> it = new PreorderIterator<E>(top); it.hasNext();) {			//parents first
+			TreeNode<E> node = treeNode(it.next());
+			node.depth = node == top ? depth : treeNode(node.getParent()).depth + 1;			//one below the parent
+		}
+		for(Iterator<Position<E>> it = new PostorderIterator<E>(top); it.hasNext();) {			//children first
+			TreeNode<E> node = treeNode(it.next());
+			node.childCount = 0;
+			node.subtreeSize = 1;
+			node.height = 0;
+			Iterator<Position<E>> children = childIterator(node);
+			while(children != null && children.hasNext()) {										//add up the children
+				TreeNode<E> child = treeNode(children.next());
+				node.childCount++;
+				node.subtreeSize += child.subtreeSize;
+				node.height = Math.max(node.height, child.height + 1);
+			}
+		}
+		return top.subtreeSize;																	//return the size of the subtree
+	}
+
+	/**
+	 * Sets the depth of top and moves every node below it by the same amount.
+	 * 
+	 * @param top   the root of the subtree
+	 * @param depth the new depth of top
+	 */
+	private void shiftDepth(TreeNode<E> top, int depth) {
+		int delta = depth - top.depth;															//change of every depth in the subtree
+		if(delta == 0) {																		//if the subtree stays on its level
+			return;
+		}
+		for(Iterator<Position<E>> it = new PreorderIterator<E>(top); it.hasNext();) {			//every node of the subtree
+			treeNode(it.next()).depth += delta;
+		}
+	}
+
+	/**
+	 * Returns the height node gets from its children, from their cached heights.
+	 * 
+	 * @param node the node whose height is computed
+	 * @return     one more than the largest height of a child, 0 for a leaf
+	 */
+	private int childHeight(TreeNode<E> node) {
+		int height = 0;
+		Iterator<Position<E>> children = childIterator(node);
+		while(children != null && children.hasNext()) {											//for every child
+			height = Math.max(height, treeNode(children.next()).height + 1);
+		}
+		return height;																			//return the height
+	}
+
+	/**
+	 * Casts a position to the TreeNode that holds its cached counts.
+	 * 
+	 * @param p a position of this tree, or null
+	 * @return  the node, or null
+	 * @throws  IllegalStateException if p is not a TreeNode
+	 */
+	private TreeNode<E> treeNode(Position<E> p) {
+		if(p != null && !(p instanceof LinkedTree.TreeNode)) {									//if the node can not cache counts
+			throw new IllegalStateException("Augmented mode needs TreeNode positions");			//throw exception
+		}
+		return (LinkedTree<E>.TreeNode<E>) p;													//return the node
 	}
 	
 	/**
-	 * Swaps the positions of node v and w in the tree
+	 * Swaps the elements stored at positions v and w in the tree
 	 * 
 	 * @param v the position of v that is passed
 	 * @param w the position of w that is passed
@@ -371,84 +1456,194 @@ public class LinkedTree<E> implements Tree<E> {
 	public void swapElements(Position<E> v, Position<E> w) throws InvalidPositionException {
 		TreePosition<E> node1 = checkPosition(v);												//cast v as a tree node
 		TreePosition<E> node2 = checkPosition(w);												//cast w as a tree node
-		TreePosition<E> tmp = node1;															//temporary variable that holds node1
-		node1 = node2;																			//set node1 equal to node2
-		node2 = tmp;																			//set node2 equal to the value in tmp
+		E tmp = node1.getElement();																//temporary variable that holds the element of node1
+		node1.setElement(node2.getElement());													//node1 gets the element of node2
+		node2.setElement(tmp);																	//node2 gets the element that was in node1
+		if(metrics != null) {																	//if operations are counted
+			metrics.set();
+		}
 	}
 	
 	/**
 	 * Returns an iterable collection of positions of the tree, reported in preorder.
+	 * Positions are produced on demand by an explicit stack, so nothing is copied and
+	 * deep trees do not overflow the call stack.
 	 * 
 	 * @return an iterable collection of positions of the tree in a preorder traversal
 	 */
 	public Iterable<Position<E>> preorder() {
-		PositionalList<Position<E>> list = new NodePositionalList<Position<E>>();				//create a Node Positional List
-		if(!isEmpty()) {																		//if the tree is empty
-			preorderSubtree(root(), list);														//call the preorderSubtree class
+		return new TraversalIterable(Traversal.PREORDER);										//lazy preorder traversal
+	}
+
+	/**
+	 * Returns an iterable collection of positions of the tree, reported in postorder.
+	 * Positions are produced on demand by an explicit stack.
+	 * 
+	 * @return an iterable collection of positions of the tree in a postorder traversal
+	 */
+	public Iterable<Position<E>> postorder() {
+		return new TraversalIterable(Traversal.POSTORDER);										//lazy postorder traversal
+	}
+
+	/**
+	 * Returns an iterable collection of positions of the tree, reported level by level.
+	 * Positions are produced on demand from a queue.
+	 * 
+	 * @return an iterable collection of positions of the tree in a breadth-first traversal
+	 */
+	public Iterable<Position<E>> breadthFirst() {
+		return new TraversalIterable(Traversal.BREADTH_FIRST);									//lazy breadth-first traversal
+	}
+
+	/**
+	 * Reduces the subtree rooted at Position p: every element is mapped to a value
+	 * and the values are combined in preorder. Above the fork depth the children of a
+	 * node are cut into two runs of about the same size, one of which is forked, down
+	 * to runs of at most the size threshold in augmented mode (without cached sizes,
+	 * until the pool has enough work queued); deeper subtrees and light runs are
+	 * folded sequentially. The result is the same as a sequential fold as long as
+	 * combiner is associative.
+	 *
+	 * @param p        the root of the subtree to reduce
+	 * @param mapper   maps each element to a value
+	 * @param combiner combines two values, must be associative
+	 * @return         the combined value of every element in the subtree
+	 * @throws         InvalidPositionException if position is invalid
+	 */
+	public <R> R reduce(Position<E> p, Function<? super E, ? extends R> mapper, BinaryOperator<R> combiner) throws InvalidPositionException {
+		TreePosition<E> node = checkPosition(p);												//check if p is a valid position
+		ForkJoinPool pool = reducePool != null ? reducePool : ForkJoinPool.commonPool();		//pool that runs the reduction
+		if(forkDepth == 0 || pool.getParallelism() == 1) {										//if there is nothing to gain from forking
+			return reduceSequentially(node, mapper, combiner);									//fold on the calling thread
 		}
-		return (Iterable<Position<E>>) list;													//else return an iterable collection of positions of the tree
+		ToIntFunction<Position<E>> sizeOf = augmented ? q -> treeNode(q).subtreeSize : null;	//cached sizes weigh the runs
+		return pool.invoke(new SubtreeReduction<E, R>(node, forkDepth, sizeThreshold, sizeOf, mapper, combiner));	//reduce on the pool
 	}
-	
-	/** 
-	 * Adds positions of the subtree rooted at Position p to the given snapshot. 
+
+	/**
+	 * Sets the number of worker threads used by reduce(). A positive value gives the
+	 * tree a pool of its own; zero shuts that pool down and goes back to the common
+	 * pool. A pool is also shut down when it is replaced, and at the latest once the
+	 * tree has been garbage collected; its threads are daemon threads in any case.
+	 *
+	 * @param parallelism the number of worker threads, or 0 for the common pool
+	 * @throws            IllegalArgumentException if parallelism is negative
+	 */
+	public void setParallelism(int parallelism) {
+		if(parallelism < 0) {																	//if the parallelism is negative
+			throw new IllegalArgumentException("Negative parallelism: " + parallelism);			//throw exception
+		}
+		if(reducePool != null) {																//if the tree had a pool of its own
+			reducePoolShutdown.clean();															//let it finish and stop
+			reducePool = null;
+			reducePoolShutdown = null;
+		}
+		if(parallelism > 0) {																	//if the tree gets a pool of its own
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			reducePool = pool;
+			reducePoolShutdown = POOL_CLEANER.register(this, pool::shutdown);					//the action must not hold on to the tree
+		}
+	}
+
+	/**
+	 * Sets the depth below the root of a reduction from which subtrees are reduced
+	 * sequentially. Above it the children of a node are split into forked runs; 0
+	 * never forks.
+	 *
+	 * @param depth the fork depth
+	 * @throws      IllegalArgumentException if depth is negative
+	 */
+	public void setForkDepth(int depth) {
+		if(depth < 0) {																			//if the depth is negative
+			throw new IllegalArgumentException("Negative fork depth: " + depth);				//throw exception
+		}
+		forkDepth = depth;																		//sets forkDepth to the value of depth
+	}
+
+	/**
+	 * Sets the number of nodes up to which reduce() folds a subtree or a run of
+	 * siblings on one thread instead of splitting it. It applies in augmented mode,
+	 * where subtree sizes are cached.
+	 *
+	 * @param nodes the largest number of nodes reduced without splitting
+	 * @throws      IllegalArgumentException if nodes is less than 1
+	 */
+	public void setSizeThreshold(int nodes) {
+		if(nodes < 1) {																			//if no run could be folded
+			throw new IllegalArgumentException("Size threshold must be at least 1: " + nodes);	//throw exception
+		}
+		sizeThreshold = nodes;																	//sets sizeThreshold to the value of nodes
+	}
+
+	/**
+	 * Folds the subtree rooted at node in preorder on the calling thread.
+	 *
+	 * @param node     the root of the subtree
+	 * @param mapper   maps each element to a value
+	 * @param combiner combines two values
+	 * @return         the combined value of every element in the subtree
+	 */
+	private static <T, R> R reduceSequentially(Position<T> node, Function<? super T, ? extends R> mapper, BinaryOperator<R> combiner) {
+		Iterator<Position<T>> it = new PreorderIterator<T>(node);								//non-recursive walk of the subtree
+		R result = mapper.apply(it.next().getElement());										//value of the root
+		while(it.hasNext()) {
+			result = combiner.apply(result, mapper.apply(it.next().getElement()));				//fold in the next value
+		}
+		return result;																			//return the result
+	}
+
+	/**
+	 * Returns an iterator over the children of node, or null if it has none.
 	 * 
+	 * @param node the node whose children are iterated
+	 * @return     an iterator over the children, or null
 	 */
-	private void preorderSubtree(Position<E> p, PositionalList<Position<E>> list) {											
-		TreePosition<E> node = (TreePosition<E>) p;												//cast p as a tree position
-		list.addLast(node);																		//add node to the end of the positional list
-		while(node.getChildren().iterator().hasNext()) {										//while another child exists
-			Position<E> position = node.getChildren().iterator().next();						//position is set to the next child
-			preorderSubtree(position, list);													//recursively call the preorderSubtree method with the next child as a parameter and fill the positional list
+	private static <T> Iterator<Position<T>> childIterator(Position<T> node) {
+		Iterable<Position<T>> children = ((TreePosition<T>) node).getChildren();				//the children list, if any
+		if(children == null) {																	//if the node has no children list
+			return null;																		//there is nothing below it
 		}
+		Iterator<Position<T>> iterator = children.iterator();									//iterator over the children
+		return iterator.hasNext() ? iterator : null;											//null for an empty list
 	}
 	
 	/**
-	 * Prints the elements of the linked tree in a preorder traversal
-	 * with a parenthic representation
+	 * Writes the tree to out in the parenthetic form, for example a(b, c(d)).
 	 * 
-	 * @param node the position that is passed
-	 * @return the parenthic representation of the linked tree
-	 * @throws InvalidPositionException if position is invalid
+	 * @param out where the output goes
+	 * @throws    IOException if out fails
 	 */
-	private String stringHelper(Position<E> node) throws InvalidPositionException {
-		String tree = null;																		//initialize String rep to null
-		try {																					//try
-			Position<E> n = checkPosition(node);												//check that node is a valid position
-			if (n.getElement() == null) {														//if the element in the position does not exist
-				tree = "";																		//rep is empty
-				System.out.println(tree);														//print out rep
-			}
-			else {
-				tree = n.getElement().toString();												//else set rep as the element in the position
-				System.out.println(tree);														//print out rep
-			}
-			Iterator children = (Iterator) children(node);										//children is an iterator that holds the children contained in the position 'node'
-			tree += "(";																		//add an open bracket to the String rep 
-			
-			while (children.hasNext()) {														//while another child exists
-				stringHelper((Position<E>) children.next());									//recursively call the preorderPrint method with the position of the next child as a parameter
-			}
-			tree += ")";																		//add a close bracket to the String rep
-			return tree;																		//return the String
-		}
-		catch (InvalidPositionException e){														//catch the exception if a position is invalid
-			System.out.println("Invalid Position");												//print out the following statement
-		}
-		return tree;																			//return the String rep
-	 }
-
-	 /**
-	  * Returns a string representation of this tree.
-	  *
-	  * @returns A string representation of this tree.
-	  */
-	  public String toString() {
-		  try {																					//try
-			  return stringHelper(root);														//return the String from the preorderPrint method
-		  } 
-		  catch (InvalidPositionException e) {													//catch the exception if a position is invalid
-			  System.out.println("Invalid Position");											//print out the following statement
-			} 
-		  return null;																			//return null
-	  }
+	public void writeTo(Appendable out) throws IOException {
+		writeTo(out, new Renderer(Renderer.Format.PARENTHETIC));								//parenthetic form without limits
+	}
+
+	/**
+	 * Writes the tree to out in the format and within the limits of the given renderer.
+	 * The nodes are streamed in preorder without recursion, so this runs in linear time
+	 * and keeps only the path to the current node.
+	 * 
+	 * @param out      where the output goes
+	 * @param renderer the format and limits
+	 * @throws         IOException if out fails
+	 */
+	public void writeTo(Appendable out, Renderer renderer) throws IOException {
+		renderer.writeTree(this, out);															//render the nodes in preorder
+	}
+
+	/**
+	 * Returns a string representation of this tree in the parenthetic form.
+	 * 
+	 * @return a string representation of this tree
+	 */
+	@Override
+	public String toString() {
+		StringBuilder tree = new StringBuilder();												//builder for the string
+		try {
+			writeTo(tree);																		//render into the builder
+		}
+		catch(IOException e) {																	//a StringBuilder does not fail
+			throw new UncheckedIOException(e);
+		}
+		return tree.toString();																	//return the string
+	}
 }
@@ -0,0 +1,710 @@
+package packag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A positional list whose nodes live in a memory-mapped file instead of on the heap.
+ * Every node is a 32 byte block holding the file offsets of its neighbours, the
+ * offset and length of its payload and a tag; the payload is a separate block of
+ * the bytes an ElementCodec produced for the element. A Position is the file offset
+ * of its node, so a list reopened from the same file hands out the same positions
+ * without loading anything, and the garbage collector never sees the nodes. Removed
+ * nodes and payloads go on free lists in the file header, one for nodes and one per
+ * power-of-two payload size, and are reused by later additions.
+ *
+ * Changes are written straight into the mapping; flush() forces them to the disk.
+ * The file is only guaranteed to be consistent after a flush.
+ */
+public class MappedPositionalList<E> implements PositionalList<E>, Iterable<E>, AutoCloseable {
+
+	//----------------------------nested Handle class-----------------------
+
+	/** This class is the Position handed out for a node: its file offset and the tag it had. */
+	public class Handle implements Position<E> {
+
+		private final long offset;														//file offset of the node
+		private final int tag;															//tag of the node when the handle was made
+
+		/**
+		 * Constructs a handle for the node at the given offset.
+		 *
+		 * @param offset the file offset of a live node
+		 * @param tag    the current tag of the node
+		 */
+		private Handle(long offset, int tag) {
+			this.offset = offset;														//sets offset to the value of offset
+			this.tag = tag;																//sets tag to the value of tag
+		}
+
+		/**
+		 * Returns the file offset of the node, which stays the same across restarts.
+		 *
+		 * @return the file offset of the node
+		 */
+		public long offset() {
+			return offset;																//returns the offset
+		}
+
+		/**
+		 * Returns the element stored at this position.
+		 *
+		 * @return the stored element
+		 * @throws IllegalArgumentException if position no longer valid
+		 */
+		@Override
+		public E getElement() throws IllegalArgumentException {
+			if(!isLive()) {																//if the node has been removed
+				throw new IllegalArgumentException("Position no longer valid");			//throw exception
+			}
+			return element(offset);														//return the stored element
+		}
+
+		/** Tests whether the node still is the one this handle was made for. */
+		private boolean isLive() {
+			return readInt(offset + TAG) == tag;										//the tag changes when the node is removed
+		}
+
+		/** Returns the list that owns this handle. */
+		private MappedPositionalList<E> owner() {
+			return MappedPositionalList.this;											//returns the enclosing list
+		}
+
+		/** Two handles are equal if they refer to the same node of the same list. */
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof MappedPositionalList.Handle)) {							//if o is not a handle
+				return false;
+			}
+			MappedPositionalList<?>.Handle other = (MappedPositionalList<?>.Handle) o;
+			return other.owner() == owner() && other.offset == offset && other.tag == tag;	//same list, node and tag
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(offset) * 31 + tag;									//combine offset and tag
+		}
+	}
+	//----------------------------end of nested Handle class--------------------
+
+	//-----------------------nested PositionIterator class-----------------------
+
+	/** This class follows the next offsets and reports a handle for each node. */
+	private class PositionIterator implements Iterator<Position<E>> {
+
+		private long cursor = readLong(FIRST);											//offset of the next node to report
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if the iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return cursor != NIL;														//true until the last node has been reported
+		}
+
+		/** Returns the next position in the iterator.
+		 *
+		 * @return the next position in the iterator
+		 */
+		@Override
+		public Position<E> next() {
+			if(cursor == NIL) {															//if there is no next position
+				throw new java.util.NoSuchElementException("No next position");			//throw exception
+			}
+			Position<E> position = handle(cursor);										//handle of the current node
+			cursor = readLong(cursor + NEXT);											//move to the next node
+			return position;															//return the position
+		}
+	}
+	//-----------------------end of nested PositionIterator class--------------------
+
+	//-----------------------nested PositionIterable class-----------------------
+
+	/** This class constructs and returns a new PositionIterator each time iterator() is called. */
+	private class PositionIterable implements Iterable<Position<E>> {
+
+		/** Returns an iterator for the positions in the list.
+		 *
+		 * @return an iterator for the positions in the list
+		 */
+		@Override
+		public Iterator<Position<E>> iterator() {
+			return new PositionIterator();												//return a new PositionIterator object
+		}
+
+		/** This class does not need the positions() method, therefore it returns null. */
+		@Override
+		public Iterable<Position<E>> positions() {
+			return null;																//returns null
+		}
+	}
+	//-----------------------end of nested PositionIterable class--------------------
+
+	//----------------------------nested ElementIterator class-----------------------
+
+	/** This class follows the next offsets and decodes the elements without creating handles. */
+	private class ElementIterator implements Iterator<E> {
+
+		private long cursor = readLong(FIRST);											//offset of the next element to report
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			return cursor != NIL;														//true until the last node has been reported
+		}
+
+		/** Returns the next element in the iterator.
+		 *
+		 * @return the next element in the iterator
+		 */
+		@Override
+		public E next() {
+			if(cursor == NIL) {															//if there is no next element
+				throw new java.util.NoSuchElementException("No next element");			//throw exception
+			}
+			E element = element(cursor);												//element of the current node
+			cursor = readLong(cursor + NEXT);											//move to the next node
+			return element;																//return the element
+		}
+	}
+	//----------------------------end of nested ElementIterator class--------------------
+
+	private static final int MAGIC = 0x4E504D31;										//"NPM1", first int of the file
+	private static final long NIL = 0;													//offset that stands for no node, the header is there
+	private static final int SEGMENT_SHIFT = 30;										//the file is mapped in segments of 1 GiB
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+	private static final int INITIAL_MAPPING = 1 << 16;									//bytes mapped for a new segment
+	private static final int MIN_CLASS = 4;												//smallest payload block is 16 bytes
+	private static final int MAX_CLASS = SEGMENT_SHIFT;									//largest payload block is a whole segment
+
+	private static final long FIRST = 8;												//header: offset of the first node
+	private static final long LAST = 16;												//header: offset of the last node
+	private static final long SIZE = 24;												//header: number of elements
+	private static final long END = 32;													//header: first byte never handed out
+	private static final long FREE_NODES = 40;											//header: first node on the node free list
+	private static final long FREE_PAYLOADS = 48;										//header: first block on the free list of each size class
+	private static final int HEADER_SIZE = 512;											//bytes reserved for the header
+
+	private static final long PREV = 0;													//node: offset of the previous node
+	private static final long NEXT = 8;													//node: offset of the next node, free list link once removed
+	private static final long PAYLOAD = 16;												//node: offset of the payload block, NIL if none
+	private static final long LENGTH = 24;												//node: length of the payload, -1 for a null element
+	private static final long TAG = 28;													//node: odd while live, bumped on every add and remove
+	private static final int NODE_SIZE = 32;											//bytes in a node
+
+	private final FileChannel channel;													//the file
+	private final ElementCodec<E> codec;												//converts elements to payload bytes
+	private MappedByteBuffer[] segments;												//segments[i] maps the file from i GiB on, null once closed
+
+	/**
+	 * Opens the list stored in the file at path, or creates an empty one if the file
+	 * does not exist or is empty.
+	 *
+	 * @param path  the file that holds the list
+	 * @param codec the codec that converts elements to and from bytes
+	 * @throws      IOException if the file cannot be mapped or holds something else
+	 */
+	public MappedPositionalList(Path path, ElementCodec<E> codec) throws IOException {
+		this.codec = codec;																//sets codec to the value of codec
+		this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+		this.segments = new MappedByteBuffer[0];
+		long length = channel.size();
+		try {
+			if(length == 0) {															//if the file is new
+				map(0, HEADER_SIZE);
+				writeInt(0, MAGIC);														//write an empty header
+				writeLong(END, HEADER_SIZE);
+			}
+			else {
+				if(length < HEADER_SIZE) {												//if the file is too short for a header
+					throw new IOException("The file does not hold a mapped list");		//throw exception
+				}
+				for(long start = 0; start < length; start += 1L << SEGMENT_SHIFT) {		//map what is there
+					map(start, (int) Math.min(length - start, 1L << SEGMENT_SHIFT));
+				}
+				if(readInt(0) != MAGIC) {												//if the file holds something else
+					throw new IOException("The file does not hold a mapped list");		//throw exception
+				}
+			}
+		}
+		catch(IOException | RuntimeException e) {										//do not leak the channel
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** Returns an iterator for the elements in the collection.
+	 *
+	 * @return an iterator of the elements in the list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new ElementIterator();													//returns an iterator of the elements in the list
+	}
+
+	/** Returns an iterable representation of the list's positions.
+	 *
+	 * @return an iterable representation of the list's positions
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterable<E> positions() {
+		return (Iterable<E>) new PositionIterable();									//returns an iterable of the list's positions
+	}
+
+	/** Returns the number of elements in the list.
+	 *
+	 * @return the number of elements in the list
+	 */
+	@Override
+	public int size() {
+		return (int) readLong(SIZE);													//returns the size
+	}
+
+	/** Tests whether the list is empty.
+	 *
+	 * @return true if the list is empty, false otherwise
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;																//true if there are no elements
+	}
+
+	/** Returns the first Position in the list (or null, if empty).
+	 *
+	 * @return the first position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> first() {
+		return positionOrNull(readLong(FIRST));											//return the first position
+	}
+
+	/** Returns the last Position in the list (or null, if empty).
+	 *
+	 * @return the last position in the list, or null otherwise
+	 */
+	@Override
+	public Position<E> last() {
+		return positionOrNull(readLong(LAST));											//return the last position
+	}
+
+	/**
+	 * Returns the Position immediately before Position p (or null, if p is first).
+	 *
+	 * @param p the position of the element
+	 * @return  the position immediately before position p, or null if p is first
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> before(Position<E> p) throws InvalidPositionException {
+		return positionOrNull(readLong(checkPosition(p) + PREV));						//return the previous position
+	}
+
+	/**
+	 * Returns the Position immediately after Position p (or null, if p is last).
+	 *
+	 * @param p the position of the element
+	 * @return  the position immediately after position p, or null if p is last
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> after(Position<E> p) throws InvalidPositionException {
+		return positionOrNull(readLong(checkPosition(p) + NEXT));						//return the next position
+	}
+
+	/**
+	 * Returns the Position of the node at the given file offset, for example one that
+	 * was saved from Handle.offset() before a restart.
+	 *
+	 * @param offset the file offset of a node
+	 * @return       the position of the node
+	 * @throws       InvalidPositionException if no live node of the list is at offset
+	 */
+	public Position<E> position(long offset) throws InvalidPositionException {
+		if(offset < HEADER_SIZE || offset > readLong(END) - NODE_SIZE || (readInt(offset + TAG) & 1) == 0) {	//if no live node can be there
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		long prev = readLong(offset + PREV);
+		long next = readLong(offset + NEXT);
+		boolean linked = (prev == NIL ? readLong(FIRST) : readLong(prev + NEXT)) == offset
+				&& (next == NIL ? readLong(LAST) : readLong(next + PREV)) == offset;	//the neighbours must point back
+		if(!linked) {
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		return handle(offset);															//return the position
+	}
+
+	/**
+	 * Inserts element e at the front of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addFirst(E e) {
+		return handle(insert(e, NIL, readLong(FIRST)));									//link the node before the first one
+	}
+
+	/**
+	 * Inserts element e at the back of the list and returns its new Position.
+	 *
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 */
+	@Override
+	public Position<E> addLast(E e) {
+		return handle(insert(e, readLong(LAST), NIL));									//link the node after the last one
+	}
+
+	/**
+	 * Inserts element e immediately before Position p and returns its new Position.
+	 *
+	 * @param p the position of the element
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addBefore(Position<E> p, E e) throws InvalidPositionException {
+		long node = checkPosition(p);													//node of position p
+		return handle(insert(e, readLong(node + PREV), node));							//link the new node before it
+	}
+
+	/**
+	 * Inserts element e immediately after Position p and returns its new Position.
+	 *
+	 * @param p the position of the element
+	 * @param e the element to be inserted
+	 * @return  the new position of the inserted element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public Position<E> addAfter(Position<E> p, E e) throws InvalidPositionException {
+		long node = checkPosition(p);													//node of position p
+		return handle(insert(e, node, readLong(node + NEXT)));							//link the new node after it
+	}
+
+	/**
+	 * Replaces the element stored at Position p and returns the replaced element. The
+	 * payload block is rewritten in place if the new element needs the same block size.
+	 *
+	 * @param p the position of the element
+	 * @param e the element that will replace the element stored at position p
+	 * @return  the replaced element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E set(Position<E> p, E e) throws InvalidPositionException {
+		long node = checkPosition(p);													//node of position p
+		E replaced = element(node);														//variable to store the replaced element
+		store(node, e);																	//write the new payload
+		return replaced;																//return the replaced element
+	}
+
+	/**
+	 * Removes the element stored at Position p and returns it (invalidating p). The node
+	 * and its payload go on the free lists.
+	 *
+	 * @param p the position of the element
+	 * @return  the removed element
+	 * @throws  InvalidPositionException if position is invalid
+	 */
+	@Override
+	public E remove(Position<E> p) throws InvalidPositionException {
+		long node = checkPosition(p);													//node of position p
+		E removed = element(node);														//variable that holds the element to be removed
+		long prev = readLong(node + PREV);
+		long next = readLong(node + NEXT);
+		writeLong(prev == NIL ? FIRST : prev + NEXT, next);								//unlink the node
+		writeLong(next == NIL ? LAST : next + PREV, prev);
+		writeLong(SIZE, readLong(SIZE) - 1);
+		freePayload(node);																//release the payload
+		writeInt(node + TAG, readInt(node + TAG) + 1);									//an even tag invalidates the handles
+		writeLong(node + NEXT, readLong(FREE_NODES));									//put the node on the node free list
+		writeLong(FREE_NODES, node);
+		return removed;																	//return the removed element
+	}
+
+	/**
+	 * Forces every change made so far to the disk.
+	 *
+	 * @throws IllegalStateException if the list is closed
+	 */
+	public void flush() {
+		for(MappedByteBuffer segment : mapped()) {										//for every mapped segment
+			segment.force();															//write its dirty pages
+		}
+	}
+
+	/**
+	 * Flushes the list and closes the file. The list cannot be used afterwards.
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if(segments == null) {															//if it is closed already
+			return;
+		}
+		try {
+			flush();
+		}
+		finally {
+			segments = null;
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns a string representation of the list
+	 *
+	 * @return a string representation of the list
+	 */
+	public String toString() {
+		StringBuilder list = new StringBuilder();										//builder for the string
+		for(E e : this) {																//for every element in order
+			list.append(e).append(' ');													//add the element with a space right after
+		}
+		return list.toString();															//return the string
+	}
+
+	//----------------------------internal helpers-----------------------
+
+	/**
+	 * Links a fresh node holding element e between pred and succ.
+	 *
+	 * @param e    element to be added
+	 * @param pred the previous node, NIL for the front
+	 * @param succ the next node, NIL for the back
+	 * @return     the node that has been linked between pred and succ
+	 */
+	private long insert(E e, long pred, long succ) {
+		long node = readLong(FREE_NODES);												//reuse a removed node if there is one
+		if(node != NIL) {
+			writeLong(FREE_NODES, readLong(node + NEXT));
+		}
+		else {
+			node = allocate(NODE_SIZE);													//otherwise take fresh space
+		}
+		writeLong(node + PAYLOAD, NIL);													//no payload yet
+		writeInt(node + LENGTH, -1);
+		store(node, e);																	//write the payload
+		writeLong(node + PREV, pred);													//link the node
+		writeLong(node + NEXT, succ);
+		writeLong(pred == NIL ? FIRST : pred + NEXT, node);
+		writeLong(succ == NIL ? LAST : succ + PREV, node);
+		writeInt(node + TAG, readInt(node + TAG) | 1);									//an odd tag marks the node live
+		writeLong(SIZE, readLong(SIZE) + 1);
+		return node;																	//return the new node
+	}
+
+	/**
+	 * Writes the payload of element e for a node, reusing its payload block if the size
+	 * class is the same and moving to a block of the right class otherwise.
+	 *
+	 * @param node the node
+	 * @param e    the element, may be null
+	 */
+	private void store(long node, E e) {
+		int length = e == null ? -1 : codec.sizeOf(e);									//bytes the element takes
+		if(length > 1 << MAX_CLASS) {													//if no block can hold it
+			throw new IllegalArgumentException("Element of " + length + " bytes is too large");
+		}
+		long block = readLong(node + PAYLOAD);
+		if(block == NIL || sizeClass(length) != sizeClass(readInt(node + LENGTH))) {	//if the current block does not fit
+			freePayload(node);
+			block = length > 0 ? allocatePayload(sizeClass(length)) : NIL;
+			writeLong(node + PAYLOAD, block);
+		}
+		writeInt(node + LENGTH, length);
+		if(length > 0) {																//if there are bytes to write
+			ByteBuffer out = slice(block, length);
+			codec.encode(e, out);														//encode straight into the mapping
+			if(out.hasRemaining()) {													//if the codec broke its promise
+				throw new IllegalStateException("Codec wrote " + out.position() + " bytes, sizeOf said " + length);
+			}
+		}
+	}
+
+	/**
+	 * Decodes the element of a node.
+	 *
+	 * @param node the node
+	 * @return     its element
+	 */
+	private E element(long node) {
+		int length = readInt(node + LENGTH);
+		if(length < 0) {																//if the element is null
+			return null;
+		}
+		return codec.decode(slice(readLong(node + PAYLOAD), length), length);			//decode straight from the mapping
+	}
+
+	/**
+	 * Puts the payload block of a node, if it has one, on the free list of its class.
+	 *
+	 * @param node the node
+	 */
+	private void freePayload(long node) {
+		long block = readLong(node + PAYLOAD);
+		if(block == NIL) {																//if there is no block
+			return;
+		}
+		long head = FREE_PAYLOADS + 8L * sizeClass(readInt(node + LENGTH));				//free list of its class
+		writeLong(block, readLong(head));												//chain it in front
+		writeLong(head, block);
+		writeLong(node + PAYLOAD, NIL);
+	}
+
+	/**
+	 * Returns a payload block of the given size class, from its free list if possible.
+	 *
+	 * @param sizeClass the size class, the block holds 2^sizeClass bytes
+	 * @return          the offset of the block
+	 */
+	private long allocatePayload(int sizeClass) {
+		long head = FREE_PAYLOADS + 8L * sizeClass;										//free list of the class
+		long block = readLong(head);
+		if(block != NIL) {																//if a freed block is waiting
+			writeLong(head, readLong(block));											//take it off the list
+			return block;
+		}
+		return allocate(1 << sizeClass);												//otherwise take fresh space
+	}
+
+	/**
+	 * Hands out bytes from the end of the used part of the file, mapping more if needed.
+	 * A block never straddles two segments, so a block that would is moved to the start
+	 * of the next one.
+	 *
+	 * @param bytes the number of bytes, at most one segment
+	 * @return      the offset of the first byte
+	 */
+	private long allocate(int bytes) {
+		long start = readLong(END);
+		if((start >>> SEGMENT_SHIFT) != ((start + bytes - 1) >>> SEGMENT_SHIFT)) {		//if the block would straddle a boundary
+			start = ((start >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT;					//start it in the next segment
+		}
+		int segment = (int) (start >>> SEGMENT_SHIFT);
+		int needed = (int) ((start & SEGMENT_MASK) + bytes);							//bytes the segment must map
+		MappedByteBuffer[] mapped = mapped();
+		if(segment >= mapped.length || mapped[segment].capacity() < needed) {			//if the mapping is too short
+			long room = segment < mapped.length ? 2L * mapped[segment].capacity() : INITIAL_MAPPING;
+			int size = (int) Math.min(1L << SEGMENT_SHIFT, Math.max(room, needed));		//grow it geometrically
+			try {
+				map((long) segment << SEGMENT_SHIFT, size);
+			}
+			catch(IOException e) {
+				throw new IllegalStateException("Cannot grow the mapped file", e);
+			}
+		}
+		writeLong(END, start + bytes);
+		return start;																	//return the block
+	}
+
+	/**
+	 * Maps size bytes of the file from start on as the segment that starts there,
+	 * growing the file if it is shorter.
+	 *
+	 * @param start the start of a segment
+	 * @param size  the number of bytes to map
+	 * @throws      IOException if the file cannot be mapped
+	 */
+	private void map(long start, int size) throws IOException {
+		int segment = (int) (start >>> SEGMENT_SHIFT);
+		if(segment >= segments.length) {
+			segments = Arrays.copyOf(segments, segment + 1);
+		}
+		segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE, start, size);	//the old mapping goes away with the garbage
+	}
+
+	/** Returns the size class of a payload of the given length, 2^class bytes hold it. */
+	private static int sizeClass(int length) {
+		return length <= 1 << MIN_CLASS ? MIN_CLASS : 32 - Integer.numberOfLeadingZeros(length - 1);	//round up to a power of two
+	}
+
+	/** Returns a buffer over length bytes of the file from offset on. */
+	private ByteBuffer slice(long offset, int length) {
+		ByteBuffer segment = segment(offset).duplicate();
+		int index = (int) (offset & SEGMENT_MASK);
+		segment.limit(index + length).position(index);
+		return segment.slice();															//a buffer of exactly those bytes
+	}
+
+	/** Returns the segment that holds the given offset. */
+	private MappedByteBuffer segment(long offset) {
+		return mapped()[(int) (offset >>> SEGMENT_SHIFT)];
+	}
+
+	/** Returns the segments, or throws if the list has been closed. */
+	private MappedByteBuffer[] mapped() {
+		MappedByteBuffer[] mapped = segments;
+		if(mapped == null) {															//if the list has been closed
+			throw new IllegalStateException("The list is closed");
+		}
+		return mapped;
+	}
+
+	/** Reads the long at a file offset. */
+	private long readLong(long offset) {
+		return segment(offset).getLong((int) (offset & SEGMENT_MASK));
+	}
+
+	/** Writes a long at a file offset. */
+	private void writeLong(long offset, long value) {
+		segment(offset).putLong((int) (offset & SEGMENT_MASK), value);
+	}
+
+	/** Reads the int at a file offset. */
+	private int readInt(long offset) {
+		return segment(offset).getInt((int) (offset & SEGMENT_MASK));
+	}
+
+	/** Writes an int at a file offset. */
+	private void writeInt(long offset, int value) {
+		segment(offset).putInt((int) (offset & SEGMENT_MASK), value);
+	}
+
+	/**
+	 * Checks whether the passed position is a live handle of this list.
+	 *
+	 * @param v the position that is checked
+	 * @return  the node offset of the passed position
+	 * @throws  InvalidPositionException if v is null, not a handle of this list or removed
+	 */
+	protected long checkPosition(Position<E> v) throws InvalidPositionException {
+		if(!(v instanceof MappedPositionalList.Handle)) {								//if v does not exist or v is not a handle
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		Handle handle = (Handle) v;
+		if(handle.owner() != this || !handle.isLive()) {								//if v belongs to another list or was removed
+			throw new InvalidPositionException("The position is invalid");				//throw exception
+		}
+		return handle.offset;															//return the node of the handle
+	}
+
+	/**
+	 * Returns a handle for a node, or null for NIL.
+	 *
+	 * @param node a live node or NIL
+	 * @return     the handle of the node, or null
+	 */
+	private Position<E> positionOrNull(long node) {
+		return node == NIL ? null : handle(node);										//NIL has no position
+	}
+
+	/** Returns a new handle for a live node. */
+	private Handle handle(long node) {
+		return new Handle(node, readInt(node + TAG));									//remember the current tag
+	}
+}
@@ -1,14 +1,26 @@
 package packag;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 
-	public class DNode<E> implements Position<E>{
+	public static class DNode<E> implements Position<E>{
 
 		private DNode<E> next;															//variable that points to the next Node		
 		private DNode<E> prev;															//variable that points to the previous Node
 		private E data;																	//variable that stores the data that will be put into a Node
+		private Owner owner;															//token of the list the node belongs to
+		private NodePositionalList<E>.State state;										//order label, history and handle, null while the list needs none
 		
 		/**
 		 * This constructs a doubly  linked node
@@ -38,6 +50,63 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 			return this.data; 															//return the stored element
 		}
 	}
+
+	//----------------------------nested Handle class-----------------------
+
+	/**
+	 * This class is the position a list with a node pool hands out instead of the node
+	 * itself. A node gets a new handle every time it is reused, so a handle issued
+	 * before the node was removed no longer matches it and is rejected.
+	 */
+	public final class Handle implements Position<E> {
+
+		private final DNode<E> node;													//node the handle stands for
+
+		private Handle(DNode<E> node) {
+			this.node = node;															//sets node to the value of node
+		}
+
+		/**
+		 * Returns the element stored at this position.
+		 *
+		 * @return the stored element
+		 * @throws IllegalArgumentException if position no longer valid
+		 */
+		@Override
+		public E getElement() throws IllegalArgumentException {
+			if(node.state == null || node.state.handle != this) {						//if the node was removed, and maybe reused, since
+				throw new IllegalArgumentException("Position no longer valid");			//throw exception
+			}
+			return node.getElement();													//return the stored element
+		}
+	}
+	//----------------------------end of nested Handle class--------------------
+
+	//----------------------------nested State class-----------------------
+
+	/**
+	 * This class holds what a node needs only while its list maintains order, records
+	 * versions or pools nodes. Nodes of a list without these modes have none, so they
+	 * stay as small as a node with three links and an owner can be.
+	 */
+	private final class State {
+		private long label;																//order label, increasing from header to trailer when order is maintained
+		private volatile Version versions;												//newest committed version of next and data, when versioned
+		private Position<E> handle;														//position issued for the current use of the node, when pooled
+	}
+	//----------------------------end of nested State class--------------------
+
+	//----------------------------nested Owner class-----------------------
+
+	/**
+	 * This class is the token that tells which list a node belongs to. When a whole
+	 * list is spliced into another, its token is forwarded to the other list's token
+	 * instead of retagging every node, so the splice stays O(1).
+	 */
+	private static final class Owner {
+		private Owner forward;															//token the nodes were spliced over to, null while current
+	}
+	//----------------------------end of nested Owner class--------------------
 	
 	//-----------------------nested PositionIterator class-----------------------
 	
@@ -46,6 +115,7 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 
 		private Position<E> pointer = first();											//position of the next element to report
 		private Position<E> last = null;												//position of last reported element
+		private int expectedModCount = modCount;										//structural changes the iterator knows about
 		
 		/** Tests whether the iterator has a next object. 
 		 * 
@@ -68,28 +138,39 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 		 */
 		@Override
 		public Position<E> next() {
+			checkForComodification();
 			if(pointer == null) {														//if the next element in the iterator is null
-				try {
-					throw new NoSuchElementException("No next position"); 				//throw exception
-				} catch (NoSuchElementException e) {
-					e.printStackTrace();
-				}	
+				throw new java.util.NoSuchElementException("No next position");			//throw exception
 			}
 			last = pointer;																//element at this position might later be removed
 			try {
 				pointer = after(pointer);												//pointer now becomes the element that is right after it
-			} catch (InvalidPositionException e) {										//throw exception if position is not valid
-				e.printStackTrace();
-			}																		
+			} catch (InvalidPositionException e) {										//the node was removed while the iteration was on it
+				throw new java.util.ConcurrentModificationException("The list was modified during iteration");	//throw exception
+			}
 			return last;																//return the last reported element
 		}
 		
-		/** Removes the element returned by most recent call to next. 
+		/** Removes the element returned by most recent call to next in O(1).
 		 * 
-		 * @throws UnsupportedOperationException
+		 * @throws IllegalStateException if next has not been called since the last remove
 		 */
-		public void remove() throws UnsupportedOperationException {
-			throw new UnsupportedOperationException();									//throw exception
+		@Override
+		public void remove() {
+			if(last == null) {															//if there is nothing to remove
+				throw new IllegalStateException("next() has not been called");			//throw exception
+			}
+			checkForComodification();
+			unlink(node(last));															//unlink the last reported node
+			last = null;																//it can not be removed twice
+			expectedModCount = modCount;												//the iterator made this change itself
+		}
+
+		/** Throws ConcurrentModificationException if the list changed behind the iterator's back. */
+		private void checkForComodification() {
+			if(modCount != expectedModCount) {											//if someone else changed the structure
+				throw new java.util.ConcurrentModificationException();					//throw exception
+			}
 		}
 	}
 	//-----------------------end of nested PositionIterator class--------------------
@@ -107,7 +188,8 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 		 */
 		@Override
 		public Iterator<Position<E>> iterator() {
-			return new PositionIterator();												//return a new PositionIterator object
+			Iterator<Position<E>> iterator = new PositionIterator();					//a new PositionIterator object
+			return metrics == null ? iterator : metrics.meter(iterator, "positions");	//return it, metered if metrics are on
 		}
 
 		/** Returns an iterable representation of the list's positions. 
@@ -147,39 +229,559 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 			return posIterator.next().getElement();										//return element
 		}
 		
-		/** Removes the element returned by most recent call to next. 
+		/** Removes the element returned by most recent call to next in O(1).
 		 * 
-		 * @throws UnsupportedOperationException
+		 * @throws IllegalStateException if next has not been called since the last remove
 		 */
-		public void remove() throws UnsupportedOperationException {
-			throw new UnsupportedOperationException();									//throw exception
+		@Override
+		public void remove() {
+			posIterator.remove();														//remove through the position iterator
 		}
 		
 	}
 	//----------------------------end of nested ElementIterator class--------------------
+
+	//----------------------------nested Cursor class-----------------------
+
+	/**
+	 * This class is a movable pointer into the list for tight edit loops. It sits on a
+	 * node, or just before the first node or just after the last one, and moves by
+	 * following the links directly: stepping allocates nothing, checks no position and
+	 * throws no checked exception. Reading, replacing, inserting around and removing
+	 * the element under it are all O(1). Changes made through it are recorded in
+	 * versioned mode and labeled in ordered mode like any other change. Like the
+	 * iterators it fails fast: once the list has been changed structurally other
+	 * than through the cursor, it throws ConcurrentModificationException until it
+	 * is moved back onto the list with first() or last().
+	 */
+	public final class Cursor {
+
+		private DNode<E> node;															//node under the cursor, a sentinel when off either end
+		private int expectedModCount = modCount;										//structural changes the cursor knows about
+
+		private Cursor(DNode<E> node) {
+			this.node = node;															//sets node to the value of node
+		}
+
+		/**
+		 * Moves the cursor to the first element.
+		 *
+		 * @return true if the cursor is on an element, false if the list is empty
+		 */
+		public boolean first() {
+			node = header.next;															//the node after the header
+			expectedModCount = modCount;												//the cursor is on the current list again
+			return node != trailer;														//false if there is none
+		}
+
+		/**
+		 * Moves the cursor to the last element.
+		 *
+		 * @return true if the cursor is on an element, false if the list is empty
+		 */
+		public boolean last() {
+			node = trailer.prev;														//the node before the trailer
+			expectedModCount = modCount;												//the cursor is on the current list again
+			return node != header;														//false if there is none
+		}
+
+		/**
+		 * Moves the cursor one element forward. From just before the first element it
+		 * moves to the first element; past the last element it stays where it is.
+		 *
+		 * @return true if the cursor is on an element, false if it is past the end
+		 */
+		public boolean next() {
+			if(node != trailer) {														//if it is not past the end already
+				node = live().next;														//follow the next link
+			}
+			return node != trailer;														//false once past the end
+		}
+
+		/**
+		 * Moves the cursor one element back. From just after the last element it moves
+		 * to the last element; before the first element it stays where it is.
+		 *
+		 * @return true if the cursor is on an element, false if it is before the start
+		 */
+		public boolean prev() {
+			if(node != header) {														//if it is not before the start already
+				node = live().prev;														//follow the previous link
+			}
+			return node != header;														//false once before the start
+		}
+
+		/**
+		 * Tests whether the cursor is on an element.
+		 *
+		 * @return true if the cursor is on an element, false if it is off either end
+		 */
+		public boolean hasElement() {
+			return node != header && node != trailer;									//sentinels hold no element
+		}
+
+		/**
+		 * Returns the position of the element under the cursor.
+		 *
+		 * @return the position, or null if the cursor is off either end
+		 */
+		public Position<E> position() {
+			return NodePositionalList.this.position(live());							//null for the sentinels
+		}
+
+		/**
+		 * Returns the element under the cursor.
+		 *
+		 * @return the element
+		 * @throws java.util.NoSuchElementException if the cursor is off either end
+		 */
+		public E get() {
+			return element().data;														//return the element
+		}
+
+		/**
+		 * Replaces the element under the cursor.
+		 *
+		 * @param e the new element
+		 * @return  the replaced element
+		 * @throws  java.util.NoSuchElementException if the cursor is off either end
+		 */
+		public E set(E e) {
+			return replace(element(), e);												//replace the element of the node
+		}
+
+		/**
+		 * Inserts e right before the cursor, which stays where it is. Past the end this
+		 * appends e to the list.
+		 *
+		 * @param e the element to be inserted
+		 * @throws  java.util.NoSuchElementException if the cursor is before the start
+		 */
+		public void insertBefore(E e) {
+			if(node == header) {														//if there is no room before the cursor
+				throw new java.util.NoSuchElementException("The cursor is before the start");	//throw exception
+			}
+			DNode<E> succ = live();
+			addBetween(e, succ.prev, succ);												//link a new node before it
+			expectedModCount = modCount;												//the cursor made this change itself
+		}
+
+		/**
+		 * Inserts e right after the cursor, which stays where it is. Before the start
+		 * this puts e at the front of the list.
+		 *
+		 * @param e the element to be inserted
+		 * @throws  java.util.NoSuchElementException if the cursor is past the end
+		 */
+		public void insertAfter(E e) {
+			if(node == trailer) {														//if there is no room after the cursor
+				throw new java.util.NoSuchElementException("The cursor is past the end");	//throw exception
+			}
+			DNode<E> pred = live();
+			addBetween(e, pred, pred.next);												//link a new node after it
+			expectedModCount = modCount;												//the cursor made this change itself
+		}
+
+		/**
+		 * Removes the element under the cursor and moves the cursor to the element that
+		 * followed it (or past the end).
+		 *
+		 * @return the removed element
+		 * @throws java.util.NoSuchElementException if the cursor is off either end
+		 */
+		public E remove() {
+			DNode<E> removed = element();
+			node = removed.next;														//step off the node first
+			E e = unlink(removed);														//then unlink it
+			expectedModCount = modCount;												//the cursor made this change itself
+			return e;																	//return the removed element
+		}
+
+		/** Returns the node under the cursor, which has to hold an element. */
+		private DNode<E> element() {
+			if(node == header || node == trailer) {										//if the cursor is off either end
+				throw new java.util.NoSuchElementException("No element at the cursor");	//throw exception
+			}
+			return live();
+		}
+
+		/**
+		 * Returns the node under the cursor, checking that the list was not changed
+		 * behind the cursor's back. A node that was removed, moved to another list or
+		 * reused from the pool would otherwise still look linked.
+		 */
+		private DNode<E> live() {
+			if(modCount != expectedModCount) {											//if someone else changed the structure
+				throw new java.util.ConcurrentModificationException("The list was changed behind the cursor's back");	//throw exception
+			}
+			return node;
+		}
+	}
+	//----------------------------end of nested Cursor class--------------------
+
+	//----------------------------nested NodeSpliterator class-----------------------
+
+	/**
+	 * This class reports the elements of a run of nodes and splits the run by walking
+	 * to its midpoint. Runs shorter than SPLIT_THRESHOLD are not split, since the walk
+	 * would cost about as much as reporting them.
+	 */
+	private class NodeSpliterator implements Spliterator<E> {
+
+		private DNode<E> current;														//node of the next element to report
+		private long remaining;															//number of nodes left in the run
+
+		/**
+		 * Constructs a spliterator over count nodes starting at first.
+		 *
+		 * @param first the first node of the run
+		 * @param count the number of nodes in the run
+		 */
+		private NodeSpliterator(DNode<E> first, long count) {
+			this.current = first;														//sets current to the value of first
+			this.remaining = count;														//sets remaining to the value of count
+		}
+
+		/** Reports the next element, if there is one.
+		 *
+		 * @param action the action applied to the element
+		 * @return       true if an element was reported, false at the end of the run
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if(remaining == 0) {														//if the run is used up
+				return false;
+			}
+			E e = current.data;															//element to report
+			current = current.next;														//move to the next node
+			remaining--;
+			action.accept(e);															//report the element
+			return true;
+		}
+
+		/** Reports every remaining element of the run.
+		 *
+		 * @param action the action applied to each element
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			DNode<E> node = current;													//walk on locals
+			for(long i = remaining; i > 0; i--) {
+				action.accept(node.data);												//report the element
+				node = node.next;
+			}
+			current = node;																//the run is used up
+			remaining = 0;
+		}
+
+		/** Hands the first half of the run to a new spliterator.
+		 *
+		 * @return a spliterator over the first half, or null if the run is too short
+		 */
+		@Override
+		public Spliterator<E> trySplit() {
+			if(remaining < SPLIT_THRESHOLD) {											//if splitting does not pay off
+				return null;
+			}
+			long half = remaining >>> 1;												//length of the first half
+			DNode<E> first = current;													//first node of the first half
+			for(long i = 0; i < half; i++) {											//walk to the midpoint
+				current = current.next;
+			}
+			remaining -= half;															//this spliterator keeps the second half
+			return new NodeSpliterator(first, half);									//return the first half
+		}
+
+		/** Returns the exact number of elements left in the run.
+		 *
+		 * @return the number of elements left
+		 */
+		@Override
+		public long estimateSize() {
+			return remaining;															//the run length is exact
+		}
+
+		/** Returns the characteristics of the spliterator.
+		 *
+		 * @return ORDERED, SIZED and SUBSIZED
+		 */
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;		//the run is ordered and its length known
+		}
+	}
+	//----------------------------end of nested NodeSpliterator class--------------------
+
+	//----------------------------nested Version class-----------------------
+
+	/** This class records the next link and element a node had as of one list version. */
+	private final class Version {
+
+		private final long stamp;														//list version this record was committed in
+		private final DNode<E> next;													//next link as of that version
+		private final E data;															//element as of that version
+		private Version older;															//record committed before this one, null once reclaimed
+
+		/**
+		 * Constructs a version record.
+		 *
+		 * @param stamp the list version
+		 * @param next  the next link as of that version
+		 * @param data  the element as of that version
+		 * @param older the previous record of the same node
+		 */
+		private Version(long stamp, DNode<E> next, E data, Version older) {
+			this.stamp = stamp;															//sets stamp to the value of stamp
+			this.next = next;															//sets next to the value of next
+			this.data = data;															//sets data to the value of data
+			this.older = older;															//sets older to the value of older
+		}
+	}
+	//----------------------------end of nested Version class--------------------
+
+	//----------------------------nested Snapshot class-----------------------
+
+	/**
+	 * This class is a point-in-time view of a versioned list. It reads the version
+	 * records of the nodes, so the writer keeps going while it is walked. Close it when
+	 * done so the records it pins can be reclaimed; an unreachable snapshot is
+	 * released when it is garbage collected.
+	 */
+	public final class Snapshot implements Iterable<E>, AutoCloseable {
+
+		private final long version;														//list version this snapshot sees
+		private final Cleaner.Cleanable release;										//unregisters the snapshot once
+
+		/**
+		 * Constructs a snapshot of the given, already registered version.
+		 *
+		 * @param version the list version
+		 */
+		private Snapshot(long version) {
+			this.version = version;														//sets version to the value of version
+			this.release = Reclaimer.CLEANER.register(this, new Release(snapshots, version));	//release it at the latest when collected
+		}
+
+		/** Returns an iterator for the elements as of the snapshot.
+		 *
+		 * @return an iterator of the elements in the snapshot
+		 */
+		@Override
+		public Iterator<E> iterator() {
+			return new SnapshotIterator<E>(this, false);								//iterator over the elements
+		}
+
+		/** Returns an iterable of the positions as of the snapshot. Their getElement
+		 * reads the live list, so it fails for positions removed since.
+		 *
+		 * @return an iterable of the positions in the snapshot
+		 */
+		@Override
+		public Iterable<E> positions() {
+			Snapshot snapshot = this;
+			return new Iterable<E>() {													//iterable over the positions
+				@Override
+				public Iterator<E> iterator() {
+					return new SnapshotIterator<E>(snapshot, true);
+				}
+
+				@Override
+				public Iterable<E> positions() {
+					return null;														//not needed, as in PositionIterable
+				}
+			};
+		}
+
+		/** Releases the snapshot so the version records it pins can be reclaimed. */
+		@Override
+		public void close() {
+			release.clean();															//unregister, at most once
+		}
+	}
+	//----------------------------end of nested Snapshot class--------------------
+
+	//----------------------------nested SnapshotIterator class-----------------------
+
+	/**
+	 * This class walks a snapshot, reporting elements or positions. When it is the
+	 * only user of its snapshot it closes it once the walk is over.
+	 */
+	private final class SnapshotIterator<T> implements Iterator<T> {
+
+		private final Snapshot snapshot;												//snapshot that is walked
+		private final boolean reportPositions;											//true to report nodes, false for elements
+		private Version current;														//version record of the node reported last
+		private Position<E> last = null;												//position of the node reported last, null once removed
+		private boolean closeAtEnd = false;												//true if the iterator owns the snapshot
+
+		/**
+		 * Constructs an iterator over a snapshot.
+		 *
+		 * @param snapshot        the snapshot to walk
+		 * @param reportPositions true to report positions, false to report elements
+		 */
+		private SnapshotIterator(Snapshot snapshot, boolean reportPositions) {
+			this.snapshot = snapshot;													//sets snapshot to the value of snapshot
+			this.reportPositions = reportPositions;										//sets reportPositions to the value of reportPositions
+			this.current = versionAt(header, snapshot.version);							//start at the header
+		}
+
+		/** Tests whether the iterator has a next object.
+		 *
+		 * @return true if the iterator has a next object, false otherwise
+		 */
+		@Override
+		public boolean hasNext() {
+			if(current.next != trailer) {												//if the snapshot goes on
+				return true;															//there is a next object
+			}
+			if(closeAtEnd) {															//if the iterator owns the snapshot
+				snapshot.close();														//release it
+			}
+			return false;
+		}
+
+		/** Returns the next object in the iterator.
+		 *
+		 * @return the next element or position of the snapshot
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if(!hasNext()) {															//if there is no next object
+				throw new java.util.NoSuchElementException("No next element");			//throw exception
+			}
+			DNode<E> node = current.next;												//node to report
+			current = versionAt(node, snapshot.version);								//its record as of the snapshot
+			last = position(node);														//kept for remove
+			return reportPositions ? (T) last : (T) current.data;						//report the position or its element
+		}
+
+		/**
+		 * Removes the element reported last from the live list. The snapshot being
+		 * walked is not affected, the removal is committed as a new list version.
+		 *
+		 * @throws IllegalStateException if next has not been called since the last remove
+		 * @throws java.util.ConcurrentModificationException if the element has left the list since
+		 */
+		@Override
+		public void remove() {
+			if(last == null) {															//if there is nothing to remove
+				throw new IllegalStateException("next() has not been called");			//throw exception
+			}
+			try {
+				NodePositionalList.this.remove(last);									//remove it from the live list
+			}
+			catch(InvalidPositionException e) {											//it was removed after the snapshot was taken
+				throw new java.util.ConcurrentModificationException("The element is no longer in the list");	//throw exception
+			}
+			last = null;																//it can not be removed twice
+		}
+	}
+	//----------------------------end of nested SnapshotIterator class--------------------
+
+	/** Unregisters a snapshot version; kept apart from Snapshot so the cleaner does not pin it. */
+	private static final class Release implements Runnable {
+
+		private final ConcurrentSkipListMap<Long, Integer> snapshots;					//registry of the list
+		private final long version;														//version to unregister
+
+		private Release(ConcurrentSkipListMap<Long, Integer> snapshots, long version) {
+			this.snapshots = snapshots;													//sets snapshots to the value of snapshots
+			this.version = version;														//sets version to the value of version
+		}
+
+		@Override
+		public void run() {
+			snapshots.computeIfPresent(version, (v, count) -> count == 1 ? null : count - 1);	//one user less
+		}
+	}
+
+	/** Holds the cleaner so its thread only starts once versioning is used. */
+	private static final class Reclaimer {
+		private static final Cleaner CLEANER = Cleaner.create();						//releases abandoned snapshots
+	}
 	
 	private DNode<E> header;															//variable for the head node
 	private DNode<E> trailer;															//variable for the tail node
 	private int size = 0; 																//variable that keeps track of the size of the linked list
+	private DNode<E> pool;																//removed nodes kept for reuse, chained through prev
+	private int pooled = 0;																//number of nodes in the pool
+	private final int poolCapacity;														//maximum number of nodes the pool keeps
+	private boolean ordered = false;													//true while every node carries an order label
+	private boolean versioned = false;													//true while mutations record version history
+	private volatile long clock = 0;													//newest committed list version
+	private volatile long horizon = 0;													//version below which history may have been reclaimed
+	private final ConcurrentSkipListMap<Long, Integer> snapshots = new ConcurrentSkipListMap<>();	//open snapshot versions and their counts
+	private StructureMetrics metrics = null;											//operation counters, null while not instrumented
+	private Owner owner = new Owner();													//token carried by the nodes of this list
+	private int modCount = 0;															//number of structural changes, for fail-fast iterators
+
+	private static final long LABEL_SPACE = 1L << 62;									//label of the trailer, all other labels are below it
+	private static final long LABEL_STEP = 1L << 32;									//gap left after the last (or before the first) label
+	private static final long SPLIT_THRESHOLD = 1 << 10;								//shortest run a spliterator splits
+	private static final double LABEL_DENSITY = 1.4;									//a relabel range of 2^i labels may hold at most 2^i / 1.4^i nodes
 	
 	/** Constructor that initializes the header and trailer*/
 	public NodePositionalList() {
+		this(0);																		//no node pool
+	}
+
+	/**
+	 * Constructor that initializes the header and trailer and keeps up to poolCapacity
+	 * removed nodes for reuse by later insertions. The positions of such a list are
+	 * handles, so a position stays invalid after its node has been reused.
+	 *
+	 * @param poolCapacity the maximum number of removed nodes to keep, 0 for no pool
+	 */
+	public NodePositionalList(int poolCapacity) {
+		if(poolCapacity < 0) {															//if the capacity is negative
+			throw new IllegalArgumentException("Negative pool capacity: " + poolCapacity);	//throw exception
+		}
+		this.poolCapacity = poolCapacity;												//sets poolCapacity to the value of poolCapacity
 		header = new DNode<>(null, null, null);											//prev, data, and next are null
 		trailer = new DNode<>(header, null, null);										//previous node is header
 		header.next = trailer;															//the node after the header is the trailer
+		header.owner = owner;
+		trailer.owner = owner;
+		header.state = new State();														//the sentinels always carry a state
+		trailer.state = new State();
+		trailer.state.label = LABEL_SPACE;												//the header keeps label 0
 	}
 	
 	/**
-	 * Returns the given node as a Position (or null, if it is a sentinel).
+	 * Returns the given node as a Position (or null, if it is a sentinel). With a
+	 * node pool the position is the handle of the node's current use.
 	 * 
 	 * @param node the node in the linked list
-	 * @return     the node
+	 * @return     the node, or its handle
 	 */
 	private Position<E> position(DNode<E> node){
 		if(node == header || node == trailer) {											//if node is the header or trailer
 			return null;																//return null
 		}
-		return (Position<E>) node;														//return node
+		if(poolCapacity == 0) {															//nodes are never reused without a pool
+			return (Position<E>) node;													//return node
+		}
+		if(node.state.handle == null) {													//if no handle was issued yet
+			node.state.handle = new Handle(node);										//issue a handle for this use of the node
+		}
+		return node.state.handle;														//return the same handle every time
+	}
+
+	/**
+	 * Returns the node behind a position, unwrapping a handle, without checking that
+	 * it is still valid.
+	 *
+	 * @param p the position
+	 * @return  the node, or null if p is neither a node nor a handle
+	 */
+	@SuppressWarnings("unchecked")
+	private DNode<E> node(Position<E> p) {
+		if(p instanceof NodePositionalList.Handle) {									//if p is a handle
+			return ((NodePositionalList<E>.Handle) p).node;								//return its node
+		}
+		return p instanceof DNode ? (DNode<E>) p : null;
 	}
 	
 	/** Returns an iterator for the elements in the collection. 
@@ -188,7 +790,8 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 */
 	@Override
 	public Iterator<E> iterator() {
-		return (Iterator<E>) new ElementIterator();										//returns an iterator of the elements in the linked list
+		Iterator<E> iterator = versioned ? openIterator(false) : new ElementIterator();	//a fresh snapshot if versioned, else the live list
+		return metrics == null ? iterator : metrics.meter(iterator, "iterator");		//returns an iterator of the elements in the linked list
 	}
 
 	/** Returns an iterable representation of the list's positions. 
@@ -197,7 +800,45 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 */
 	@Override
 	public Iterable<E> positions() {
-		return (Iterable<E>) new PositionIterable(); 									//returns an iterable of the list's positions
+		if(versioned) {																	//if the list is versioned
+			return new Iterable<E>() {													//each iteration takes its own snapshot
+				@Override
+				public Iterator<E> iterator() {
+					Iterator<E> iterator = openIterator(true);
+					return metrics == null ? iterator : metrics.meter(iterator, "positions");
+				}
+
+				@Override
+				public Iterable<E> positions() {
+					return null;														//not needed, as in PositionIterable
+				}
+			};
+		}
+		return (Iterable<E>) new PositionIterable();									//returns an iterable of the list's positions
+	}
+
+	/** Returns a spliterator over the elements of the list. It splits by walking to the
+	 * midpoint of its run, so parallel streams divide the list evenly. In versioned
+	 * mode it reads a fresh snapshot instead and splits it in batches.
+	 *
+	 * @return a spliterator over the elements of the list
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		if(versioned) {																	//if the list is versioned
+			return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);	//read a snapshot
+		}
+		return new NodeSpliterator(header.next, size);									//spliterator over every node
+	}
+
+	/**
+	 * Returns a cursor on the first element of the list (or past the end, if the list
+	 * is empty). One cursor can walk and edit the whole list without allocating.
+	 *
+	 * @return a new cursor
+	 */
+	public Cursor cursor() {
+		return new Cursor(header.next);													//start on the first node
 	}
 
 	/** Returns the number of elements in the list. 
@@ -259,11 +900,235 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 * @return		the node that has been added between the pred and succ nodes
 	 */
 	private Position<E> addBetween(E e, DNode<E> pred, DNode<E> succ) {
-		DNode<E> newNode = new DNode<>(pred, e, succ);									//create and link a new node
+		long label = ordered ? labelBetween(pred, succ) : 0;							//label for the new node, if order is maintained
+		DNode<E> newNode = obtain(pred, e, succ);										//create and link a new node
+		if(ordered) {
+			newNode.state.label = label;												//place the new node in the order
+		}
 		pred.next = newNode;															//the next link of the previous node points to the new node
 		succ.prev = newNode;															//the previous link of the next node points to the new node
 		size++;																			//the size of the linked list is increased by 1
-		return newNode;																	//return the new node
+		modCount++;
+		if(versioned) {																	//if history is recorded
+			publish(pred, newNode);														//commit the two changed nodes
+		}
+		if(metrics != null) {															//if operations are counted
+			metrics.added(size);
+		}
+		return position(newNode);														//return the position of the new node
+	}
+
+	/**
+	 * Returns a node holding e and linked to pred and succ, reusing a pooled node if
+	 * there is one. The neighbours are not linked back to it.
+	 *
+	 * @param pred the previous node
+	 * @param e    element to be stored
+	 * @param succ the next node
+	 * @return     the node
+	 */
+	private DNode<E> obtain(DNode<E> pred, E e, DNode<E> succ) {
+		DNode<E> node = pool;															//take a node from the pool if there is one
+		if(node == null) {																//if the pool is empty
+			node = new DNode<>(pred, e, succ);											//create a new node
+			node.owner = owner;
+			if(ordered || versioned || poolCapacity > 0) {								//if a mode of the list needs it
+				node.state = new State();												//give it a state
+			}
+			return node;																//return the new node
+		}
+		pool = node.prev;																//the pool now starts at the next pooled node
+		pooled--;																		//one node less in the pool
+		node.owner = owner;																//the token may have been forwarded since
+		node.prev = pred;																//link the reused node
+		node.data = e;
+		node.next = succ;
+		return node;																	//return the reused node
+	}
+
+	//----------------------------order maintenance-----------------------
+
+	/**
+	 * Turns order maintenance on or off. While it is on every node carries a label
+	 * that grows from front to back, so compare and isBefore answer in O(1); an insert
+	 * takes the label halfway between its neighbours and relabels a small range around
+	 * them when there is no room left, which is O(log n) amortized. Turning it on
+	 * labels the current nodes in O(n); turning it off drops the labels in O(n) unless
+	 * another mode still needs the node states.
+	 *
+	 * @param on true to maintain order labels, false to stop
+	 */
+	public void setOrderMaintenance(boolean on) {
+		if(on == ordered) {																//if nothing changes
+			return;
+		}
+		if(on) {																		//if order maintenance is being switched on
+			labelRun(header.next, trailer.prev, size);									//label every node
+		}
+		ordered = on;																	//remember the mode
+		dropStates();																	//plain nodes again if no mode is left
+	}
+
+	/**
+	 * Tests whether order labels are being maintained.
+	 *
+	 * @return true if order maintenance is on, false otherwise
+	 */
+	public boolean isOrderMaintained() {
+		return ordered;																	//returns the mode
+	}
+
+	/**
+	 * Compares the positions of p and q in the list. Runs in O(1) while order
+	 * maintenance is on; otherwise it walks forward from p, which is O(n).
+	 *
+	 * @param p the first position
+	 * @param q the second position
+	 * @return  a negative number if p comes before q, 0 if they are the same, a positive number otherwise
+	 * @throws  InvalidPositionException if either position is invalid
+	 */
+	public int compare(Position<E> p, Position<E> q) throws InvalidPositionException {
+		DNode<E> a = (DNode<E>) checkPosition(p);										//cast p as a node
+		DNode<E> b = (DNode<E>) checkPosition(q);										//cast q as a node
+		if(a == b) {																	//if both are the same position
+			return 0;																	//they are equal
+		}
+		if(ordered) {																	//if labels are maintained
+			return Long.compare(a.state.label, b.state.label);							//compare the labels
+		}
+		for(DNode<E> node = a.next; node != trailer; node = node.next) {				//walk forward from p
+			if(node == b) {																//if q is reached
+				return -1;																//p comes first
+			}
+		}
+		return 1;																		//q was not after p, so it is before it
+	}
+
+	/**
+	 * Tests whether position p comes before position q in the list.
+	 *
+	 * @param p the first position
+	 * @param q the second position
+	 * @return  true if p comes strictly before q, false otherwise
+	 * @throws  InvalidPositionException if either position is invalid
+	 */
+	public boolean isBefore(Position<E> p, Position<E> q) throws InvalidPositionException {
+		return compare(p, q) < 0;														//p is before q if it compares lower
+	}
+
+	/**
+	 * Returns a label strictly between the labels of two adjacent nodes, relabeling
+	 * around pred first if the two labels are too close.
+	 *
+	 * @param pred the node that will precede the new node
+	 * @param succ the node that will follow the new node
+	 * @return     the label for the new node
+	 */
+	private long labelBetween(DNode<E> pred, DNode<E> succ) {
+		if(succ.state.label - pred.state.label < 2) {									//if there is no free label between them
+			relabel(pred);																//make room around pred
+		}
+		long low = pred.state.label;
+		long gap = succ.state.label - low;												//free labels between the two, plus one
+		if(succ == trailer) {															//appends leave a fixed gap behind them
+			return low + Math.min(gap / 2, LABEL_STEP);
+		}
+		if(pred == header) {															//so do inserts at the front
+			return succ.state.label - Math.min(gap / 2, LABEL_STEP);
+		}
+		return low + gap / 2;															//otherwise take the midpoint
+	}
+
+	/**
+	 * Gives a run of count nodes evenly spaced labels between the labels of the nodes
+	 * around it. If the gap is too small for the run, the whole list is relabeled.
+	 *
+	 * @param first the first node of the run
+	 * @param last  the last node of the run
+	 * @param count the number of nodes in the run
+	 */
+	private void labelRun(DNode<E> first, DNode<E> last, long count) {
+		if(count == 0) {																//if the run is empty
+			return;																		//there is nothing to label
+		}
+		DNode<E> pred = first.prev;														//node before the run
+		DNode<E> succ = last.next;														//node after the run
+		long step = (succ.state.label - pred.state.label) / (count + 1);				//even spacing inside the gap
+		if(succ == trailer) {															//appends leave a fixed gap behind them
+			step = Math.min(step, LABEL_STEP);
+		}
+		if(step < 2 && (pred != header || succ != trailer)) {							//if the run does not fit in the gap
+			labelRun(header.next, trailer.prev, size);									//relabel the whole list instead
+			return;
+		}
+		long label = pred.state.label;
+		for(DNode<E> node = first; node != succ; node = node.next) {					//for every node in the run
+			label += step;
+			state(node).label = label;													//give it the next label
+		}
+	}
+
+	/**
+	 * Spreads out the labels in the smallest aligned label range around pred that is
+	 * sparse enough, leaving a gap of at least two after pred.
+	 *
+	 * @param pred the node that needs room after it
+	 */
+	private void relabel(DNode<E> pred) {
+		DNode<E> left = pred == header ? header : pred.prev;							//last node before the range
+		DNode<E> right = pred.next;														//first node after the range
+		int count = pred == header ? 0 : 1;												//nodes inside the range
+		for(int i = 1; i <= 62; i++) {													//try ranges of 2^i labels
+			long width = 1L << i;
+			long low = pred.state.label & -width;										//aligned range that holds pred
+			long high = low + width - 1;
+			while(left != header && left.state.label >= low) {							//grow the range to the left
+				left = left.prev;
+				count++;
+			}
+			while(right != trailer && right.state.label <= high) {						//grow the range to the right
+				right = right.next;
+				count++;
+			}
+			long first = Math.max(low, 1);												//labels 0 and LABEL_SPACE belong to the sentinels
+			long last = Math.min(high, LABEL_SPACE - 1);
+			long step = (last - first + 1) / (count + 1);								//even spacing with room for one more node
+			if(step >= 2 && (count + 1) * Math.pow(LABEL_DENSITY, i) <= width) {		//if the range is sparse enough
+				long label = first + step / 2;
+				for(DNode<E> node = left.next; node != right; node = node.next) {		//for every node in the range
+					node.state.label = label;											//give it an evenly spaced label
+					label += step;
+				}
+				return;
+			}
+		}
+		throw new IllegalStateException("Order labels exhausted");						//more nodes than labels
+	}
+
+	/**
+	 * Returns the state of a node, giving it one first if it has none yet.
+	 *
+	 * @param node the node
+	 * @return     its state
+	 */
+	private State state(DNode<E> node) {
+		if(node.state == null) {														//if no mode needed it so far
+			node.state = new State();
+		}
+		return node.state;
+	}
+
+	/**
+	 * Drops the states of the nodes once no mode of the list needs them any more, so
+	 * the list is back to plain nodes. The sentinels keep theirs.
+	 */
+	private void dropStates() {
+		if(ordered || versioned || poolCapacity > 0) {									//if a mode still needs them
+			return;
+		}
+		for(DNode<E> node = header.next; node != trailer; node = node.next) {			//for every node
+			node.state = null;
+		}
 	}
 	
 	/**
@@ -271,13 +1136,75 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 * 
 	 * @param v the position that is checked
 	 * @return  the node of the passed position
-	 * @throws InvalidPositionException if v does not exist or v is not a node
+	 * @throws InvalidPositionException if v does not exist, is not a node or is a node of another list
 	 */
 	protected Position<E> checkPosition(Position<E> v) throws InvalidPositionException{
-		if(v == null || !(v instanceof DNode)) {										//if v does not exist or v is not a node
-			throw new InvalidPositionException("The position is invalid");				//throw exception
+		DNode<E> node = node(v);
+		if(node == null) {																//if v does not exist or v is not a node
+			throw invalid("The position is invalid");									//throw exception
+		}
+		if(node.next == null || node == header) {										//if v was removed or is a sentinel
+			throw invalid("The position is no longer valid");							//throw exception
 		}
-		return (Position<E>) v;
+		if(v != node && (node.state == null || v != node.state.handle)) {				//if v is a handle of an earlier use of the node
+			throw invalid("The position is no longer valid");							//throw exception
+		}
+		if(!owns(node)) {																//if v is a node of another list
+			throw invalid("The position is not in this list");							//throw exception
+		}
+		return node;																	//return the node
+	}
+
+	/**
+	 * Tests whether a node belongs to this list, following the forwarded tokens of
+	 * lists spliced into others and shortening the node's path for next time.
+	 *
+	 * @param node the node
+	 * @return     true if the node belongs to this list
+	 */
+	private boolean owns(DNode<E> node) {
+		Owner token = node.owner;
+		if(token == null) {																//if no list created the node
+			return false;
+		}
+		if(token.forward != null) {														//if its list was spliced into another
+			while(token.forward != null) {
+				token = token.forward;
+			}
+			node.owner = token;															//point the node at the current token
+		}
+		return token == owner;
+	}
+
+	/**
+	 * Creates the exception for a rejected position, counting it if metrics are on.
+	 *
+	 * @param message the message of the exception
+	 * @return        the exception to throw
+	 */
+	private InvalidPositionException invalid(String message) {
+		InvalidPositionException e = new InvalidPositionException(message);
+		return metrics == null ? e : metrics.invalid(e);								//count and report it if metrics are on
+	}
+
+	/**
+	 * Installs metrics that count the adds, removes, sets, traversals and rejected
+	 * positions of this list, or removes them. Without metrics each of those
+	 * operations pays one null check.
+	 *
+	 * @param metrics the metrics to update, or null to stop counting
+	 */
+	public void setMetrics(StructureMetrics metrics) {
+		this.metrics = metrics;															//sets metrics to the value of metrics
+	}
+
+	/**
+	 * Returns the installed metrics.
+	 *
+	 * @return the metrics of this list, or null if none are installed
+	 */
+	public StructureMetrics getMetrics() {
+		return metrics;																	//returns the metrics
 	}
 
 	/**
@@ -294,7 +1221,7 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 			return null;																//return null
 		}
 		else {
-			DNode<E> node = (NodePositionalList<E>.DNode<E>) checkPosition(p);			//cast p as a node
+			DNode<E> node = (DNode<E>) checkPosition(p);								//cast p as a node
 			return position(node.prev);													//return the position of p
 		}
 		
@@ -313,7 +1240,7 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 			return null;																//return null
 		}
 		else {
-			DNode<E> node = (NodePositionalList<E>.DNode<E>) checkPosition(p);			//cast p as a node
+			DNode<E> node = (DNode<E>) checkPosition(p);								//cast p as a node
 			return position(node.next);													//return the position of p
 		}
 	}
@@ -326,7 +1253,7 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 */
 	@Override
 	public Position<E> addFirst(E e) {
-		return addBetween(e, header.prev, header);										//return the added element just after the header node									
+		return addBetween(e, header, header.next);										//return the added element just after the header node
 	}
 
 	/**
@@ -337,7 +1264,7 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 */
 	@Override
 	public Position<E> addLast(E e) {
-		return addBetween(e, trailer, trailer.next);									//return the added element just before the trailer node
+		return addBetween(e, trailer.prev, trailer);									//return the added element just before the trailer node
 	}
 
 	/**
@@ -350,7 +1277,7 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 */
 	@Override
 	public Position<E> addBefore(Position<E> p, E e) throws InvalidPositionException {							
-		DNode<E> node = (NodePositionalList<E>.DNode<E>) checkPosition(p);				//cast p as a node
+		DNode<E> node = (DNode<E>) checkPosition(p);									//cast p as a node
 		return addBetween(e, node.prev, node);											//return the position of p
 	}
 
@@ -364,7 +1291,7 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 */
 	@Override
 	public Position<E> addAfter(Position<E> p, E e) throws InvalidPositionException {							
-		DNode<E> node = (NodePositionalList<E>.DNode<E>) checkPosition(p);				//cast p as a node
+		DNode<E> node = (DNode<E>) checkPosition(p);									//cast p as a node
 		return addBetween(e, node, node.next);											//return the position of p
 	}
 
@@ -378,9 +1305,26 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 */
 	@Override
 	public E set(Position<E> p, E e) throws InvalidPositionException {
-		DNode<E> node = (NodePositionalList<E>.DNode<E>) checkPosition(p);				//cast p as a node
+		DNode<E> node = (DNode<E>) checkPosition(p);									//cast p as a node
+		return replace(node, e);														//replace the element of the node
+	}
+
+	/**
+	 * Replaces the element of a node of the list and returns the replaced element.
+	 *
+	 * @param node the node
+	 * @param e    the new element
+	 * @return     the replaced element
+	 */
+	private E replace(DNode<E> node, E e) {
 		E replaced = node.data;															//variable to store the replaced element
 		node.data = e;																	//replace the data in the position with element 'e'
+		if(versioned) {																	//if history is recorded
+			publish(node, null);														//commit the changed node
+		}
+		if(metrics != null) {															//if operations are counted
+			metrics.set();
+		}
 		return replaced;																//return the replaced element
 	}
 
@@ -393,30 +1337,729 @@ public class NodePositionalList<E> implements PositionalList<E>, Iterable<E> {
 	 */
 	@Override
 	public E remove(Position<E> p) throws InvalidPositionException {							
-		DNode<E> node = (NodePositionalList<E>.DNode<E>) checkPosition(p);				//cast p as a node
+		DNode<E> node = (DNode<E>) checkPosition(p);									//cast p as a node
+		return unlink(node);															//unlink the node
+	}
+
+	/**
+	 * Unlinks a node of the list, invalidates it and returns its element.
+	 *
+	 * @param node the node
+	 * @return     the removed element
+	 */
+	private E unlink(DNode<E> node) {
 		E removed = node.data;															//variable that holds the element to be removed
 		DNode<E> before = node.prev;													//before is equal to the previous link of node 'n'
 		DNode<E> after = node.next;														//after is equal to the next link of node 'n'
 		before.next = after;															//the next link of the before node points to the after node
 		after.prev = before;															//the previous link of the after node points to the before node
 		size--;																			//decrease the size of the linked list by 1
+		modCount++;
+		if(versioned) {																	//if history is recorded
+			publish(before, null);														//commit the changed node
+		}
+		if(metrics != null) {															//if operations are counted
+			metrics.removed(1, size);
+		}
+		recycle(node);																	//invalidate the node and pool it
 		return removed;																	//return the removed element
 	}
+
+	/**
+	 * Invalidates an unlinked node and keeps it in the pool if there is room.
+	 * A removed node has a null next link, which getElement and checkPosition reject.
+	 * Its handle is dropped, so the positions issued for it stay rejected after the
+	 * node has been reused.
+	 *
+	 * @param node the node that has just been unlinked
+	 */
+	private void recycle(DNode<E> node) {
+		if(node.state != null) {
+			node.state.handle = null;													//positions issued before this point are stale
+		}
+		node.data = null;																//let go of the element
+		node.next = null;																//mark the node as removed
+		node.prev = null;
+		if(pooled < poolCapacity) {														//if the pool has room
+			node.prev = pool;															//push the node on the pool
+			pool = node;
+			pooled++;
+		}
+	}
 	
+	//----------------------------bulk structural operations-----------------------
+
+	/**
+	 * Moves every node of other right after Position p in O(1), leaving other empty.
+	 * The positions of the moved elements stay valid and now belong to this list.
+	 * If order maintenance is on, the moved nodes are relabeled, which is O(k).
+	 *
+	 * @param p     the position to splice after, or null to splice at the front
+	 * @param other the list whose nodes are moved
+	 * @throws      InvalidPositionException if p is not a valid position of this list
+	 * @throws      IllegalArgumentException if only one of the two lists has a node pool
+	 */
+	public void spliceAfter(Position<E> p, NodePositionalList<E> other) throws InvalidPositionException {
+		if(other == this) {																//if the list is spliced into itself
+			throw new IllegalArgumentException("Cannot splice a list into itself");		//throw exception
+		}
+		checkNotVersioned(other);														//nodes can not carry history across lists
+		checkSamePooling(other);														//nodes can not change their kind of position
+		DNode<E> pred = p == null ? header : (DNode<E>) checkPosition(p);				//node to splice after
+		if(other.isEmpty()) {															//if there is nothing to move
+			return;																		//we are done
+		}
+		DNode<E> first = other.header.next;												//first node to move
+		DNode<E> last = other.trailer.prev;												//last node to move
+		long count = other.size;														//number of nodes to move
+		other.header.next = other.trailer;												//other is now empty
+		other.trailer.prev = other.header;
+		other.size = 0;
+		other.modCount++;
+		other.owner.forward = owner;													//the moved nodes now belong to this list
+		other.owner = new Owner();														//other starts over with a fresh token
+		other.header.owner = other.owner;
+		other.trailer.owner = other.owner;
+		if(other.metrics != null) {														//if operations are counted
+			other.metrics.removed((int) count, 0);
+		}
+		linkRun(first, last, pred, count);												//link the run after pred
+		if(metrics != null) {															//if operations are counted
+			metrics.added((int) count, size);
+		}
+	}
+
+	/**
+	 * Cuts the list after Position p and returns a new list holding every node after p.
+	 * The positions of the moved elements stay valid and now belong to the new list.
+	 * Runs in time proportional to the length of the tail, which has to be counted.
+	 *
+	 * @param p the last position that stays in this list
+	 * @return  a new list holding the tail
+	 * @throws  InvalidPositionException if p is not a valid position
+	 */
+	public NodePositionalList<E> splitAfter(Position<E> p) throws InvalidPositionException {
+		DNode<E> pred = (DNode<E>) checkPosition(p);									//cast p as a node
+		checkNotVersioned(this);														//nodes can not carry history across lists
+		NodePositionalList<E> tail = new NodePositionalList<>(poolCapacity);			//list that receives the tail
+		if(pred.next == trailer) {														//if p is last
+			return tail;																//the tail is empty
+		}
+		DNode<E> first = pred.next;														//first node of the tail
+		DNode<E> last = trailer.prev;													//last node of the tail
+		int count = 0;
+		for(DNode<E> node = first; node != trailer; node = node.next) {					//count the tail
+			node.owner = tail.owner;													//and hand it over to the new list
+			count++;
+		}
+		pred.next = trailer;															//this list now ends at p
+		trailer.prev = pred;
+		size -= count;
+		modCount++;
+		if(metrics != null) {															//if operations are counted
+			metrics.removed(count, size);
+		}
+		tail.header.next = first;														//the tail list takes over the run
+		first.prev = tail.header;
+		tail.trailer.prev = last;
+		last.next = tail.trailer;
+		tail.size = count;
+		tail.ordered = ordered;															//labels of a suffix are still in order
+		return tail;																	//return the tail
+	}
+
+	/**
+	 * Moves the run of nodes from Position from through Position to (inclusive) to the
+	 * back of target, which may be this list. The positions of the moved elements stay
+	 * valid. Runs in time proportional to the length of the run, which has to be counted.
+	 *
+	 * @param from   the first position of the run
+	 * @param to     the last position of the run, at or after from
+	 * @param target the list that receives the run
+	 * @throws       InvalidPositionException if a position is invalid or not in this list, or to does not follow from
+	 * @throws       IllegalArgumentException if the run changes lists and only one of them has a node pool
+	 */
+	public void moveRange(Position<E> from, Position<E> to, NodePositionalList<E> target) throws InvalidPositionException {
+		DNode<E> first = (DNode<E>) checkPosition(from);								//cast from as a node
+		DNode<E> last = (DNode<E>) checkPosition(to);									//cast to as a node
+		if(target != this) {															//if the run leaves this list
+			checkNotVersioned(target);													//nodes can not carry history across lists
+			checkSamePooling(target);													//nodes can not change their kind of position
+		}
+		int count = 1;
+		for(DNode<E> node = first; node != last; node = node.next) {					//walk from the first node to the last
+			if(node == trailer) {														//if the end was reached first
+				throw invalid("The range is invalid");									//throw exception
+			}
+			count++;
+		}
+		DNode<E> before = first.prev;													//node that ends up before the gap
+		before.next = last.next;														//unlink the run from this list
+		last.next.prev = before;
+		size -= count;
+		modCount++;
+		if(versioned) {																	//if history is recorded
+			publish(before, null);														//commit the unlink on its own
+		}
+		if(target != this) {															//if the run changes lists
+			for(DNode<E> node = first; node != last.next; node = node.next) {			//hand it over to target
+				node.owner = target.owner;
+			}
+			if(metrics != null) {														//if operations are counted
+				metrics.removed(count, size);
+			}
+		}
+		target.linkRun(first, last, target.trailer.prev, count);						//link the run at the back of target
+		if(target != this && target.metrics != null) {									//if target counts operations
+			target.metrics.added(count, target.size);
+		}
+	}
+
+	/**
+	 * Inserts the given elements at the back of the list in one pass, linking the
+	 * new chain to the list once and updating the size once.
+	 *
+	 * @param elements the elements to be inserted, in order
+	 */
+	@SafeVarargs
+	public final void addAllLast(E... elements) {
+		DNode<E> first = null;															//first node of the new chain
+		DNode<E> last = null;															//last node of the new chain
+		for(E e : elements) {															//for every element
+			DNode<E> node = obtain(last, e, null);										//create a node after the last one
+			if(last == null) {
+				first = node;
+			}
+			else {
+				last.next = node;
+			}
+			last = node;
+		}
+		if(first != null) {																//if there was anything to add
+			linkRun(first, last, trailer.prev, elements.length);						//link the chain at the back
+			if(metrics != null) {														//if operations are counted
+				metrics.added(elements.length, size);
+			}
+		}
+	}
+
+	/**
+	 * Inserts the elements of the given iterable at the back of the list in one pass,
+	 * linking the new chain to the list once and updating the size once.
+	 *
+	 * @param elements the elements to be inserted, in order
+	 */
+	public void addAllLast(java.lang.Iterable<? extends E> elements) {
+		DNode<E> first = null;															//first node of the new chain
+		DNode<E> last = null;															//last node of the new chain
+		int count = 0;
+		for(E e : elements) {															//for every element
+			DNode<E> node = obtain(last, e, null);										//create a node after the last one
+			if(last == null) {
+				first = node;
+			}
+			else {
+				last.next = node;
+			}
+			last = node;
+			count++;
+		}
+		if(first != null) {																//if there was anything to add
+			linkRun(first, last, trailer.prev, count);									//link the chain at the back
+			if(metrics != null) {														//if operations are counted
+				metrics.added(count, size);
+			}
+		}
+	}
+
+	/**
+	 * Links a chain of count nodes from first to last right after pred and labels them
+	 * if order maintenance is on.
+	 *
+	 * @param first the first node of the chain
+	 * @param last  the last node of the chain
+	 * @param pred  the node the chain goes after
+	 * @param count the number of nodes in the chain
+	 */
+	private void linkRun(DNode<E> first, DNode<E> last, DNode<E> pred, long count) {
+		DNode<E> succ = pred.next;														//node the chain goes before
+		pred.next = first;																//link the chain between pred and succ
+		first.prev = pred;
+		last.next = succ;
+		succ.prev = last;
+		size += count;																	//one size update for the whole chain
+		modCount++;
+		if(ordered) {																	//if order is maintained
+			labelRun(first, last, count);												//label the chain
+		}
+		if(versioned) {																	//if history is recorded
+			long floor = openVersion();													//commit pred and the whole chain together
+			record(pred, floor);
+			for(DNode<E> node = first; node != succ; node = node.next) {
+				record(node, floor);
+			}
+			clock = clock + 1;
+		}
+	}
+
+	//----------------------------bulk element operations-----------------------
+
+	/**
+	 * Removes every element that satisfies the filter in a single pass. Each removed
+	 * node is unlinked as soon as it is tested, so the list is whole whenever the
+	 * filter runs; the modification count is bumped once and, in versioned mode, the
+	 * node before each run of removed nodes is recorded once and the whole removal is
+	 * committed as one version. If the filter throws, the elements removed so far
+	 * stay removed and the list stays consistent. The filter must not change the list
+	 * itself.
+	 *
+	 * @param filter the test an element has to pass to be removed
+	 * @return       the number of elements removed
+	 * @throws       java.util.ConcurrentModificationException if the filter changed the list
+	 */
+	public int removeIf(Predicate<? super E> filter) {
+		long floor = versioned ? openVersion() : 0;										//oldest version still readable
+		DNode<E> kept = header;															//last node that stays
+		boolean relinked = false;														//true while the next link of kept is not recorded yet
+		int removed = 0;
+		try {
+			for(DNode<E> node = header.next; node != trailer;) {
+				DNode<E> next = node.next;
+				int expectedModCount = modCount;
+				boolean goes = filter.test(node.data);									//test the element
+				if(modCount != expectedModCount) {										//if the filter changed the list itself
+					throw new java.util.ConcurrentModificationException("The filter changed the list");	//throw exception
+				}
+				if(goes) {																//if the element goes
+					kept.next = next;													//unlink it at once
+					next.prev = kept;
+					size--;
+					removed++;
+					relinked = true;
+					recycle(node);														//invalidate the node and pool it
+				}
+				else {
+					if(relinked && versioned) {											//if a run was removed before it
+						record(kept, floor);											//kept has a new next link
+					}
+					relinked = false;
+					kept = node;
+				}
+				node = next;
+			}
+		}
+		finally {
+			if(removed > 0) {															//if anything was removed
+				if(relinked && versioned) {												//record the link over the last run
+					record(kept, floor);
+				}
+				modCount++;
+				if(versioned) {
+					clock = clock + 1;													//readers see the removal from now on
+				}
+				if(metrics != null) {													//if operations are counted
+					metrics.removed(removed, size);
+				}
+			}
+		}
+		return removed;																	//return the number of elements removed
+	}
+
+	/**
+	 * Removes every element that does not satisfy the filter in a single pass.
+	 *
+	 * @param filter the test an element has to pass to stay
+	 * @return       the number of elements removed
+	 */
+	public int retainIf(Predicate<? super E> filter) {
+		return removeIf(filter.negate());												//remove what fails the test
+	}
+
+	/**
+	 * Replaces every element with the result of the operator, front to back. In
+	 * versioned mode all the replacements are committed as one version.
+	 *
+	 * @param operator the function applied to each element
+	 */
+	public void replaceAll(UnaryOperator<E> operator) {
+		long floor = versioned ? openVersion() : 0;										//oldest version still readable
+		boolean changed = false;
+		try {
+			for(DNode<E> node = header.next; node != trailer; node = node.next) {		//for every node
+				node.data = operator.apply(node.data);									//replace its element
+				changed = true;
+				if(versioned) {															//if history is recorded
+					record(node, floor);
+				}
+				if(metrics != null) {													//if operations are counted
+					metrics.set();
+				}
+			}
+		}
+		finally {
+			if(changed && versioned) {
+				clock = clock + 1;														//readers see the new elements from now on
+			}
+		}
+	}
+
+	/**
+	 * Sorts the list with a stable bottom-up merge sort that relinks the nodes instead
+	 * of moving elements, in O(n log n) time and O(1) extra space. Every position
+	 * stays valid and keeps its element. The merges rewrite only the next links, so if
+	 * the comparator throws, the previous links still hold the original order and the
+	 * list is restored from them. Order labels are reassigned and, in versioned mode,
+	 * the new order is committed as one version.
+	 *
+	 * @param c the comparator, or null to use the natural order of the elements
+	 */
+	@SuppressWarnings("unchecked")
+	public void sort(Comparator<? super E> c) {
+		if(size < 2) {																	//if the list is already sorted
+			return;
+		}
+		Comparator<? super E> order = c != null ? c : (Comparator<? super E>) Comparator.naturalOrder();
+		trailer.prev.next = null;														//end the chain at the last node
+		DNode<E> head;
+		try {
+			head = mergeSort(header.next, order);										//sort the chain through its next links
+		}
+		catch(RuntimeException | Error e) {												//the previous links still hold the old order
+			for(DNode<E> node = trailer; node != header; node = node.prev) {			//restore the next links from them
+				node.prev.next = node;
+			}
+			throw e;
+		}
+		DNode<E> pred = header;
+		for(DNode<E> node = head; node != null; node = node.next) {						//rebuild the previous links
+			pred.next = node;
+			node.prev = pred;
+			pred = node;
+		}
+		pred.next = trailer;
+		trailer.prev = pred;
+		modCount++;
+		if(ordered) {																	//if order is maintained
+			labelRun(header.next, trailer.prev, size);									//the labels follow the new order
+		}
+		if(versioned) {																	//if history is recorded
+			long floor = openVersion();													//commit every next link together
+			for(DNode<E> node = header; node != trailer; node = node.next) {
+				record(node, floor);
+			}
+			clock = clock + 1;
+		}
+	}
+
+	/**
+	 * Sorts a null-terminated chain of nodes by their next links, merging runs of
+	 * width 1, 2, 4, ... until one run is left. Ties keep the node from the left run.
+	 *
+	 * @param head the first node of the chain
+	 * @param c    the comparator
+	 * @return     the first node of the sorted chain
+	 */
+	private DNode<E> mergeSort(DNode<E> head, Comparator<? super E> c) {
+		for(int width = 1; ; width <<= 1) {												//double the run length every pass
+			DNode<E> left = head;														//first node of the next left run
+			DNode<E> tail = null;														//last node merged so far
+			head = null;
+			int merges = 0;
+			while(left != null) {														//merge the next pair of runs
+				merges++;
+				DNode<E> right = left;													//find the start of the right run
+				int leftSize = 0;
+				while(leftSize < width && right != null) {
+					leftSize++;
+					right = right.next;
+				}
+				int rightSize = width;
+				while(leftSize > 0 || (rightSize > 0 && right != null)) {				//take the smaller head, the left one on ties
+					DNode<E> next;
+					if(leftSize == 0) {
+						next = right;
+						right = right.next;
+						rightSize--;
+					}
+					else if(rightSize == 0 || right == null || c.compare(left.data, right.data) <= 0) {
+						next = left;
+						left = left.next;
+						leftSize--;
+					}
+					else {
+						next = right;
+						right = right.next;
+						rightSize--;
+					}
+					if(tail == null) {
+						head = next;
+					}
+					else {
+						tail.next = next;
+					}
+					tail = next;
+				}
+				left = right;															//the next pair starts after the right run
+			}
+			tail.next = null;
+			if(merges <= 1) {															//if the whole chain was one merge
+				return head;															//it is sorted
+			}
+		}
+	}
+
+	/**
+	 * Merges other, which has to be sorted by the same comparator as this list, into
+	 * this list in linear time, leaving other empty. The nodes of other are relinked,
+	 * so their positions stay valid and now belong to this list. The merge is stable:
+	 * of two equal elements, the one from this list comes first. Each node is moved
+	 * on its own, so if the comparator throws, both lists stay consistent. Like the
+	 * other moves between lists, it is not supported while versioning is on.
+	 *
+	 * @param other the sorted list whose nodes are merged in
+	 * @param c     the comparator, or null to use the natural order of the elements
+	 * @throws      IllegalStateException if either list is versioned
+	 * @throws      IllegalArgumentException if only one of the two lists has a node pool
+	 */
+	@SuppressWarnings("unchecked")
+	public void merge(NodePositionalList<E> other, Comparator<? super E> c) {
+		if(other == this) {																//if the list is merged into itself
+			throw new IllegalArgumentException("Cannot merge a list into itself");		//throw exception
+		}
+		checkNotVersioned(other);														//nodes can not carry history across lists
+		checkSamePooling(other);														//nodes can not change their kind of position
+		Comparator<? super E> order = c != null ? c : (Comparator<? super E>) Comparator.naturalOrder();
+		DNode<E> succ = header.next;													//node of this list the next node goes before
+		while(other.size > 0) {
+			DNode<E> node = other.header.next;											//smallest node left in other
+			while(succ != trailer && order.compare(succ.data, node.data) <= 0) {		//skip the nodes that stay before it
+				succ = succ.next;
+			}
+			other.header.next = node.next;												//unlink it from other
+			node.next.prev = other.header;
+			other.size--;
+			other.modCount++;
+			if(other.metrics != null) {													//if other counts operations
+				other.metrics.removed(1, other.size);
+			}
+			DNode<E> pred = succ.prev;
+			long label = ordered ? labelBetween(pred, succ) : 0;						//label it for this list, if order is maintained
+			node.prev = pred;															//link it before succ
+			node.next = succ;
+			if(ordered) {
+				state(node).label = label;
+			}
+			node.owner = owner;															//the node now belongs to this list
+			pred.next = node;
+			succ.prev = node;
+			size++;
+			modCount++;
+			if(metrics != null) {														//if operations are counted
+				metrics.added(size);
+			}
+		}
+	}
+
+	//----------------------------versioned snapshots-----------------------
+
+	/**
+	 * Turns versioning on or off. While it is on every mutation commits a new list
+	 * version and keeps the previous next link and element of the nodes it changes,
+	 * so snapshot(), iterator() and positions() read a consistent point-in-time view
+	 * while a writer keeps changing the list. History that no open snapshot can see
+	 * any more is dropped as nodes are written again. Writers still have to be
+	 * serialized among themselves; snapshot readers need no locking at all. Removing
+	 * through one of these iterators removes from the live list, a writer operation.
+	 * Moving nodes to or from another list is not supported while versioning is on.
+	 *
+	 * @param on true to record version history, false to stop
+	 * @throws   IllegalStateException if versioning is turned off while snapshots are open
+	 */
+	public void setVersioned(boolean on) {
+		if(on == versioned) {															//if nothing changes
+			return;
+		}
+		if(!on && !snapshots.isEmpty()) {												//if snapshots still read the history
+			throw new IllegalStateException("Snapshots are still open");				//throw exception
+		}
+		for(DNode<E> node = header; node != null; node = node.next) {					//for every node, sentinels included
+			state(node).versions = on ? new Version(clock, node.next, node.data, null) : null;	//start or drop its history
+		}
+		versioned = on;																	//remember the mode
+		dropStates();																	//plain nodes again if no mode is left
+	}
+
+	/**
+	 * Tests whether version history is being recorded.
+	 *
+	 * @return true if the list is versioned, false otherwise
+	 */
+	public boolean isVersioned() {
+		return versioned;																//returns the mode
+	}
+
+	/**
+	 * Returns a point-in-time view of a versioned list. Taking it is O(1) and it
+	 * stays consistent while the list keeps changing. Close it when done.
+	 *
+	 * @return a snapshot of the current version
+	 * @throws IllegalStateException if the list is not versioned
+	 */
+	public Snapshot snapshot() {
+		if(!versioned) {																//if there is no history to read
+			throw new IllegalStateException("The list is not versioned");				//throw exception
+		}
+		while(true) {
+			long version = clock;														//newest committed version
+			snapshots.merge(version, 1, Integer::sum);									//register it
+			if(horizon <= version) {													//if its history can not have been dropped yet
+				return new Snapshot(version);											//it is safe to read
+			}
+			new Release(snapshots, version).run();										//otherwise retry with a newer version
+		}
+	}
+
+	/**
+	 * Returns an iterator over a fresh snapshot that releases it when exhausted.
+	 *
+	 * @param reportPositions true to report positions, false to report elements
+	 * @return                an iterator over the current version
+	 */
+	private <T> Iterator<T> openIterator(boolean reportPositions) {
+		SnapshotIterator<T> iterator = new SnapshotIterator<>(snapshot(), reportPositions);	//iterator over a new snapshot
+		iterator.closeAtEnd = true;														//it owns the snapshot
+		return iterator;																//return the iterator
+	}
+
+	/**
+	 * Returns the version record of node as of the given list version.
+	 *
+	 * @param node    a node reachable in that version
+	 * @param version the list version
+	 * @return        the newest record committed at or before that version
+	 */
+	private Version versionAt(DNode<E> node, long version) {
+		Version record = node.state.versions;											//newest record
+		while(record.stamp > version) {													//skip records committed later
+			record = record.older;
+		}
+		return record;																	//return the record
+	}
+
+	/**
+	 * Commits up to two changed nodes as a new list version.
+	 *
+	 * @param a a changed node
+	 * @param b another changed node, or null
+	 */
+	private void publish(DNode<E> a, DNode<E> b) {
+		long floor = openVersion();														//oldest version still readable
+		record(a, floor);
+		if(b != null) {
+			record(b, floor);
+		}
+		clock = clock + 1;																//readers see the new records from now on
+	}
+
+	/**
+	 * Starts a commit: moves the horizon up to the current version and returns the
+	 * oldest version any open or opening snapshot can still read. The horizon is
+	 * written before the registry is read, so a snapshot that registers meanwhile
+	 * either shows up in the registry or sees the new horizon and retries.
+	 *
+	 * @return the oldest version whose history must be kept
+	 */
+	private long openVersion() {
+		long current = clock;															//newest committed version
+		horizon = current;																//history below this may go from now on
+		if(snapshots.isEmpty()) {														//if nobody reads old versions
+			return current;
+		}
+		return Math.min(current, snapshots.firstKey());									//keep what the oldest snapshot sees
+	}
+
+	/**
+	 * Adds a record of node's current next link and element for the version being
+	 * committed, and drops the records older than the one visible at floor.
+	 *
+	 * @param node  a changed node
+	 * @param floor the oldest version whose history must be kept
+	 */
+	private void record(DNode<E> node, long floor) {
+		Version head = node.state.versions;												//newest record so far
+		for(Version r = head; r != null; r = r.older) {									//find the record visible at floor
+			if(r.stamp <= floor) {
+				r.older = null;															//everything older is unreachable
+				break;
+			}
+		}
+		node.state.versions = new Version(clock + 1, node.next, node.data, head);		//record the new state
+	}
+
+	/**
+	 * Throws if this list or the other list is versioned.
+	 *
+	 * @param other the other list taking part in a structural move
+	 * @throws      IllegalStateException if either list is versioned
+	 */
+	private void checkNotVersioned(NodePositionalList<E> other) {
+		if(versioned || other.versioned) {												//if history would have to move between lists
+			throw new IllegalStateException("Cannot move nodes between versioned lists");	//throw exception
+		}
+	}
+
+	/**
+	 * Throws if only one of this list and the other list has a node pool. A list
+	 * without a pool hands out its nodes as positions and a pooled list hands out
+	 * handles, so a node moved from one to the other would change its position, and
+	 * a pooled list could reuse a node whose raw position is still held.
+	 *
+	 * @param other the other list taking part in a structural move
+	 * @throws      IllegalArgumentException if exactly one of the lists is pooled
+	 */
+	private void checkSamePooling(NodePositionalList<E> other) {
+		if((poolCapacity == 0) != (other.poolCapacity == 0)) {							//if the lists issue different kinds of positions
+			throw new IllegalArgumentException("Cannot move nodes between a pooled and an unpooled list");	//throw exception
+		}
+	}
+
+	/**
+	 * Writes the elements of the list to out as plain text, each followed by a space.
+	 * 
+	 * @param out where the output goes
+	 * @throws    IOException if out fails
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		writeTo(out, new Renderer(Renderer.Format.TEXT));								//plain text without limits
+	}
+
+	/**
+	 * Writes the elements of the list to out in the format and within the limits of the
+	 * given renderer. The output is streamed, so this runs in linear time and builds no
+	 * string of the whole list.
+	 * 
+	 * @param out      where the output goes
+	 * @param renderer the format and limits
+	 * @throws         IOException if out fails
+	 */
+	public void writeTo(Appendable out, Renderer renderer) throws IOException {
+		renderer.writeList(this, out);													//render the elements in order
+	}
+
 	/**
 	 * Returns a string representation of the linked list
 	 * 
 	 * @return a string representation of the linked list
 	 */
 	public String toString() {
-		String list = "";																//initialize an empty string
-		
-		DNode<E> currentNode = header;													//variable that points to the header node
-		while(currentNode != null) {													//while a node exist
-			list = list + currentNode.data + " ";										//add the element in current node with a space right after
-			currentNode = currentNode.next;												//move the pointer to the next node
+		StringBuilder list = new StringBuilder();										//builder for the string
+		try {
+			writeTo(list);																//render into the builder
+		}
+		catch(IOException e) {															//a StringBuilder does not fail
+			throw new UncheckedIOException(e);
 		}
-		return list;																	//return the string
+		return list.toString();															//return the string
 	}
 
 }
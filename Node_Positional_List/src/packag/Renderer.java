@@ -0,0 +1,300 @@
+package packag;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Writes lists and trees to an Appendable as they are walked, so rendering takes
+ * linear time and holds no more than the path to the current node. Three formats are
+ * supported: plain text (a list as its elements separated by spaces, a tree as an
+ * outline with one indented node per line), the parenthetic form (a(b, c(d))) and
+ * JSON (a list as an array, a tree as nested {"element": .., "children": [..]}
+ * objects). A preview of a large structure can be rendered cheaply by limiting the
+ * number of elements and the depth of the tree; whatever is cut off is shown as a
+ * single "..." (a "..." string in JSON, so the output stays valid).
+ */
+public class Renderer {
+
+	/** The output formats. */
+	public enum Format { TEXT, PARENTHETIC, JSON }
+
+	private static final String MORE = "...";											//marker for elements that were cut off
+	private static final String INDENT = "  ";											//outline indentation per level
+
+	//----------------------------nested Frame class-----------------------
+
+	/** This class is one open node of the tree walk: its remaining children. */
+	private static class Frame<T> {
+
+		private final Iterator<Position<T>> children;									//children not rendered yet
+		private boolean first = true;													//true until a child has been rendered
+
+		private Frame(Iterator<Position<T>> children) {
+			this.children = children;													//sets children to the value of children
+		}
+	}
+	//----------------------------end of nested Frame class--------------------
+
+	private final Format format;														//the output format
+	private int maxDepth = Integer.MAX_VALUE;											//deepest level that is rendered, the root is level 0
+	private long maxElements = Long.MAX_VALUE;											//number of elements rendered at most
+
+	/**
+	 * Constructs a renderer for the given format with no limits.
+	 *
+	 * @param format the output format
+	 */
+	public Renderer(Format format) {
+		this.format = format;															//sets format to the value of format
+	}
+
+	/**
+	 * Limits the depth of rendered trees; the children of nodes at this depth are
+	 * replaced by the "..." marker.
+	 *
+	 * @param depth the deepest level that is rendered, 0 for the root only
+	 */
+	public void setMaxDepth(int depth) {
+		if(depth < 0) {																	//if the depth is negative
+			throw new IllegalArgumentException("Negative depth: " + depth);
+		}
+		maxDepth = depth;																//sets maxDepth to the value of depth
+	}
+
+	/**
+	 * Limits the number of rendered elements; the rest is replaced by the "..." marker.
+	 *
+	 * @param count the number of elements rendered at most
+	 */
+	public void setMaxElements(long count) {
+		if(count < 0) {																	//if the count is negative
+			throw new IllegalArgumentException("Negative count: " + count);
+		}
+		maxElements = count;															//sets maxElements to the value of count
+	}
+
+	/**
+	 * Writes the elements of a list, in order.
+	 *
+	 * @param list the list to render
+	 * @param out  where the output goes
+	 * @throws     IOException if out fails
+	 */
+	public <E> void writeList(java.lang.Iterable<E> list, Appendable out) throws IOException {
+		long written = 0;																//elements rendered so far
+		out.append(format == Format.JSON ? "[" : format == Format.PARENTHETIC ? "(" : "");
+		for(E e : list) {
+			if(format != Format.TEXT && written > 0) {									//separate from the previous element
+				out.append(format == Format.JSON ? "," : ", ");
+			}
+			if(written >= maxElements) {												//if the limit is reached
+				marker(out);
+				if(format == Format.TEXT) {
+					out.append(' ');
+				}
+				break;
+			}
+			element(e, out);
+			if(format == Format.TEXT) {													//text puts a space after every element
+				out.append(' ');
+			}
+			written++;
+		}
+		out.append(format == Format.JSON ? "]" : format == Format.PARENTHETIC ? ")" : "");
+	}
+
+	/**
+	 * Writes the nodes of a tree in preorder. The walk keeps one iterator per open
+	 * node, so it needs no recursion and no memory beyond the current path.
+	 *
+	 * @param tree the tree to render
+	 * @param out  where the output goes
+	 * @throws     IOException if out fails
+	 */
+	public <E> void writeTree(Tree<E> tree, Appendable out) throws IOException {
+		if(tree.isEmpty()) {															//if there is nothing to render
+			if(format == Format.JSON) {
+				out.append("null");
+			}
+			return;
+		}
+		if(maxElements == 0) {															//if not even the root may be rendered
+			marker(out);
+			if(format == Format.TEXT) {
+				out.append('\n');
+			}
+			return;
+		}
+		ArrayDeque<Frame<E>> path = new ArrayDeque<>();									//open nodes, deepest first
+		long written = 0;																//elements rendered so far
+		try {
+			openNode(tree, tree.root(), 0, path, out);
+			written++;
+			while(!path.isEmpty()) {
+				Frame<E> frame = path.peek();
+				if(!frame.children.hasNext()) {											//if every child has been rendered
+					path.pop();
+					closeChildren(out);
+					continue;
+				}
+				if(format != Format.TEXT && !frame.first) {								//separate from the previous sibling
+					out.append(format == Format.JSON ? "," : ", ");
+				}
+				frame.first = false;
+				if(written >= maxElements) {											//if the limit is reached
+					if(format == Format.TEXT) {
+						indent(path.size(), out);
+					}
+					marker(out);
+					if(format == Format.TEXT) {
+						out.append('\n');
+					}
+					while(!path.isEmpty()) {											//close every open node
+						path.pop();
+						closeChildren(out);
+					}
+					break;
+				}
+				openNode(tree, frame.children.next(), path.size(), path, out);
+				written++;
+			}
+		}
+		catch(InvalidPositionException e) {												//the positions come from the tree itself
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes a node and, if it has children, opens them: either pushes a frame for them
+	 * or, at the depth limit, writes the marker in their place.
+	 *
+	 * @param tree  the tree
+	 * @param p     the node
+	 * @param depth the depth of the node
+	 * @param path  the open nodes
+	 * @param out   where the output goes
+	 * @throws      IOException if out fails
+	 */
+	private <E> void openNode(Tree<E> tree, Position<E> p, int depth, ArrayDeque<Frame<E>> path, Appendable out) throws IOException, InvalidPositionException {
+		if(format == Format.TEXT) {														//one line per node
+			indent(depth, out);
+			element(p.getElement(), out);
+			out.append('\n');
+		}
+		else if(format == Format.JSON) {
+			out.append("{\"element\":");
+			element(p.getElement(), out);
+		}
+		else {
+			element(p.getElement(), out);
+		}
+		Iterator<Position<E>> children = tree.children(p).iterator();
+		if(!children.hasNext()) {														//if it is a leaf
+			if(format == Format.JSON) {
+				out.append('}');
+			}
+			return;
+		}
+		if(depth == maxDepth) {															//if its children are too deep
+			if(format == Format.TEXT) {
+				indent(depth + 1, out);
+				marker(out);
+				out.append('\n');
+			}
+			else if(format == Format.JSON) {
+				out.append(",\"children\":[");
+				marker(out);
+				out.append("]}");
+			}
+			else {
+				out.append('(');
+				marker(out);
+				out.append(')');
+			}
+			return;
+		}
+		out.append(format == Format.JSON ? ",\"children\":[" : format == Format.PARENTHETIC ? "(" : "");
+		path.push(new Frame<E>(children));												//render the children next
+	}
+
+	/** Closes the children of a node once they have all been written. */
+	private void closeChildren(Appendable out) throws IOException {
+		out.append(format == Format.JSON ? "]}" : format == Format.PARENTHETIC ? ")" : "");
+	}
+
+	/** Writes the marker for elements that were cut off. */
+	private void marker(Appendable out) throws IOException {
+		if(format == Format.JSON) {
+			out.append('"').append(MORE).append('"');									//a string keeps the JSON valid
+		}
+		else {
+			out.append(MORE);
+		}
+	}
+
+	/** Writes the indentation of an outline line at the given depth. */
+	private static void indent(int depth, Appendable out) throws IOException {
+		for(int i = 0; i < depth; i++) {
+			out.append(INDENT);
+		}
+	}
+
+	/**
+	 * Writes one element: its string form, or in JSON a number, boolean, null or quoted
+	 * and escaped string.
+	 *
+	 * @param e   the element
+	 * @param out where the output goes
+	 * @throws    IOException if out fails
+	 */
+	private void element(Object e, Appendable out) throws IOException {
+		if(format != Format.JSON) {														//plain string form
+			out.append(String.valueOf(e));
+			return;
+		}
+		if(e == null || e instanceof Boolean || isFinite(e)) {							//JSON literals and numbers
+			out.append(String.valueOf(e));
+			return;
+		}
+		String s = e.toString();
+		out.append('"');
+		for(int i = 0; i < s.length(); i++) {											//escape what JSON does not allow in a string
+			char c = s.charAt(i);
+			switch(c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if(c < 0x20) {														//other control characters
+						out.append(String.format("\\u%04x", (int) c));
+					}
+					else {
+						out.append(c);
+					}
+			}
+		}
+		out.append('"');
+	}
+
+	/** Tests whether e is a number JSON can represent: an integer type or a finite float or double. */
+	private static boolean isFinite(Object e) {
+		if(e instanceof Double || e instanceof Float) {									//NaN and the infinities have no JSON form
+			double d = ((Number) e).doubleValue();
+			return !Double.isNaN(d) && !Double.isInfinite(d);
+		}
+		return e instanceof Integer || e instanceof Long || e instanceof Short || e instanceof Byte;
+	}
+}
@@ -0,0 +1,27 @@
+package packag;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event committed by StructureMetrics for a traversal that ran longer than the
+ * slow threshold. It begins when the iterator is created and ends when the iterator
+ * is exhausted, so the duration of the event is how long the traversal took.
+ */
+@Name("packag.SlowOperation")
+@Label("Slow Structure Operation")
+@Category({"Positional Lists", "Operations"})
+@Description("A list or tree traversal that took longer than the slow threshold; the duration is the time it ran")
+final class SlowOperationEvent extends jdk.jfr.Event {
+
+	@Label("Structure")
+	String structure;																	//name the metrics were created with
+
+	@Label("Operation")
+	String operation;																	//what was running, for example "iterator"
+
+	@Label("Positions")
+	long positions;																		//number of positions visited
+}
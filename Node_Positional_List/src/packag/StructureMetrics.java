@@ -0,0 +1,297 @@
+package packag;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Operation counters for a NodePositionalList or LinkedTree. Instrumentation is
+ * opt-in: a structure only counts while a StructureMetrics is installed with
+ * setMetrics, and without one every hook is a single null check. The counters are
+ * LongAdders, which stripe their cells across threads, so counting stays cheap
+ * under contention.
+ *
+ * Besides counters for adds, removes, sets, traversals and invalid positions,
+ * the metrics keep power-of-two histograms of traversal lengths and of the size of
+ * the structure after each add and remove. Traversals that run longer than the slow
+ * threshold are reported as packag.SlowOperation JFR events, and every rejected
+ * position as a packag.InvalidPosition event. A traversal is counted when its
+ * iterator reaches the end; one that is abandoned early is not. The numbers can be
+ * published as an MXBean with register.
+ */
+public class StructureMetrics implements StructureMetricsMXBean {
+
+	private static final int BUCKETS = 65;												//bucket 0 for zero, one per bit length after that
+
+	//----------------------------nested MeteredIterator class-----------------------
+
+	/** This class counts the positions an iterator reports and records the traversal at its end. */
+	private class MeteredIterator<T> implements Iterator<T> {
+
+		private final Iterator<T> iterator;												//the iterator that is metered
+		private final String operation;													//name of the traversal
+		private final SlowOperationEvent event = new SlowOperationEvent();				//JFR event timing the traversal
+		private final long start = System.nanoTime();									//when the traversal began
+		private long visited = 0;														//positions reported so far
+		private boolean done = false;													//true once the traversal has been recorded
+
+		private MeteredIterator(Iterator<T> iterator, String operation) {
+			this.iterator = iterator;													//sets iterator to the value of iterator
+			this.operation = operation;													//sets operation to the value of operation
+			event.begin();																//the event duration is the time the traversal runs
+		}
+
+		/** Tests whether the iterator has a next object, recording the traversal at the end. */
+		@Override
+		public boolean hasNext() {
+			boolean more = iterator.hasNext();
+			if(!more && !done) {														//if the traversal just ended
+				done = true;
+				event.end();
+				traversal(event, operation, visited, System.nanoTime() - start);
+			}
+			return more;
+		}
+
+		/** Returns the next object of the iterator and counts it. */
+		@Override
+		public T next() {
+			T next = iterator.next();
+			visited++;
+			return next;
+		}
+
+		/** Removes the last object through the metered iterator. */
+		@Override
+		public void remove() {
+			iterator.remove();
+		}
+	}
+	//----------------------------end of nested MeteredIterator class--------------------
+
+	private final String name;															//name used in events and the MXBean
+	private final LongAdder adds = new LongAdder();
+	private final LongAdder removes = new LongAdder();
+	private final LongAdder sets = new LongAdder();
+	private final LongAdder traversals = new LongAdder();
+	private final LongAdder invalidPositions = new LongAdder();
+	private final LongAdder[] traversalLengths = buckets();								//histogram of positions per traversal
+	private final LongAdder[] sizes = buckets();										//histogram of sizes after a change
+	private volatile long slowThreshold = 10_000_000;									//nanoseconds after which a traversal is slow
+	private ObjectName registered;														//name under which the MXBean is registered, if it is
+
+	/**
+	 * Constructs metrics with the given name, used in JFR events and as the MXBean name.
+	 *
+	 * @param name the name of the structure
+	 */
+	public StructureMetrics(String name) {
+		this.name = name;																//sets name to the value of name
+	}
+
+	/**
+	 * Returns the name of the metrics.
+	 *
+	 * @return the name of the structure
+	 */
+	public String getName() {
+		return name;																	//returns the name
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server as
+	 * packag:type=StructureMetrics,name=the name.
+	 *
+	 * @throws IllegalStateException if the MXBean cannot be registered
+	 */
+	public synchronized void register() {
+		if(registered != null) {														//if it is registered already
+			return;
+		}
+		try {
+			ObjectName objectName = ObjectName.getInstance("packag:type=StructureMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			registered = objectName;
+		}
+		catch(JMException e) {
+			throw new IllegalStateException("Cannot register the metrics of " + name, e);
+		}
+	}
+
+	/**
+	 * Removes the metrics from the platform MBean server, if they were registered.
+	 */
+	public synchronized void unregister() {
+		if(registered == null) {														//if it is not registered
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+		}
+		catch(JMException e) {															//someone else unregistered it
+			//nothing to undo: the name is gone from the server either way, and a later
+			//register() registers the metrics afresh
+		}
+		registered = null;
+	}
+
+	@Override
+	public long getAdds() {
+		return adds.sum();
+	}
+
+	@Override
+	public long getRemoves() {
+		return removes.sum();
+	}
+
+	@Override
+	public long getSets() {
+		return sets.sum();
+	}
+
+	@Override
+	public long getTraversals() {
+		return traversals.sum();
+	}
+
+	@Override
+	public long getInvalidPositions() {
+		return invalidPositions.sum();
+	}
+
+	@Override
+	public long[] getTraversalLengths() {
+		return sums(traversalLengths);
+	}
+
+	@Override
+	public long[] getSizes() {
+		return sums(sizes);
+	}
+
+	@Override
+	public long getSlowThresholdMicros() {
+		return slowThreshold / 1000;
+	}
+
+	@Override
+	public void setSlowThresholdMicros(long micros) {
+		if(micros < 0) {																//if the threshold is negative
+			throw new IllegalArgumentException("Negative threshold: " + micros);
+		}
+		slowThreshold = micros * 1000;													//kept in nanoseconds
+	}
+
+	@Override
+	public void reset() {
+		adds.reset();
+		removes.reset();
+		sets.reset();
+		traversals.reset();
+		invalidPositions.reset();
+		for(int i = 0; i < BUCKETS; i++) {
+			traversalLengths[i].reset();
+			sizes[i].reset();
+		}
+	}
+
+	/** Counts an add and records the size after it. */
+	void added(int size) {
+		adds.increment();
+		sizes[bucket(size)].increment();
+	}
+
+	/** Counts an add of the given number of elements and records the size after it. */
+	void added(int count, int size) {
+		adds.add(count);
+		sizes[bucket(size)].increment();
+	}
+
+	/** Counts a remove of the given number of elements and records the size after it. */
+	void removed(int count, int size) {
+		removes.add(count);
+		sizes[bucket(size)].increment();
+	}
+
+	/** Counts a set. */
+	void set() {
+		sets.increment();
+	}
+
+	/**
+	 * Counts a rejected position and reports it to JFR, then returns the exception so
+	 * the caller can throw it.
+	 *
+	 * @param e the exception about to be thrown
+	 * @return  e
+	 */
+	InvalidPositionException invalid(InvalidPositionException e) {
+		invalidPositions.increment();
+		InvalidPositionEvent event = new InvalidPositionEvent();
+		if(event.shouldCommit()) {														//only if JFR records the event
+			event.structure = name;
+			event.message = e.getMessage();
+			event.commit();
+		}
+		return e;																		//return the exception
+	}
+
+	/**
+	 * Wraps an iterator so the traversal it makes is counted and timed.
+	 *
+	 * @param iterator  the iterator of the traversal
+	 * @param operation the name of the traversal, for events
+	 * @return          the metered iterator
+	 */
+	<T> Iterator<T> meter(Iterator<T> iterator, String operation) {
+		return new MeteredIterator<T>(iterator, operation);								//count and time the traversal
+	}
+
+	/**
+	 * Records a finished traversal, reporting it to JFR if it was slow.
+	 *
+	 * @param event     the JFR event that timed the traversal, already ended
+	 * @param operation the name of the traversal
+	 * @param visited   the number of positions it visited
+	 * @param nanos     how long it ran
+	 */
+	private void traversal(SlowOperationEvent event, String operation, long visited, long nanos) {
+		traversals.increment();
+		traversalLengths[bucket(visited)].increment();
+		if(nanos >= slowThreshold) {													//if it was slow
+			if(event.shouldCommit()) {													//only if JFR records the event
+				event.structure = name;
+				event.operation = operation;
+				event.positions = visited;
+				event.commit();
+			}
+		}
+	}
+
+	/** Returns the histogram bucket of a value, its bit length. */
+	private static int bucket(long value) {
+		return 64 - Long.numberOfLeadingZeros(value);									//0 for 0, i for 2^(i-1) .. 2^i - 1
+	}
+
+	/** Returns a fresh array of histogram buckets. */
+	private static LongAdder[] buckets() {
+		LongAdder[] buckets = new LongAdder[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+		return buckets;																	//return the buckets
+	}
+
+	/** Returns the current counts of histogram buckets. */
+	private static long[] sums(LongAdder[] buckets) {
+		long[] counts = new long[buckets.length];
+		for(int i = 0; i < buckets.length; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return counts;																	//return the counts
+	}
+}
@@ -0,0 +1,39 @@
+package packag;
+
+/**
+ * The management interface of StructureMetrics, as seen through JMX. Histograms are
+ * arrays of bucket counts: bucket 0 counts the value 0 and bucket i counts values from
+ * 2^(i-1) to 2^i - 1.
+ */
+public interface StructureMetricsMXBean {
+
+	/** Returns the number of elements or nodes added. */
+	long getAdds();
+
+	/** Returns the number of elements or nodes removed. */
+	long getRemoves();
+
+	/** Returns the number of elements replaced. */
+	long getSets();
+
+	/** Returns the number of traversals that ran to the end. */
+	long getTraversals();
+
+	/** Returns the number of InvalidPositionExceptions thrown. */
+	long getInvalidPositions();
+
+	/** Returns the histogram of the number of positions each traversal visited. */
+	long[] getTraversalLengths();
+
+	/** Returns the histogram of the size of the structure after each add and remove. */
+	long[] getSizes();
+
+	/** Returns the duration above which a traversal is reported as a slow operation, in microseconds. */
+	long getSlowThresholdMicros();
+
+	/** Sets the duration above which a traversal is reported as a slow operation, in microseconds. */
+	void setSlowThresholdMicros(long micros);
+
+	/** Sets every counter and histogram back to zero. */
+	void reset();
+}
@@ -0,0 +1,45 @@
+package packag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the slot handles of ArrayPositionalList: a handle kept after its element
+ * was removed must be rejected, also once the slot holds another element.
+ */
+public class ArrayPositionalListTest {
+
+	/** A slot handle of a removed element does not reach the element that reuses the slot. */
+	@Test
+	public void staleSlotIsRejectedAfterReuse() throws Exception {
+		ArrayPositionalList<String> list = new ArrayPositionalList<>();
+		int alice = list.insertLast("alice");
+		list.removeAt(alice);
+		int carol = list.insertLast("carol");											//reuses the slot of alice
+		assertThrows(InvalidPositionException.class, () -> list.elementAt(alice));
+		assertThrows(InvalidPositionException.class, () -> list.setAt(alice, "mallory"));
+		assertThrows(InvalidPositionException.class, () -> list.insertAfter(alice, "mallory"));
+		assertThrows(InvalidPositionException.class, () -> list.removeAt(alice));
+		assertEquals("carol", list.elementAt(carol));
+		assertEquals(1, list.size());
+	}
+
+	/** The slot of a Handle and the slots the walk hands out name the same elements. */
+	@Test
+	public void handleSlotsMatchTheWalk() throws Exception {
+		ArrayPositionalList<String> list = new ArrayPositionalList<>();
+		Position<String> bob = list.addLast("bob");
+		list.remove(list.addFirst("alice"));
+		Position<String> dave = list.addFirst("dave");									//reuses the slot of alice
+		int slot = ((ArrayPositionalList<String>.Handle) dave).slot();
+		assertEquals(slot, list.firstSlot());
+		assertEquals("dave", list.elementAt(slot));
+		assertEquals("bob", list.elementAt(list.nextSlot(slot)));
+		list.insertAfter(slot, "carol");
+		assertEquals("dave carol bob ", list.toString());
+		list.remove(bob);
+		assertEquals(ArrayPositionalList.NONE, ((ArrayPositionalList<String>.Handle) bob).slot());
+	}
+}
@@ -0,0 +1,55 @@
+package packag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the slot handles of CompactTree: a handle kept after its node was removed
+ * must be rejected, also once the slot holds another node.
+ */
+public class CompactTreeTest {
+
+	/** A slot handle of a removed node does not reach the node that reuses the slot. */
+	@Test
+	public void staleSlotIsRejectedAfterReuse() throws Exception {
+		CompactTree<String> tree = new CompactTree<>();
+		tree.addRoot("root");
+		int root = tree.rootSlot();
+		Position<String> subtree = tree.addChild(tree.root(), "alice");
+		int alice = ((CompactTree<String>.Handle) subtree).slot();
+		int bob = tree.insertChild(alice, "bob");
+		assertEquals(alice, tree.firstChildSlot(root));
+		assertEquals(2, tree.removeSubtree(subtree));
+		int carol = tree.insertChild(root, "carol");									//reuses a slot of the removed subtree
+		int dave = tree.insertChild(root, "dave");										//and the other one
+		assertThrows(InvalidPositionException.class, () -> tree.elementAt(alice));
+		assertThrows(InvalidPositionException.class, () -> tree.elementAt(bob));
+		assertThrows(InvalidPositionException.class, () -> tree.insertChild(alice, "mallory"));
+		assertThrows(InvalidPositionException.class, () -> tree.parentSlot(bob));
+		assertThrows(InvalidPositionException.class, () -> tree.firstChildSlot(alice));
+		assertEquals("carol", tree.elementAt(carol));
+		assertEquals("dave", tree.elementAt(dave));
+		assertEquals(3, tree.size());
+		assertEquals(CompactTree.NONE, ((CompactTree<String>.Handle) subtree).slot());
+	}
+
+	/** The slots the walk hands out round-trip through the slot API. */
+	@Test
+	public void slotWalkMatchesTheTree() throws Exception {
+		CompactTree<Integer> tree = new CompactTree<>(1);
+		tree.addRoot(0);
+		int root = tree.rootSlot();
+		for(int i = 1; i <= 20; i++) {
+			tree.insertChild(root, i);													//grows the arrays on the way
+		}
+		int sum = 0;
+		for(int s = tree.firstChildSlot(root); s != CompactTree.NONE; s = tree.nextSiblingSlot(s)) {
+			assertEquals(root, tree.parentSlot(s));
+			sum += tree.elementAt(s);
+		}
+		assertEquals(210, sum);
+		assertEquals(CompactTree.NONE, tree.parentSlot(root));
+	}
+}
@@ -0,0 +1,198 @@
+package packag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stress runs for ConcurrentNodePositionalList: several threads add, remove, set,
+ * walk and step through the list at once, and once they are done the size, the
+ * forward walk and the before chain have to agree with what each thread did.
+ */
+public class ConcurrentNodePositionalListTest {
+
+	private static final int THREADS = 8;												//threads that share the list
+	private static final int OPERATIONS = 20_000;										//operations per thread
+	private static final int SLOTS = 1 << 10;											//shared positions any thread may remove
+
+	/**
+	 * Runs the same operations on every thread at once and waits for all of them.
+	 *
+	 * @param work the work of one thread, given its index
+	 */
+	private static void runAll(ThreadWork work) throws Exception {
+		CyclicBarrier start = new CyclicBarrier(THREADS);								//all threads start together
+		List<Thread> threads = new ArrayList<>();
+		List<Throwable> failures = new ArrayList<>();
+		for(int t = 0; t < THREADS; t++) {
+			int index = t;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					work.run(index);
+				}
+				catch(Throwable e) {
+					synchronized(failures) {
+						failures.add(e);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		if(!failures.isEmpty()) {														//report the first failure of any thread
+			throw new AssertionError(failures.get(0));
+		}
+	}
+
+	/** The work of one stress thread. */
+	private interface ThreadWork {
+		void run(int index) throws Exception;
+	}
+
+	/**
+	 * Eight threads add, remove, set and navigate at random. Every element is added
+	 * once; afterwards each one has to be either in the list or returned by exactly
+	 * one successful remove, and size, iteration and the before chain must agree.
+	 */
+	@Test
+	public void randomOperationsKeepTheListConsistent() throws Exception {
+		ConcurrentNodePositionalList<Long> list = new ConcurrentNodePositionalList<>();
+		AtomicReferenceArray<Position<Long>> slots = new AtomicReferenceArray<>(SLOTS);	//positions shared between threads
+		long[][] removed = new long[THREADS][];											//ids each thread removed
+		int[] removedCount = new int[THREADS];
+		runAll(index -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			long[] mine = new long[OPERATIONS];
+			int count = 0;
+			for(int i = 0; i < OPERATIONS; i++) {
+				long id = (long) index * OPERATIONS + i;								//unique id of a new element
+				int slot = random.nextInt(SLOTS);
+				Position<Long> p = slots.get(slot);
+				try {
+					switch(random.nextInt(6)) {
+						case 0:
+							slots.set(slot, list.addFirst(id));
+							break;
+						case 1:
+							slots.set(slot, list.addLast(id));
+							break;
+						case 2:
+							if(p != null) {
+								slots.set(slot, list.addAfter(p, id));
+							}
+							break;
+						case 3:
+							if(p != null) {
+								slots.set(slot, list.addBefore(p, id));
+							}
+							break;
+						case 4:
+							if(p != null) {
+								long e = list.remove(p);								//only one remover may succeed
+								mine[count++] = e;
+							}
+							break;
+						default:
+							if(p != null) {
+								Long e = p.getElement();
+								list.set(p, Long.valueOf(e.longValue()));				//same id, new box
+								list.before(p);
+								list.after(p);
+							}
+							break;
+					}
+				}
+				catch(InvalidPositionException | IllegalArgumentException e) {			//the position was removed by another thread
+				}
+			}
+			removed[index] = mine;
+			removedCount[index] = count;
+		});
+
+		List<Long> live = new ArrayList<>();
+		for(Long e : list) {
+			live.add(e);
+		}
+		assertEquals(live.size(), list.size());											//size agrees with the walk
+
+		List<Long> backwards = new ArrayList<>();
+		for(Position<Long> p = list.last(); p != null; p = list.before(p)) {
+			backwards.add(0, p.getElement());
+		}
+		assertEquals(live, backwards);													//the before chain agrees with the walk
+
+		HashSet<Long> seen = new HashSet<>(live);
+		assertEquals(live.size(), seen.size());											//no element is in the list twice
+		int total = live.size();
+		for(int t = 0; t < THREADS; t++) {
+			for(int i = 0; i < removedCount[t]; i++) {
+				assertTrue(seen.add(removed[t][i]), "removed twice or still live: " + removed[t][i]);
+				total++;
+			}
+		}
+		assertEquals(seen.size(), total);
+	}
+
+	/**
+	 * Races a set against a remove of the same position, many rounds in a row. The
+	 * two threads meet at a spin barrier before each round so the calls overlap.
+	 * Either the set fails, or it happened before the removal and remove returns the
+	 * element it stored.
+	 */
+	@Test
+	public void setRacingRemoveIsNeverLost() throws Exception {
+		int rounds = 200_000;
+		ConcurrentNodePositionalList<Integer> list = new ConcurrentNodePositionalList<>();
+		List<Position<Integer>> positions = new ArrayList<>(rounds);
+		for(int round = 0; round < rounds; round++) {
+			positions.add(list.addLast(0));
+		}
+		AtomicIntegerArray arrived = new AtomicIntegerArray(rounds);					//threads that reached each round
+		boolean[] setDone = new boolean[rounds];
+		int[] returned = new int[rounds];
+		Thread setter = new Thread(() -> {
+			for(int round = 0; round < rounds; round++) {
+				meet(arrived, round);
+				try {
+					list.set(positions.get(round), 1);
+					setDone[round] = true;
+				}
+				catch(InvalidPositionException e) {										//the removal came first
+				}
+			}
+		});
+		setter.start();
+		for(int round = 0; round < rounds; round++) {
+			meet(arrived, round);
+			returned[round] = list.remove(positions.get(round));
+		}
+		setter.join();
+		for(int round = 0; round < rounds; round++) {
+			assertEquals(setDone[round] ? 1 : 0, returned[round], "round " + round);
+		}
+		assertNull(list.first());
+		assertEquals(0, list.size());
+	}
+
+	/** Waits until both racing threads have reached the given round. */
+	private static void meet(AtomicIntegerArray arrived, int round) {
+		arrived.incrementAndGet(round);
+		while(arrived.get(round) < 2) {
+			Thread.yield();																//let the other thread run, even on one core
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package packag;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the string codec: sizeOf and encode must agree with each other and with
+ * the UTF-8 form String.getBytes produces.
+ */
+public class ElementCodecTest {
+
+	/** Strings with one-, two-, three- and four-byte chars and unpaired surrogates. */
+	private static final String[] SAMPLES = {
+		"", "plain ascii", "café", "€ 5", "😀 smile", "x\ud83d", "\ude00y", "\ud83d😀",
+		"\u007f\u0080߿ࠀ￿"
+	};
+
+	/** The codec writes exactly sizeOf bytes, the same bytes as getBytes, and reads them back. */
+	@Test
+	public void utf8MatchesGetBytes() {
+		ElementCodec<String> codec = ElementCodec.utf8();
+		for(String s : SAMPLES) {
+			byte[] expected = s.getBytes(StandardCharsets.UTF_8);
+			assertEquals(expected.length, codec.sizeOf(s), s);
+			ByteBuffer out = ByteBuffer.allocate(codec.sizeOf(s));
+			codec.encode(s, out);
+			assertEquals(out.capacity(), out.position(), s);							//exactly sizeOf bytes
+			assertArrayEquals(expected, Arrays.copyOf(out.array(), out.position()), s);
+			out.flip();
+			assertEquals(new String(expected, StandardCharsets.UTF_8), codec.decode(out, expected.length), s);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package packag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Recovery runs for JournaledList: a failing codec, a torn log tail and a crash in
+ * the middle of a checkpoint must all leave a list that reopens to what was synced.
+ */
+public class JournaledListTest {
+
+	@TempDir
+	Path dir;																			//fresh directory for each test
+
+	/** Returns the elements of the list in order. */
+	private static List<String> elements(JournaledList<String> list) {
+		List<String> found = new ArrayList<>();
+		for(String e : list) {
+			found.add(e);
+		}
+		return found;
+	}
+
+	/** Returns the path of one of the journal files of base. */
+	private static Path file(Path base, String suffix) {
+		return base.resolveSibling(base.getFileName() + suffix);
+	}
+
+	/** A UTF-8 codec whose sizeOf says "bad" takes one byte, while encode writes three. */
+	private static ElementCodec<String> lyingCodec() {
+		ElementCodec<String> utf8 = ElementCodec.utf8();
+		return new ElementCodec<String>() {
+			@Override
+			public int sizeOf(String e) {
+				return e.equals("bad") ? 1 : utf8.sizeOf(e);
+			}
+
+			@Override
+			public void encode(String e, ByteBuffer out) {
+				utf8.encode(e, out);
+			}
+
+			@Override
+			public String decode(ByteBuffer in, int length) {
+				return utf8.decode(in, length);
+			}
+		};
+	}
+
+	/**
+	 * A codec that under-reports an element makes that add fail, and neither the
+	 * list in memory nor the log keep anything of it: the adds after it are
+	 * recovered as well.
+	 */
+	@Test
+	public void failingCodecLeavesListAndLogWhole() throws Exception {
+		Path base = dir.resolve("list");
+		try(JournaledList<String> list = new JournaledList<>(base, lyingCodec())) {
+			list.addLast("one");
+			assertThrows(UncheckedIOException.class, () -> list.addLast("bad"));
+			Position<String> two = list.addLast("two");
+			assertThrows(UncheckedIOException.class, () -> list.set(two, "bad"));
+			list.addLast("three");
+			assertEquals(List.of("one", "two", "three"), elements(list));
+			assertEquals(3, list.size());
+			list.journal().sync();
+		}
+		try(JournaledList<String> list = new JournaledList<>(base, lyingCodec())) {
+			assertEquals(List.of("one", "two", "three"), elements(list));
+		}
+	}
+
+	/**
+	 * A record torn off at the end of the log is cut off on opening; the records
+	 * before it come back, and the log takes new records right after them.
+	 */
+	@Test
+	public void tornTailIsCutOff() throws Exception {
+		Path base = dir.resolve("list");
+		try(JournaledList<String> list = new JournaledList<>(base, ElementCodec.utf8())) {
+			list.addLast("one");
+			list.addLast("two");
+			list.journal().sync();
+			list.addLast("three");
+		}
+		Path log = file(base, ".log");
+		try(FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 2);										//tear the last record
+		}
+		try(JournaledList<String> list = new JournaledList<>(base, ElementCodec.utf8())) {
+			assertEquals(List.of("one", "two"), elements(list));
+			list.addLast("four");
+		}
+		try(FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap("garbage".getBytes(StandardCharsets.US_ASCII)));	//junk after the last record
+		}
+		try(JournaledList<String> list = new JournaledList<>(base, ElementCodec.utf8())) {
+			assertEquals(List.of("one", "two", "four"), elements(list));
+		}
+	}
+
+	/**
+	 * A crash while the checkpoint is written leaves a half-written temporary file
+	 * behind; the old checkpoint and log are still used.
+	 */
+	@Test
+	public void crashBeforeCheckpointRenameKeepsOldState() throws Exception {
+		Path base = dir.resolve("list");
+		try(JournaledList<String> list = new JournaledList<>(base, ElementCodec.utf8())) {
+			list.addLast("one");
+			list.journal().checkpoint();
+			list.addLast("two");
+		}
+		Files.write(file(base, ".snap.tmp"), new byte[] {0x4E, 0x50});					//torn temporary checkpoint
+		try(JournaledList<String> list = new JournaledList<>(base, ElementCodec.utf8())) {
+			assertEquals(List.of("one", "two"), elements(list));
+			list.addLast("three");
+			list.journal().checkpoint();												//a later checkpoint replaces the torn file
+		}
+		try(JournaledList<String> list = new JournaledList<>(base, ElementCodec.utf8())) {
+			assertEquals(List.of("one", "two", "three"), elements(list));
+		}
+	}
+
+	/**
+	 * A crash after the new checkpoint is in place but before the log is emptied
+	 * leaves the old log behind; it is dropped instead of replayed a second time.
+	 */
+	@Test
+	public void crashBeforeLogResetDoesNotReplayTwice() throws Exception {
+		Path base = dir.resolve("list");
+		Path log = file(base, ".log");
+		Path oldLog = dir.resolve("old.log");
+		try(JournaledList<String> list = new JournaledList<>(base, ElementCodec.utf8())) {
+			list.addLast("one");
+			list.addLast("two");
+			list.journal().sync();
+			Files.copy(log, oldLog);													//the log as it was before the checkpoint
+			list.journal().checkpoint();
+		}
+		Files.copy(oldLog, log, StandardCopyOption.REPLACE_EXISTING);					//as if the reset never happened
+		try(JournaledList<String> list = new JournaledList<>(base, ElementCodec.utf8())) {
+			assertEquals(List.of("one", "two"), elements(list));
+			assertEquals(0, list.journal().logSize());
+		}
+	}
+
+	/** A corrupt checkpoint is reported instead of loaded. */
+	@Test
+	public void corruptCheckpointIsReported() throws Exception {
+		Path base = dir.resolve("list");
+		Files.write(file(base, ".snap"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		assertThrows(IOException.class, () -> new JournaledList<>(base, ElementCodec.utf8()));
+	}
+}
@@ -0,0 +1,107 @@
+package packag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the parallel reduce of LinkedTree: however the children are cut into
+ * runs, the result has to be the preorder fold of the subtree.
+ */
+public class LinkedTreeTest {
+
+	private LinkedTree<Integer> tree;
+
+	/** Builds a tree with a very wide root, a deep chain and a few bushy nodes. */
+	@BeforeEach
+	public void buildTree() throws Exception {
+		tree = new LinkedTree<>();
+		Position<Integer> root = tree.addRoot(0);
+		int next = 1;
+		for(int i = 0; i < 5_000; i++) {												//a wide root
+			Position<Integer> child = tree.addChild(root, next++);
+			if(i % 500 == 0) {															//some children are bushy
+				for(int j = 0; j < 300; j++) {
+					tree.addChild(child, next++);
+				}
+			}
+		}
+		Position<Integer> chain = tree.addChild(root, next++);
+		for(int i = 0; i < 2_000; i++) {												//and one is a long chain
+			chain = tree.addChild(chain, next++);
+		}
+		tree.setParallelism(3);
+	}
+
+	/** Shuts the pool of the tree down. */
+	@AfterEach
+	public void closePool() {
+		tree.setParallelism(0);
+	}
+
+	/** Returns the elements of the tree in preorder. */
+	private List<Integer> preorder() {
+		List<Integer> found = new ArrayList<>();
+		for(Position<Integer> p : tree.preorder()) {
+			found.add(p.getElement());
+		}
+		return found;
+	}
+
+	/** Reduces the whole tree to the list of its elements, which keeps the order visible. */
+	private List<Integer> reduceToList() throws Exception {
+		return tree.reduce(tree.root(), List::of, (a, b) -> {
+			List<Integer> both = new ArrayList<>(a);
+			both.addAll(b);
+			return both;
+		});
+	}
+
+	/** Without cached sizes the runs are cut by child count and the order is kept. */
+	@Test
+	public void reduceKeepsPreorderWithoutSizes() throws Exception {
+		assertEquals(preorder(), reduceToList());
+		assertEquals(Long.valueOf(tree.size()), tree.reduce(tree.root(), e -> 1L, Long::sum));
+	}
+
+	/** With cached sizes the runs are cut by weight, down to the size threshold. */
+	@Test
+	public void reduceKeepsPreorderWithSizes() throws Exception {
+		tree.setAugmented(true);
+		for(int threshold : new int[] {1, 7, 1 << 12, Integer.MAX_VALUE}) {
+			tree.setSizeThreshold(threshold);
+			assertEquals(preorder(), reduceToList(), "threshold " + threshold);
+		}
+	}
+
+	/** Every rejected move or sibling insert is counted by the metrics. */
+	@Test
+	public void rejectedPositionsAreCounted() throws Exception {
+		StructureMetrics metrics = new StructureMetrics("tree");
+		tree.setMetrics(metrics);
+		Position<Integer> root = tree.root();
+		Position<Integer> child = tree.children(root).iterator().next();
+		assertThrows(InvalidPositionException.class, () -> tree.moveSubtree(root, child));
+		assertThrows(InvalidPositionException.class, () -> tree.addChildBefore(root, -1));
+		Position<Integer> grandchild = tree.children(child).iterator().next();
+		assertThrows(InvalidPositionException.class, () -> tree.moveSubtree(child, grandchild));
+		assertEquals(3, metrics.getInvalidPositions());
+	}
+
+	/** A fork depth of one splits only the children of the root. */
+	@Test
+	public void reduceKeepsPreorderAtShallowForkDepth() throws Exception {
+		tree.setAugmented(true);
+		tree.setSizeThreshold(16);
+		tree.setForkDepth(1);
+		assertEquals(preorder(), reduceToList());
+		tree.setParallelism(0);															//the common pool
+		assertEquals(preorder(), reduceToList());
+	}
+}
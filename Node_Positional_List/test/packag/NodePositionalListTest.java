@@ -0,0 +1,191 @@
+package packag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the fail-fast and consistency guarantees of NodePositionalList: bulk
+ * passes and iterators must not leave the list broken when the list is changed
+ * behind their back.
+ */
+public class NodePositionalListTest {
+
+	/** Returns a list holding the given elements in order. */
+	private static NodePositionalList<Integer> listOf(int... elements) {
+		NodePositionalList<Integer> list = new NodePositionalList<>();
+		for(int e : elements) {
+			list.addLast(e);
+		}
+		return list;
+	}
+
+	/** Returns the elements of the list, walking forward. */
+	private static List<Integer> elements(NodePositionalList<Integer> list) {
+		List<Integer> found = new ArrayList<>();
+		for(Integer e : list) {
+			found.add(e);
+		}
+		return found;
+	}
+
+	/** Returns the elements of the list, walking backward through before. */
+	private static List<Integer> backwards(NodePositionalList<Integer> list) throws InvalidPositionException {
+		List<Integer> found = new ArrayList<>();
+		for(Position<Integer> p = list.last(); p != null; p = list.before(p)) {
+			found.add(0, p.getElement());
+		}
+		return found;
+	}
+
+	/**
+	 * A filter that removes a later element itself makes removeIf fail before it
+	 * steps onto the removed node, and the list stays whole: the elements removed
+	 * before stay removed, and size, the forward walk and the before chain agree.
+	 */
+	@Test
+	public void removeIfFailsFastWhenTheFilterChangesTheList() throws Exception {
+		NodePositionalList<Integer> list = listOf(0, 1, 2, 3, 4, 5);
+		Position<Integer> three = list.after(list.after(list.after(list.first())));
+		assertThrows(java.util.ConcurrentModificationException.class, () -> list.removeIf(e -> {
+			if(e == 2) {
+				try {
+					list.remove(three);													//the element after the one being tested
+				}
+				catch(InvalidPositionException x) {
+					throw new IllegalStateException(x);
+				}
+			}
+			return e == 1;
+		}));
+		assertEquals(List.of(0, 2, 4, 5), elements(list));
+		assertEquals(elements(list), backwards(list));
+		assertEquals(4, list.size());
+	}
+
+	/** A filter that adds an element makes removeIf fail as well. */
+	@Test
+	public void removeIfFailsFastWhenTheFilterAdds() throws Exception {
+		NodePositionalList<Integer> list = listOf(0, 1, 2);
+		assertThrows(java.util.ConcurrentModificationException.class, () -> list.removeIf(e -> {
+			list.addFirst(-1);
+			return true;
+		}));
+		assertEquals(List.of(-1, 0, 1, 2), elements(list));
+		assertEquals(elements(list), backwards(list));
+		assertEquals(4, list.size());
+	}
+
+	/** A filter that only reads sees a whole list with the removals done so far. */
+	@Test
+	public void removeIfKeepsTheListWholeForTheFilter() throws Exception {
+		NodePositionalList<Integer> list = listOf(0, 1, 2, 3, 4, 5, 6, 7);
+		List<Integer> sizes = new ArrayList<>();
+		int removed = list.removeIf(e -> {
+			sizes.add(list.size());
+			assertEquals(elements(list).size(), list.size());
+			return e % 3 != 0;
+		});
+		assertEquals(5, removed);
+		assertEquals(List.of(0, 3, 6), elements(list));
+		assertEquals(elements(list), backwards(list));
+		assertEquals(List.of(8, 8, 7, 6, 6, 5, 4, 4), sizes);
+	}
+
+	/**
+	 * In versioned mode the iterators walk a snapshot; remove takes the reported
+	 * element out of the live list while the walk goes on over the snapshot.
+	 */
+	@Test
+	public void versionedIteratorRemovesFromTheLiveList() throws Exception {
+		NodePositionalList<Integer> list = listOf(0, 1, 2, 3, 4);
+		list.setVersioned(true);
+		List<Integer> seen = new ArrayList<>();
+		for(Iterator<Integer> it = list.iterator(); it.hasNext();) {
+			Integer e = it.next();
+			seen.add(e);
+			if(e % 2 == 1) {
+				it.remove();
+			}
+		}
+		assertEquals(List.of(0, 1, 2, 3, 4), seen);										//the snapshot is walked in full
+		assertEquals(List.of(0, 2, 4), elements(list));
+		assertEquals(3, list.size());
+
+		Iterator<Integer> it = list.iterator();
+		assertThrows(IllegalStateException.class, it::remove);							//nothing reported yet
+		Position<Integer> first = list.first();
+		it.next();
+		list.remove(first);																//removed behind the iterator's back
+		assertThrows(java.util.ConcurrentModificationException.class, it::remove);
+		assertEquals(List.of(2, 4), elements(list));
+	}
+
+	/**
+	 * A cursor whose node was split off into another list fails instead of editing
+	 * with this list's bookkeeping, and both lists stay whole.
+	 */
+	@Test
+	public void cursorFailsFastAfterSplit() throws Exception {
+		NodePositionalList<Integer> list = listOf(0, 1, 2);
+		NodePositionalList<Integer>.Cursor c = list.cursor();
+		c.next();																		//on element 1
+		NodePositionalList<Integer> tail = list.splitAfter(list.first());
+		assertThrows(java.util.ConcurrentModificationException.class, c::remove);
+		assertThrows(java.util.ConcurrentModificationException.class, c::get);
+		assertEquals(List.of(0), elements(list));
+		assertEquals(List.of(1, 2), elements(tail));
+		assertEquals(2, tail.size());
+		assertEquals(1, list.size());
+
+		c.first();																		//back on the list
+		assertEquals(0, c.get());
+		c.insertAfter(5);																//its own changes keep it valid
+		assertEquals(0, c.remove());
+		assertEquals(List.of(5), elements(list));
+	}
+
+	/**
+	 * Order maintenance and versioning keep their state beside the nodes and drop it
+	 * when switched off; switching them on again rebuilds it for every node.
+	 */
+	@Test
+	public void modesCanBeSwitchedOffAndOnAgain() throws Exception {
+		NodePositionalList<Integer> list = listOf(0, 1, 2);
+		list.setOrderMaintenance(true);
+		Position<Integer> first = list.first();
+		Position<Integer> added = list.addLast(3);
+		assertTrue(list.isBefore(first, added));
+		list.setOrderMaintenance(false);
+		Position<Integer> front = list.addFirst(-1);
+		list.setVersioned(true);
+		list.addLast(4);
+		list.setVersioned(false);
+		list.setOrderMaintenance(true);
+		assertTrue(list.isBefore(front, first));
+		assertTrue(list.isBefore(added, list.last()));
+		assertEquals(List.of(-1, 0, 1, 2, 3, 4), elements(list));
+		list.setOrderMaintenance(false);
+		assertTrue(list.isBefore(front, added));
+	}
+
+	/** A cursor whose node went back to the pool and was reused fails as well. */
+	@Test
+	public void cursorFailsFastAfterPoolReuse() throws Exception {
+		NodePositionalList<Integer> list = new NodePositionalList<>(4);
+		list.addLast(0);
+		list.addLast(1);
+		NodePositionalList<Integer>.Cursor c = list.cursor();
+		list.remove(list.first());														//the cursor's node is recycled
+		list.addLast(7);																//and handed out again
+		assertThrows(java.util.ConcurrentModificationException.class, c::get);
+		assertThrows(java.util.ConcurrentModificationException.class, () -> c.set(9));
+		assertEquals(List.of(1, 7), elements(list));
+	}
+}
@@ -0,0 +1,59 @@
+package packag;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the positions of the primitive lists: a position of a removed value must
+ * not reach the value that reuses its slot.
+ */
+public class PrimitivePositionalListTest {
+
+	/** IntPositionalList rejects a position whose slot now holds another value. */
+	@Test
+	public void intListRejectsReusedSlot() throws Exception {
+		IntPositionalList list = new IntPositionalList();
+		int p = list.addLast(1);
+		int q = list.addLast(2);
+		list.remove(p);
+		int r = list.addLast(9);														//reuses the slot of p
+		assertThrows(InvalidPositionException.class, () -> list.get(p));
+		assertThrows(InvalidPositionException.class, () -> list.set(p, 7));
+		assertThrows(InvalidPositionException.class, () -> list.remove(p));
+		assertThrows(InvalidPositionException.class, () -> list.addAfter(p, 7));
+		assertEquals(9, list.get(r));
+		assertEquals(r, list.after(q));
+		assertArrayEquals(new int[] {2, 9}, list.toArray());
+	}
+
+	/** LongPositionalList rejects a position whose slot now holds another value. */
+	@Test
+	public void longListRejectsReusedSlot() throws Exception {
+		LongPositionalList list = new LongPositionalList();
+		long big = 1L << 40;
+		int p = list.addFirst(big);
+		list.remove(p);
+		int r = list.addFirst(big + 1);													//reuses the slot of p
+		assertThrows(InvalidPositionException.class, () -> list.get(p));
+		assertThrows(InvalidPositionException.class, () -> list.remove(p));
+		assertEquals(big + 1, list.get(r));
+		assertEquals(r, list.first());
+	}
+
+	/** DoublePositionalList rejects a position whose slot now holds another value. */
+	@Test
+	public void doubleListRejectsReusedSlot() throws Exception {
+		DoublePositionalList list = new DoublePositionalList();
+		int anchor = list.addLast(0.5);
+		int p = list.addBefore(anchor, 1.5);
+		list.remove(p);
+		int r = list.addAfter(anchor, 2.5);												//reuses the slot of p
+		assertThrows(InvalidPositionException.class, () -> list.get(p));
+		assertThrows(InvalidPositionException.class, () -> list.set(p, 3.5));
+		assertEquals(2.5, list.get(r));
+		assertEquals(anchor, list.before(r));
+	}
+}
@@ -0,0 +1,186 @@
+package packag.bench;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import packag.ArrayPositionalList;
+import packag.InvalidPositionException;
+import packag.NodePositionalList;
+import packag.Position;
+import packag.StructureMetrics;
+
+/**
+ * Insert/remove churn against a list that already holds size elements. Every
+ * benchmark inserts one element and removes one, so the size stays constant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListChurnBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	int size;
+
+	NodePositionalList<Integer> nodeList;
+	Position<Integer> nodeMiddle;
+	NodePositionalList<Integer> meteredList;
+	Position<Integer> meteredMiddle;
+	ArrayPositionalList<Integer> arrayPositionalList;
+	Position<Integer> arrayMiddle;
+	ArrayList<Integer> arrayList;
+	LinkedList<Integer> linkedList;
+	ListIterator<Integer> linkedMiddle;
+	ArrayDeque<Integer> arrayDeque;
+	Integer value = 42;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		nodeList = new NodePositionalList<>();
+		meteredList = new NodePositionalList<>();
+		meteredList.setMetrics(new StructureMetrics("churn"));
+		arrayPositionalList = new ArrayPositionalList<>(size);
+		arrayList = new ArrayList<>(size);
+		linkedList = new LinkedList<>();
+		arrayDeque = new ArrayDeque<>(size);
+		for(int i = 0; i < size; i++) {
+			Position<Integer> n = nodeList.addLast(i);
+			Position<Integer> m = meteredList.addLast(i);
+			Position<Integer> a = arrayPositionalList.addLast(i);
+			if(i == size / 2) {
+				nodeMiddle = n;
+				meteredMiddle = m;
+				arrayMiddle = a;
+			}
+			arrayList.add(i);
+			linkedList.addLast(i);
+			arrayDeque.addLast(i);
+		}
+		linkedMiddle = linkedList.listIterator(size / 2);
+	}
+
+	@Benchmark
+	public Integer nodeListAddFirstRemove() throws InvalidPositionException {
+		return nodeList.remove(nodeList.addFirst(value));
+	}
+
+	@Benchmark
+	public Integer nodeListAddLastRemove() throws InvalidPositionException {
+		return nodeList.remove(nodeList.addLast(value));
+	}
+
+	@Benchmark
+	public Integer nodeListAddBeforeRemove() throws InvalidPositionException {
+		return nodeList.remove(nodeList.addBefore(nodeMiddle, value));
+	}
+
+	@Benchmark
+	public Integer nodeListAddAfterRemove() throws InvalidPositionException {
+		return nodeList.remove(nodeList.addAfter(nodeMiddle, value));
+	}
+
+	@Benchmark
+	public Integer nodeListMeteredAddAfterRemove() throws InvalidPositionException {
+		return meteredList.remove(meteredList.addAfter(meteredMiddle, value));
+	}
+
+	@Benchmark
+	public Position<Integer> nodeListRotate() throws InvalidPositionException {
+		return nodeList.addLast(nodeList.remove(nodeList.first()));
+	}
+
+	@Benchmark
+	public Integer arrayPositionalListAddLastRemove() throws InvalidPositionException {
+		return arrayPositionalList.remove(arrayPositionalList.addLast(value));
+	}
+
+	@Benchmark
+	public Integer arrayPositionalListAddAfterRemove() throws InvalidPositionException {
+		return arrayPositionalList.remove(arrayPositionalList.addAfter(arrayMiddle, value));
+	}
+
+	@Benchmark
+	public Integer arrayPositionalListSlotAddAfterRemove() throws InvalidPositionException {
+		int slot = arrayPositionalList.insertAfter(((ArrayPositionalList<Integer>.Handle) arrayMiddle).slot(), value);
+		return arrayPositionalList.removeAt(slot);
+	}
+
+	@Benchmark
+	public Integer arrayListAddFirstRemove() {
+		arrayList.add(0, value);
+		return arrayList.remove(0);
+	}
+
+	@Benchmark
+	public Integer arrayListAddLastRemove() {
+		arrayList.add(value);
+		return arrayList.remove(arrayList.size() - 1);
+	}
+
+	@Benchmark
+	public Integer arrayListAddMiddleRemove() {
+		int middle = arrayList.size() / 2;
+		arrayList.add(middle, value);
+		return arrayList.remove(middle);
+	}
+
+	@Benchmark
+	public Integer linkedListAddFirstRemove() {
+		linkedList.addFirst(value);
+		return linkedList.removeFirst();
+	}
+
+	@Benchmark
+	public Integer linkedListAddLastRemove() {
+		linkedList.addLast(value);
+		return linkedList.removeLast();
+	}
+
+	@Benchmark
+	public Integer linkedListAddMiddleRemove() {
+		linkedMiddle.add(value);
+		Integer added = linkedMiddle.previous();
+		linkedMiddle.remove();
+		return added;
+	}
+
+	@Benchmark
+	public boolean linkedListRotate() {
+		return linkedList.add(linkedList.removeFirst());
+	}
+
+	@Benchmark
+	public Integer arrayDequeAddFirstRemove() {
+		arrayDeque.addFirst(value);
+		return arrayDeque.removeFirst();
+	}
+
+	@Benchmark
+	public Integer arrayDequeAddLastRemove() {
+		arrayDeque.addLast(value);
+		return arrayDeque.removeLast();
+	}
+
+	@Benchmark
+	public boolean arrayDequeRotate() {
+		return arrayDeque.add(arrayDeque.removeFirst());
+	}
+}
@@ -0,0 +1,155 @@
+package packag.bench;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import packag.ArrayPositionalList;
+import packag.InvalidPositionException;
+import packag.NodePositionalList;
+import packag.Position;
+
+/**
+ * Full iteration over a list of size elements, summing the elements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListIterationBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	int size;
+
+	NodePositionalList<Integer> nodeList;
+	ArrayPositionalList<Integer> arrayPositionalList;
+	ArrayList<Integer> arrayList;
+	LinkedList<Integer> linkedList;
+	ArrayDeque<Integer> arrayDeque;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		nodeList = new NodePositionalList<>();
+		arrayPositionalList = new ArrayPositionalList<>(size);
+		arrayList = new ArrayList<>(size);
+		linkedList = new LinkedList<>();
+		arrayDeque = new ArrayDeque<>(size);
+		for(int i = 0; i < size; i++) {
+			nodeList.addLast(i);
+			arrayPositionalList.addLast(i);
+			arrayList.add(i);
+			linkedList.addLast(i);
+			arrayDeque.addLast(i);
+		}
+	}
+
+	@Benchmark
+	public long nodeListIterator() {
+		long sum = 0;
+		for(Iterator<Integer> it = nodeList.iterator(); it.hasNext();) {
+			sum += it.next();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public long nodeListPositions() {
+		long sum = 0;
+		for(Iterator<?> it = nodeList.positions().iterator(); it.hasNext();) {
+			sum += ((Position<Integer>) it.next()).getElement();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long nodeListAfter() throws InvalidPositionException {
+		long sum = 0;
+		for(Position<Integer> p = nodeList.first(); p != null; p = nodeList.after(p)) {
+			sum += p.getElement();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long nodeListCursor() {
+		long sum = 0;
+		NodePositionalList<Integer>.Cursor c = nodeList.cursor();
+		for(boolean more = c.first(); more; more = c.next()) {
+			sum += c.get();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long nodeListParallelStream() {
+		return nodeList.parallelStream().mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long arrayPositionalListIterator() {
+		long sum = 0;
+		for(Iterator<Integer> it = arrayPositionalList.iterator(); it.hasNext();) {
+			sum += it.next();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long arrayPositionalListSlots() throws InvalidPositionException {
+		long sum = 0;
+		for(int s = arrayPositionalList.firstSlot(); s != ArrayPositionalList.NONE; s = arrayPositionalList.nextSlot(s)) {
+			sum += arrayPositionalList.elementAt(s);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long arrayList() {
+		long sum = 0;
+		for(Integer e : arrayList) {
+			sum += e;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long arrayListParallelStream() {
+		return arrayList.parallelStream().mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long linkedList() {
+		long sum = 0;
+		for(Integer e : linkedList) {
+			sum += e;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long arrayDeque() {
+		long sum = 0;
+		for(Integer e : arrayDeque) {
+			sum += e;
+		}
+		return sum;
+	}
+}
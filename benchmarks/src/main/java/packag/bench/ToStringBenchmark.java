@@ -0,0 +1,106 @@
+package packag.bench;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import packag.ArrayPositionalList;
+import packag.NodePositionalList;
+import packag.Renderer;
+
+/**
+ * toString() of a list holding size elements, plus NodePositionalList rendered as
+ * JSON and as a ten element preview through a Renderer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToStringBenchmark {
+
+	@Param({"1000", "10000", "1000000"})
+	int size;
+
+	NodePositionalList<Integer> nodeList;
+	ArrayPositionalList<Integer> arrayPositionalList;
+	ArrayList<Integer> arrayList;
+	LinkedList<Integer> linkedList;
+	ArrayDeque<Integer> arrayDeque;
+	Renderer json;
+	Renderer preview;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		nodeList = new NodePositionalList<>();
+		arrayPositionalList = new ArrayPositionalList<>(size);
+		arrayList = new ArrayList<>(size);
+		linkedList = new LinkedList<>();
+		arrayDeque = new ArrayDeque<>(size);
+		json = new Renderer(Renderer.Format.JSON);
+		preview = new Renderer(Renderer.Format.TEXT);
+		preview.setMaxElements(10);
+		for(int i = 0; i < size; i++) {
+			nodeList.addLast(i);
+			arrayPositionalList.addLast(i);
+			arrayList.add(i);
+			linkedList.addLast(i);
+			arrayDeque.addLast(i);
+		}
+	}
+
+	@Benchmark
+	public String nodeList() {
+		return nodeList.toString();
+	}
+
+	@Benchmark
+	public String nodeListJson() throws IOException {
+		StringBuilder out = new StringBuilder();
+		nodeList.writeTo(out, json);
+		return out.toString();
+	}
+
+	@Benchmark
+	public String nodeListPreview() throws IOException {
+		StringBuilder out = new StringBuilder();
+		nodeList.writeTo(out, preview);
+		return out.toString();
+	}
+
+	@Benchmark
+	public String arrayPositionalList() {
+		return arrayPositionalList.toString();
+	}
+
+	@Benchmark
+	public String arrayList() {
+		return arrayList.toString();
+	}
+
+	@Benchmark
+	public String linkedList() {
+		return linkedList.toString();
+	}
+
+	@Benchmark
+	public String arrayDeque() {
+		return arrayDeque.toString();
+	}
+}
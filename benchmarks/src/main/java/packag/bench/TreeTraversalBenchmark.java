@@ -0,0 +1,122 @@
+package packag.bench;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import packag.CompactTree;
+import packag.InvalidPositionException;
+import packag.LinkedTree;
+import packag.NonEmptyTreeException;
+import packag.Position;
+
+/**
+ * LinkedTree.preorder() over a wide tree (every node a child of the root) and a
+ * deep tree (a spine where every spine node also has one leaf child).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeTraversalBenchmark {
+
+	public enum Shape { WIDE, DEEP }
+
+	@Param({"WIDE", "DEEP"})
+	Shape shape;
+
+	@Param({"1000", "10000"})
+	int size;
+
+	LinkedTree<Integer> tree;
+	CompactTree<Integer> compactTree;
+
+	@Setup(Level.Trial)
+	public void setUp() throws NonEmptyTreeException, InvalidPositionException {
+		tree = new LinkedTree<>();
+		compactTree = new CompactTree<>(size);
+		Position<Integer> root = tree.addRoot(0);
+		Position<Integer> compactRoot = compactTree.addRoot(0);
+		Position<Integer> spine = root;
+		Position<Integer> compactSpine = compactRoot;
+		for(int i = 1; i < size; i++) {
+			if(shape == Shape.WIDE) {
+				tree.addChild(root, i);
+				compactTree.addChild(compactRoot, i);
+			}
+			else if(i % 2 == 1) {
+				tree.addChild(spine, i);
+				compactTree.addChild(compactSpine, i);
+			}
+			else {
+				spine = tree.addChild(spine, i);
+				compactSpine = compactTree.addChild(compactSpine, i);
+			}
+		}
+	}
+
+	@Benchmark
+	public long preorder() {
+		long sum = 0;
+		for(Iterator<Position<Integer>> it = tree.preorder().iterator(); it.hasNext();) {
+			sum += it.next().getElement();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long compactPreorder() {
+		long sum = 0;
+		for(Iterator<Integer> it = compactTree.iterator(); it.hasNext();) {
+			sum += it.next();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long preorderFirstTen() {
+		long sum = 0;
+		Iterator<Position<Integer>> it = tree.preorder().iterator();
+		for(int i = 0; i < 10 && it.hasNext(); i++) {
+			sum += it.next().getElement();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long postorder() {
+		long sum = 0;
+		for(Iterator<Position<Integer>> it = tree.postorder().iterator(); it.hasNext();) {
+			sum += it.next().getElement();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long reduceSum() throws InvalidPositionException {
+		return tree.reduce(tree.root(), Integer::longValue, Long::sum);
+	}
+
+	@Benchmark
+	public long breadthFirst() {
+		long sum = 0;
+		for(Iterator<Position<Integer>> it = tree.breadthFirst().iterator(); it.hasNext();) {
+			sum += it.next().getElement();
+		}
+		return sum;
+	}
+}